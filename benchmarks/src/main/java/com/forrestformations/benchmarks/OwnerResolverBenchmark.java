@@ -0,0 +1,84 @@
+package com.forrestformations.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.OwnerResolver;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolving the deployment of every pod in a namespace against an in-process API server: cold, which includes the
+ * one ReplicaSet listing per namespace, and cached, which is the per-pod cost once the listing is indexed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnerResolverBenchmark {
+
+    @Param({"1000", "10000"})
+    private int pods;
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private List<Pod> items;
+    private OwnerResolver cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                new KubernetesCrudDispatcher(), false);
+        server.init();
+        client = server.createClient();
+        SyntheticPods.replicaSets(pods).forEach(replicaSet -> client.apps().replicaSets()
+                .inNamespace(SyntheticPods.NAMESPACE).resource(replicaSet).create());
+        items = SyntheticPods.pods(pods).getItems();
+        cached = KubeHelp.given(client).owners();
+        items.forEach(cached::resolve);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Benchmark
+    public void cold(Blackhole blackhole) {
+        OwnerResolver resolver = KubeHelp.given(client).owners();
+        for (Pod pod : items) {
+            blackhole.consume(resolver.resolve(pod));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (Pod pod : items) {
+            blackhole.consume(cached.resolve(pod));
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.forrestformations.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.forrestformations.help.PodQuery;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Client-side name filtering over a whole listing: the per-pod {@code String.matches} the commands used to do, a
+ * pattern compiled once, and {@link PodQuery}, which also skips the regex for literals and literal prefixes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodFilterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int pods;
+
+    @Param({"checkout.*", "(payments|orders)-[0-9]+-.*", "search-3-5c0ffee.*"})
+    private String regex;
+
+    private List<ObjectMeta> metadata;
+    private Pattern pattern;
+    private PodQuery query;
+
+    @Setup
+    public void setUp() {
+        metadata = SyntheticPods.pods(pods).getItems().stream().map(HasMetadata::getMetadata).toList();
+        pattern = Pattern.compile(regex);
+        query = PodQuery.named(regex);
+    }
+
+    @Benchmark
+    public int stringMatches() {
+        int matched = 0;
+        for (ObjectMeta meta : metadata) {
+            if (meta.getName().matches(regex)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int compiledPattern() {
+        int matched = 0;
+        for (ObjectMeta meta : metadata) {
+            if (pattern.matcher(meta.getName()).matches()) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int podQuery() {
+        int matched = 0;
+        for (ObjectMeta meta : metadata) {
+            if (query.matches(meta)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.forrestformations.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.help.PodTable;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link PodTable} behind pod-watch: filling it from a listing, as every poll does, and the snapshot taken for a
+ * redraw after one pod changed, which is the per-frame cost of a watched namespace with churn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodTableBenchmark {
+
+    @Param({"1000", "10000"})
+    private int pods;
+
+    private List<Pod> items;
+    private PodTable table;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        items = SyntheticPods.pods(pods).getItems().stream()
+                .map(pod -> new PodBuilder(pod)
+                        .withNewStatus()
+                        .withPhase("Running")
+                        .addNewContainerStatus()
+                        .withName("app")
+                        .withReady(true)
+                        .withRestartCount(0)
+                        .endContainerStatus()
+                        .endStatus()
+                        .build())
+                .toList();
+        table = new PodTable();
+        table.putAll(items);
+    }
+
+    @Benchmark
+    public PodTable.Snapshot fill() {
+        PodTable filled = new PodTable();
+        filled.putAll(items);
+        return filled.snapshot();
+    }
+
+    @Benchmark
+    public PodTable.Snapshot changeOneAndSnapshot() {
+        table.put(items.get(next++ % items.size()));
+        return table.snapshot();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.forrestformations.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.OutputFormat;
+import com.forrestformations.Printer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Printing a batch of search matches: the per-line {@code printf} onto a {@link PrintStream} commands used to do,
+ * against {@link Printer} records in each output format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrinterBenchmark {
+
+    private static final String[] FIELDS = {"timestamp", "source", "line"};
+
+    @Param({"1000", "10000"})
+    private int lines;
+
+    @Param({"TEXT", "JSON", "TSV"})
+    private OutputFormat format;
+
+    private PrintStream out;
+    private Instant[] timestamps;
+    private String[] sources;
+    private String[] texts;
+
+    @Setup
+    public void setUp() {
+        out = new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+        timestamps = new Instant[lines];
+        sources = new String[lines];
+        texts = new String[lines];
+        Instant start = Instant.parse("2024-05-01T12:00:00Z");
+        for (int i = 0; i < lines; i++) {
+            timestamps[i] = start.plusMillis(i * 7L);
+            sources[i] = "payments/payments-" + (i % 40) + "-5c0ffee/app";
+            texts[i] = "INFO request " + i + " handled in " + (i % 97) + "ms status=200 path=/api/orders/" + i;
+        }
+    }
+
+    @Benchmark
+    public void printf() {
+        for (int i = 0; i < lines; i++) {
+            out.printf("%s [%s] %s" + '\n', timestamps[i], sources[i], texts[i]);
+        }
+    }
+
+    @Benchmark
+    public void printer() {
+        Printer.redirect(out, out, () -> Printer.withFormat(format, () -> {
+            for (int i = 0; i < lines; i++) {
+                Printer.record("%s [%s] %s", FIELDS, timestamps[i], sources[i], texts[i]);
+            }
+        }));
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.forrestformations.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.PodQuery;
+import com.forrestformations.replay.ReplayServer;
+import com.forrestformations.replay.SyntheticNamespace;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Listing a whole generated namespace through the pod helper, over real HTTP and JSON, from a replay server: how the
+ * page size trades round trips against the size of each response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayListBenchmark {
+
+    private static final String NAMESPACE = "bench";
+
+    @Param({"1000", "10000"})
+    private int pods;
+
+    @Param({"100", "500", "5000"})
+    private int pageSize;
+
+    private ReplayServer server;
+    private KubernetesClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try {
+            server = ReplayServer.start(SyntheticNamespace.generate(NAMESPACE, pods, 0, Duration.ZERO), 0, 0);
+        } catch (IOException iE) {
+            throw new UncheckedIOException(iE);
+        }
+        client = new KubernetesClientBuilder()
+                .withConfig(new ConfigBuilder().withMasterUrl(server.url()).withNamespace(NAMESPACE).build())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int listAll() {
+        return KubeHelp.given(client).pods().find(PodQuery.all().withPageSize(pageSize)).size();
+    }
+
+}
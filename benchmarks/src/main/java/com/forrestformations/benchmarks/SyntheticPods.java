@@ -0,0 +1,98 @@
+package com.forrestformations.benchmarks;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetBuilder;
+
+/**
+ * Deterministic pods shaped like a real cluster: deployments of a few replicas each, owned through ReplicaSets, with
+ * creation times spread over the last month.
+ */
+public final class SyntheticPods {
+
+    public static final String NAMESPACE = "bench";
+
+    private static final String[] APPS = {"checkout", "payments", "catalog", "search", "api-gateway", "inventory",
+            "notifications", "auth", "orders", "reporting"};
+    private static final int REPLICAS = 3;
+    private static final long MONTH_SECONDS = 30L * 86_400;
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private SyntheticPods() {
+    }
+
+    public static Instant now() {
+        return NOW;
+    }
+
+    public static PodList pods(int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        List<Pod> pods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int deployment = i / REPLICAS;
+            pods.add(new PodBuilder()
+                    .withNewMetadata()
+                    .withName(replicaSetName(deployment) + "-" + suffix(random, 5))
+                    .withNamespace(NAMESPACE)
+                    .withUid("pod-" + i)
+                    .withCreationTimestamp(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                            NOW.minusSeconds(random.nextLong(MONTH_SECONDS)).atOffset(ZoneOffset.UTC)))
+                    .addNewOwnerReference()
+                    .withKind("ReplicaSet")
+                    .withName(replicaSetName(deployment))
+                    .withController(true)
+                    .endOwnerReference()
+                    .endMetadata()
+                    .build());
+        }
+        return new PodListBuilder().withItems(pods).build();
+    }
+
+    /**
+     * The ReplicaSets owning {@link #pods(int)} of the same count.
+     */
+    public static List<ReplicaSet> replicaSets(int podCount) {
+        List<ReplicaSet> replicaSets = new ArrayList<>();
+        for (int deployment = 0; deployment * REPLICAS < podCount; deployment++) {
+            replicaSets.add(new ReplicaSetBuilder()
+                    .withNewMetadata()
+                    .withName(replicaSetName(deployment))
+                    .withNamespace(NAMESPACE)
+                    .addNewOwnerReference()
+                    .withKind("Deployment")
+                    .withName(deploymentName(deployment))
+                    .withController(true)
+                    .endOwnerReference()
+                    .endMetadata()
+                    .build());
+        }
+        return replicaSets;
+    }
+
+    public static String deploymentName(int deployment) {
+        return APPS[deployment % APPS.length] + "-" + deployment / APPS.length;
+    }
+
+    private static String replicaSetName(int deployment) {
+        return deploymentName(deployment) + "-" + Integer.toHexString(0x5c0ffee + deployment);
+    }
+
+    private static String suffix(SplittableRandom random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.forrestformations.commands;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.benchmarks.SyntheticPods;
+import com.forrestformations.help.PodTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The per-row work of a pod-watch render: formatting ages. Creation timestamps are parsed once per pod as it enters
+ * the {@link PodTable}, see {@code PodTableBenchmark}. Scores are per pod.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodScreenBenchmark {
+
+    private static final int PODS = 1000;
+
+    private long[] ages;
+    private final StringBuilder line = new StringBuilder(128);
+
+    @Setup
+    public void setUp() {
+        PodTable table = new PodTable();
+        table.putAll(SyntheticPods.pods(PODS).getItems());
+        PodTable.Snapshot pods = table.snapshot();
+        long now = SyntheticPods.now().getEpochSecond();
+        ages = new long[pods.size()];
+        for (int row = 0; row < ages.length; row++) {
+            ages[row] = now - pods.createdSeconds(row);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PODS)
+    public void formatDuration(Blackhole blackhole) {
+        for (long age : ages) {
+            blackhole.consume(PodScreen.formatDuration(Duration.ofSeconds(age)));
+        }
+    }
+
+    /**
+     * What the screen does: appending into the row's reused builder.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PODS)
+    public int appendDuration() {
+        int length = 0;
+        for (long age : ages) {
+            line.setLength(0);
+            PodScreen.appendDuration(line, age);
+            length += line.length();
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.forrestformations.commands;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding and removing the debug agent in CATALINA_OPTS values of realistic and oversized lengths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemoteDebugBenchmark {
+
+    @Param({"200", "4000", "64000"})
+    private int length;
+
+    private String withoutDebug;
+    private String withDebug;
+
+    @Setup
+    public void setUp() {
+        StringBuilder options = new StringBuilder();
+        for (int i = 0; options.length() < length; i++) {
+            options.append("-Dapp.setting").append(i).append("=value").append(i).append("  ");
+        }
+        withoutDebug = options.toString().trim();
+        // Agent in the middle, as when other options were appended after it
+        int middle = withoutDebug.indexOf(' ', withoutDebug.length() / 2);
+        withDebug = withoutDebug.substring(0, middle) + " "
+                + RemoteDebug.modifyEnvVar("", false).orElseThrow()
+                + withoutDebug.substring(middle);
+    }
+
+    @Benchmark
+    public Optional<String> add() {
+        return RemoteDebug.modifyEnvVar(withoutDebug, false);
+    }
+
+    @Benchmark
+    public Optional<String> remove() {
+        return RemoteDebug.modifyEnvVar(withDebug, true);
+    }
+
+    @Benchmark
+    public Optional<String> alreadyPresent() {
+        return RemoteDebug.modifyEnvVar(withDebug, false);
+    }
+
+}
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares startup time and peak RSS of the shaded jar against the native executable.
+#
+#   mvn clean install && mvn -Pnative package
+#   scripts/compare-startup.sh [runs]
+#
+# namespace is timed end to end; pod-watch runs under a pseudo terminal for a few seconds, so its RSS includes the
+# first list and render. Set KUBE_PLAY_NO_DAEMON so a running daemon does not serve the jar runs.
+set -euo pipefail
+
+RUNS=${1:-10}
+WATCH_SECONDS=${WATCH_SECONDS:-5}
+JAR=${JAR:-$HOME/.m2/repository/com/forrestformations/kube-play/1.0-SNAPSHOT/kube-play-1.0-SNAPSHOT.jar}
+NATIVE=${NATIVE:-$(dirname "$0")/../target/kube-play}
+export KUBE_PLAY_NO_DAEMON=1
+
+for tool in /usr/bin/time script timeout; do
+    command -v "$tool" > /dev/null || { echo "Needs $tool (GNU time, util-linux script, coreutils timeout)" >&2; exit 1; }
+done
+for binary in "$JAR" "$NATIVE"; do
+    [ -e "$binary" ] || { echo "Missing $binary, build it first" >&2; exit 1; }
+done
+
+# Prints "<wall ms> <max rss KiB>" for one run
+measure() {
+    local start end rss
+    start=$(date +%s%N)
+    rss=$( { /usr/bin/time -f '%M' "$@" > /dev/null 2> /dev/null; } 2>&1 | tail -n 1)
+    end=$(date +%s%N)
+    echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+# Runs a command n times and prints its median wall time and median peak RSS
+report() {
+    local label=$1 n=$2
+    shift 2
+    local samples
+    samples=$(for _ in $(seq "$n"); do measure "$@"; done)
+    local wall rss
+    wall=$(echo "$samples" | awk '{print $1}' | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    rss=$(echo "$samples" | awk '{print $2}' | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    printf '%-22s %10s ms %10s MiB\n' "$label" "$wall" "$(( rss / 1024 ))"
+}
+
+printf '%-22s %13s %14s\n' "RUN" "MEDIAN WALL" "MEDIAN RSS"
+report "jar namespace" "$RUNS" java -jar "$JAR" namespace
+report "native namespace" "$RUNS" "$NATIVE" namespace
+report "jar pod-watch" 3 timeout -s INT "$WATCH_SECONDS" script -qec "java -jar $JAR pod-watch" /dev/null
+report "native pod-watch" 3 timeout -s INT "$WATCH_SECONDS" script -qec "$NATIVE pod-watch" /dev/null
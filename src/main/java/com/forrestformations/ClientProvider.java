@@ -0,0 +1,50 @@
+package com.forrestformations;
+
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.forrestformations.profile.ApiCallTimer;
+import com.forrestformations.throttle.Throttle;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+
+/**
+ * Hands out the clients commands run against. A plain CLI run builds a client per context and closes it after the
+ * command; the daemon keeps them warm between commands.
+ */
+public interface ClientProvider {
+
+    /**
+     * @param context kubeconfig context, null for the current one
+     */
+    KubernetesClient acquire(String context, Supplier<Config> config);
+
+    void release(KubernetesClient client);
+
+    static ClientProvider fresh() {
+        return new ClientProvider() {
+            @Override
+            public KubernetesClient acquire(String context, Supplier<Config> config) {
+                return build(config.get());
+            }
+
+            @Override
+            public void release(KubernetesClient client) {
+                client.close();
+            }
+        };
+    }
+
+    static KubernetesClient build(Config config) {
+        // Watch callbacks and port-forward pumps block, virtual threads keep them from pinning platform threads
+        return new KubernetesClientBuilder()
+                .withConfig(config)
+                .withTaskExecutor(Executors.newVirtualThreadPerTaskExecutor())
+                .withHttpClientBuilderConsumer(builder -> builder
+                        .addOrReplaceInterceptor(Throttle.NAME, new Throttle(config))
+                        .addOrReplaceInterceptor(ApiCallTimer.NAME, new ApiCallTimer()))
+                .build();
+    }
+
+}
@@ -1,28 +1,173 @@
 package com.forrestformations;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.forrestformations.profile.Profiler;
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import picocli.CommandLine.Option;
 
 public abstract class KubeAwareCommand implements Runnable {
 
+    private static final String[] TARGET_FIELDS = {"context", "namespace"};
+
+    private static volatile ClientProvider clientProvider = ClientProvider.fresh();
+
+    @Option(names = {"--contexts"}, split = ",", description = "Kubeconfig contexts to run against; default the current one")
+    private List<String> contexts = List.of();
+
+    @Option(names = {"--namespaces"}, split = ",", description = "Namespaces to run against; default each context's own")
+    private List<String> namespaces = List.of();
+
     @Override
     public final void run() {
-        Config config = buildConfig(new ConfigBuilder());
-        try (KubernetesClient client = new KubernetesClientBuilder().withConfig(config).build()) {
-            go(client);
+        Printer.withFormat(outputFormat(), this::runTargets);
+    }
+
+    /**
+     * Replaces where commands get their clients from, for every command run afterwards in this JVM.
+     */
+    public static void useClientProvider(ClientProvider provider) {
+        clientProvider = provider;
+    }
+
+    protected Config buildConfig(ConfigBuilder configBuilder) {
+        return configBuilder.build();
+    }
+
+    /**
+     * Whether the command can run concurrently against several contexts and namespaces, with its output merged
+     * into one stream prefixed by context and namespace columns.
+     */
+    protected boolean supportsFanOut() {
+        return true;
+    }
+
+    /**
+     * The format the command prints its records in, for commands offering a choice.
+     */
+    protected OutputFormat outputFormat() {
+        return OutputFormat.TEXT;
+    }
+
+    protected abstract void go(KubernetesClient client) throws CommandException;
+
+    private void runTargets() {
+        if (contexts.size() <= 1 && namespaces.size() <= 1) {
+            runSingle(contexts.isEmpty() ? null : contexts.get(0));
+            return;
+        }
+
+        if (!supportsFanOut()) {
+            Printer.error("Command error: this command runs against a single context and namespace");
+            return;
+        }
+        fanOut();
+    }
+
+    private void runSingle(String context) {
+        KubernetesClient client = null;
+        try {
+            client = buildClient(context);
+            go(namespaces.isEmpty() ? client : inNamespace(client, namespaces.get(0)));
         } catch (RuntimeException runtime) {
             Printer.error("Error: %s", runtime.getMessage());
         } catch (CommandException cE) {
             Printer.error("Command error: %s", cE.getMessage());
+        } finally {
+            if (client != null) {
+                clientProvider.release(client);
+            }
         }
     }
 
-    protected Config buildConfig(ConfigBuilder configBuilder) {
-        return configBuilder.build();
+    /**
+     * Builds one client per context and runs the command against every namespace of it on its own virtual thread,
+     * so the wall time is that of the slowest target rather than the sum of all of them. A context whose client
+     * cannot be built is reported among the targets, and the others still run.
+     */
+    private void fanOut() {
+        List<KubernetesClient> clients = new ArrayList<>();
+        List<Target> targets = new ArrayList<>();
+        try {
+            for (String context : contexts.isEmpty() ? Collections.<String>singletonList(null) : contexts) {
+                KubernetesClient client;
+                try {
+                    client = buildClient(context);
+                } catch (RuntimeException runtime) {
+                    // The client wraps e.g. an unreadable certificate in a generic message
+                    String reason = runtime.getCause() == null ?
+                            runtime.getMessage() : runtime.getMessage() + " " + runtime.getCause().getMessage();
+                    targets.add(new Target(context != null ? context : "-", "-", null, reason));
+                    continue;
+                }
+                clients.add(client);
+                String contextName = context != null ? context : currentContextName(client);
+                if (namespaces.isEmpty()) {
+                    targets.add(new Target(contextName, client.getNamespace(), client, null));
+                } else {
+                    namespaces.forEach(namespace ->
+                            targets.add(new Target(contextName, namespace, inNamespace(client, namespace), null)));
+                }
+            }
+
+            int contextWidth = targets.stream().mapToInt(target -> target.context().length()).max().orElse(0);
+            int namespaceWidth = targets.stream().mapToInt(target -> target.namespace().length()).max().orElse(0);
+            String format = "%-" + Math.max(7, contextWidth) + "s %-" + Math.max(9, namespaceWidth) + "s ";
+            Printer.print(String.format(format, "CONTEXT", "NAMESPACE").stripTrailing());
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                targets.forEach(target -> executor.submit(() -> Printer.withPrefix(
+                        String.format(format, target.context(), target.namespace()), TARGET_FIELDS,
+                        new Object[] {target.context(), target.namespace()}, () -> goGuarded(target))));
+            }
+        } catch (RuntimeException runtime) {
+            Printer.error("Error: %s", runtime.getMessage());
+        } finally {
+            clients.forEach(clientProvider::release);
+        }
     }
 
-    protected abstract void go(KubernetesClient client) throws CommandException;
+    private void goGuarded(Target target) {
+        if (target.client() == null) {
+            Printer.error("Error: %s", target.failure());
+            return;
+        }
+        try {
+            go(target.client());
+        } catch (RuntimeException runtime) {
+            Printer.error("Error: %s", runtime.getMessage());
+        } catch (CommandException cE) {
+            Printer.error("Command error: %s", cE.getMessage());
+        }
+    }
+
+    private KubernetesClient buildClient(String context) {
+        try (Profiler.Span span = Profiler.time("client")) {
+            return clientProvider.acquire(context, () -> buildConfig(context == null ?
+                    new ConfigBuilder() : new ConfigBuilder(Config.autoConfigure(context))));
+        }
+    }
+
+    private static KubernetesClient inNamespace(KubernetesClient client, String namespace) {
+        return client.adapt(NamespacedKubernetesClient.class).inNamespace(namespace);
+    }
+
+    private static String currentContextName(KubernetesClient client) {
+        return client.getConfiguration().getCurrentContext() == null ?
+                "-" : client.getConfiguration().getCurrentContext().getName();
+    }
+
+    /**
+     * @param client null when it could not be built, for the reason given by failure
+     */
+    private record Target(String context, String namespace, KubernetesClient client, String failure) {
+    }
 
 }
@@ -0,0 +1,182 @@
+package com.forrestformations;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A printf format parsed once into literals and conversions, so printing a line only appends its arguments. Covers
+ * what the commands print with: {@code %s} and {@code %d} with an optional argument index, {@code -} flag and
+ * width, {@code %%} and {@code %n}; any other format is left to {@link String#format}.
+ */
+final class LineFormat {
+
+    // Formats are constants at the call sites, so this only stops a caller building formats from growing it forever
+    private static final int CACHE_LIMIT = 1024;
+    private static final Map<String, LineFormat> CACHE = new ConcurrentHashMap<>();
+    private static final LineFormat UNSUPPORTED = new LineFormat(null, null, null, null, null);
+
+    // literals[i] comes before conversion i, the last one after all of them
+    private final String[] literals;
+    private final char[] conversions;
+    private final int[] indexes;
+    private final int[] widths;
+    private final boolean[] leftAligned;
+    private final int argumentCount;
+
+    private LineFormat(String[] literals, char[] conversions, int[] indexes, int[] widths, boolean[] leftAligned) {
+        this.literals = literals;
+        this.conversions = conversions;
+        this.indexes = indexes;
+        this.widths = widths;
+        this.leftAligned = leftAligned;
+        this.argumentCount = indexes == null ? 0 : Arrays.stream(indexes).max().orElse(-1) + 1;
+    }
+
+    /**
+     * Appends the format with the arguments filled in, exactly as {@link String#format} would.
+     */
+    static void append(StringBuilder line, String format, Object[] arguments) {
+        LineFormat compiled = CACHE.get(format);
+        if (compiled == null) {
+            compiled = parse(format);
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(format, compiled);
+            }
+        }
+        int start = line.length();
+        if (compiled == UNSUPPORTED || !compiled.appendTo(line, arguments)) {
+            line.setLength(start);
+            line.append(String.format(format, arguments));
+        }
+    }
+
+    /**
+     * @return false if an argument needs more than this class handles, leaving the line partly appended
+     */
+    private boolean appendTo(StringBuilder line, Object[] arguments) {
+        if (arguments.length < argumentCount) {
+            return false;
+        }
+        for (int i = 0; i < conversions.length; i++) {
+            line.append(literals[i]);
+            Object argument = arguments[indexes[i]];
+            int start = line.length();
+            if (conversions[i] == 'd') {
+                if (argument instanceof Integer || argument instanceof Long
+                        || argument instanceof Short || argument instanceof Byte) {
+                    line.append(((Number) argument).longValue());
+                } else if (argument instanceof BigInteger || argument == null) {
+                    line.append(argument);
+                } else {
+                    return false;
+                }
+            } else if (argument instanceof Formattable) {
+                return false;
+            } else {
+                line.append(argument);
+            }
+            pad(line, start, widths[i], leftAligned[i]);
+        }
+        line.append(literals[conversions.length]);
+        return true;
+    }
+
+    private static void pad(StringBuilder line, int start, int width, boolean leftAligned) {
+        int missing = width - (line.length() - start);
+        if (missing <= 0) {
+            return;
+        }
+        if (leftAligned) {
+            line.repeat(' ', missing);
+        } else {
+            line.insert(start, " ".repeat(missing));
+        }
+    }
+
+    private static LineFormat parse(String format) {
+        StringBuilder literal = new StringBuilder();
+        StringBuilder conversions = new StringBuilder();
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        List<Boolean> leftAligned = new ArrayList<>();
+        int ordinary = 0;
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i == format.length()) {
+                return UNSUPPORTED;
+            }
+            char next = format.charAt(i);
+            if (next == '%' || next == 'n') {
+                literal.append(next == '%' ? "%" : System.lineSeparator());
+                i++;
+                continue;
+            }
+            int digitsStart = i;
+            int number = 0;
+            while (i < format.length() && format.charAt(i) >= '0' && format.charAt(i) <= '9') {
+                number = number * 10 + format.charAt(i++) - '0';
+            }
+            int index;
+            if (i > digitsStart && i < format.length() && format.charAt(i) == '$') {
+                if (number == 0) {
+                    return UNSUPPORTED;
+                }
+                index = number - 1;
+                i++;
+            } else {
+                // Not an index but the width, read again below
+                index = ordinary++;
+                i = digitsStart;
+            }
+            boolean left = i < format.length() && format.charAt(i) == '-';
+            if (left) {
+                i++;
+            }
+            int width = 0;
+            // A leading zero is the zero-padding flag, which is left to String.format
+            if (i < format.length() && format.charAt(i) == '0') {
+                return UNSUPPORTED;
+            }
+            while (i < format.length() && format.charAt(i) >= '0' && format.charAt(i) <= '9') {
+                width = width * 10 + format.charAt(i++) - '0';
+            }
+            if (i == format.length() || (left && width == 0)) {
+                return UNSUPPORTED;
+            }
+            char conversion = format.charAt(i++);
+            if (conversion != 's' && conversion != 'd') {
+                return UNSUPPORTED;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            conversions.append(conversion);
+            indexes.add(index);
+            widths.add(width);
+            leftAligned.add(left);
+        }
+        literals.add(literal.toString());
+
+        int[] indexArray = new int[indexes.size()];
+        int[] widthArray = new int[widths.size()];
+        boolean[] leftArray = new boolean[leftAligned.size()];
+        for (int j = 0; j < widthArray.length; j++) {
+            indexArray[j] = indexes.get(j);
+            widthArray[j] = widths.get(j);
+            leftArray[j] = leftAligned.get(j);
+        }
+        return new LineFormat(literals.toArray(String[]::new), conversions.toString().toCharArray(), indexArray,
+                widthArray, leftArray);
+    }
+
+}
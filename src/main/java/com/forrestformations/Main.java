@@ -1,29 +1,109 @@
 package com.forrestformations;
 
+import com.forrestformations.commands.Daemon;
+import com.forrestformations.commands.Logs;
 import com.forrestformations.commands.Namespace;
 import com.forrestformations.commands.PodWatch;
 import com.forrestformations.commands.PortForward;
+import com.forrestformations.commands.Record;
 import com.forrestformations.commands.RemoteDebug;
+import com.forrestformations.commands.Replay;
+import com.forrestformations.daemon.DaemonClient;
+import com.forrestformations.profile.Profile;
+import com.forrestformations.profile.Profiler;
+import com.forrestformations.throttle.Throttle;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.OptionalInt;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParseResult;
 
 @Command(name = "kube-play", mixinStandardHelpOptions = true, version = "1.9", description = "Kubernetes helper CLI",
         subcommands = {
                 RemoteDebug.class,
                 Namespace.class,
                 PodWatch.class,
-                PortForward.class
+                PortForward.class,
+                Logs.class,
+                Record.class,
+                Replay.class,
+                Daemon.class
         })
 public class Main implements Runnable {
 
+    @Option(names = {"--profile"}, description = "Print where the time went, by phase and API call, when done")
+    private boolean profile;
+
+    @Option(names = {"--profile-json"}, paramLabel = "FILE", description = "Write the profile to this file as JSON")
+    private Path profileJson;
+
+    @Option(names = {"--profile-jfr"}, paramLabel = "FILE",
+            description = "Record phases and API calls as JFR events into this file")
+    private Path profileJfr;
+
+    @Option(names = {"--qps"}, paramLabel = "RATE", defaultValue = "" + Throttle.DEFAULT_PER_SECOND,
+            description = "Most API requests per second sent to each cluster, 0 for no limit; default ${DEFAULT-VALUE}")
+    private double qps;
+
+    @Option(names = {"--burst"}, paramLabel = "REQUESTS", defaultValue = "" + Throttle.DEFAULT_BURST,
+            description = "API requests that may be sent at once after a quiet period; default ${DEFAULT-VALUE}")
+    private int burst;
+
     public static void main(String... args) {
-        int exitCode = new CommandLine(new Main()).execute(args);
+        OptionalInt forwarded = DaemonClient.forward(args);
+        if (forwarded.isPresent()) {
+            System.exit(forwarded.getAsInt());
+        }
+        int exitCode = commandLine().execute(args);
+        Printer.flush();
         System.exit(exitCode);
     }
 
+    /**
+     * The command line to run a command with, profiling it when asked to.
+     */
+    public static CommandLine commandLine() {
+        Main main = new Main();
+        return new CommandLine(main).setExecutionStrategy(main::execute);
+    }
+
     @Override
     public void run() {
         Printer.print("Run with a subcommand. Use '--help' for options.");
     }
 
+    private int execute(ParseResult parseResult) {
+        Throttle.limit(qps, burst);
+        if (!profile && profileJson == null && profileJfr == null) {
+            return new CommandLine.RunLast().execute(parseResult);
+        }
+        try {
+            Profiler.start(profileJfr);
+        } catch (IOException | RuntimeException e) {
+            Printer.error("Could not start the JFR recording: %s", e.getMessage());
+            return new CommandLine.RunLast().execute(parseResult);
+        }
+        try {
+            return new CommandLine.RunLast().execute(parseResult);
+        } finally {
+            report();
+        }
+    }
+
+    private void report() {
+        try {
+            Profile result = Profiler.stop();
+            if (profile) {
+                result.print();
+            }
+            if (profileJson != null) {
+                result.writeJson(profileJson);
+            }
+        } catch (IOException e) {
+            Printer.error("Could not write the profile: %s", e.getMessage());
+        }
+    }
+
 }
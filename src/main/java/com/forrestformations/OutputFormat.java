@@ -0,0 +1,13 @@
+package com.forrestformations;
+
+/**
+ * How {@link Printer#record} writes records: as human-readable text, or one JSON object or tab-separated row per
+ * line for other tools to consume.
+ */
+public enum OutputFormat {
+
+    TEXT,
+    JSON,
+    TSV
+
+}
@@ -1,13 +1,379 @@
 package com.forrestformations;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+
+import com.forrestformations.profile.Profiler;
+
+/**
+ * Writes what commands print through buffers, so listing many lines costs a few large writes rather than one locked
+ * write each. Output is flushed at the end of every command, before anything is written to stderr, on
+ * {@link #flush()}, and otherwise at most {@link #LINGER} after it was printed, so long-running commands never hold
+ * a line back.
+ */
 public final class Printer {
 
+    private static final Duration LINGER = Duration.ofMillis(50);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Sink STDOUT = new Sink(System.out);
+    private static final Sink STDERR = new Sink(System.err);
+
+    // Set per daemon request, so each connection gets only its own command's output
+    private static final InheritableThreadLocal<Sink> OUT = new InheritableThreadLocal<>();
+    private static final InheritableThreadLocal<Sink> ERR = new InheritableThreadLocal<>();
+
+    // Inherited, so threads started while printing for a fan-out target keep its columns
+    private static final InheritableThreadLocal<Prefix> PREFIX = new InheritableThreadLocal<>();
+
+    private static final InheritableThreadLocal<OutputFormat> FORMAT = new InheritableThreadLocal<>();
+
+    /**
+     * Prints a message for people; in the JSON and TSV formats it goes to stderr, keeping stdout to records.
+     */
     public static void print(String message, Object... variables) {
-        System.out.printf(message + '\n', variables);
+        write(format() == OutputFormat.TEXT ? out() : err(), message, variables);
     }
 
     public static void error(String error, Object... variables) {
-        System.err.printf(error + '\n', variables);
+        // Keeps what was printed before the error ahead of it on a terminal
+        out().flush();
+        Sink err = err();
+        write(err, error, variables);
+        err.flush();
+    }
+
+    /**
+     * Prints one record: as the text format filled in with the values, or as a JSON object or tab-separated row of
+     * them, named by the fields. A fan-out target adds its context and namespace as leading fields.
+     *
+     * @param fields names of the values, a constant per kind of record; TSV starts a new header row when it changes
+     */
+    public static void record(String text, String[] fields, Object... values) {
+        OutputFormat format = format();
+        if (format == OutputFormat.TEXT) {
+            write(out(), text, values);
+            return;
+        }
+        try (Profiler.Span span = Profiler.time("render")) {
+            writeRecord(format, fields, values);
+        }
+    }
+
+    private static void writeRecord(OutputFormat format, String[] fields, Object[] values) {
+        Sink out = out();
+        Prefix prefix = PREFIX.get();
+        synchronized (out) {
+            if (format == OutputFormat.TSV) {
+                String[] prefixFields = prefix == null ? null : prefix.fields();
+                if (out.header != fields || out.headerPrefix != prefixFields) {
+                    out.header = fields;
+                    out.headerPrefix = prefixFields;
+                    StringBuilder header = out.line();
+                    if (prefixFields != null) {
+                        appendTsvRow(header, prefixFields);
+                        header.append('\t');
+                    }
+                    appendTsvRow(header, fields);
+                    out.commit();
+                }
+                StringBuilder row = out.line();
+                if (prefix != null) {
+                    row.append(prefix.tsv());
+                }
+                appendTsvRow(row, values);
+            } else {
+                StringBuilder object = out.line().append('{');
+                if (prefix != null) {
+                    object.append(prefix.json());
+                }
+                boolean first = true;
+                for (int i = 0; i < fields.length; i++) {
+                    // An object cannot repeat a name, so a field the target already adds is left out
+                    if (prefix != null && prefix.adds(fields[i])) {
+                        continue;
+                    }
+                    if (!first) {
+                        object.append(',');
+                    }
+                    first = false;
+                    appendJsonString(object, fields[i]);
+                    object.append(':');
+                    appendJsonValue(object, i < values.length ? values[i] : null);
+                }
+                if (first && prefix != null && !prefix.json().isEmpty()) {
+                    // Drops the comma after the target's fields
+                    object.setLength(object.length() - 1);
+                }
+                object.append('}');
+            }
+            out.commit();
+        }
+    }
+
+    /**
+     * Writes out what has been printed so far, for a command about to wait or exit.
+     */
+    public static void flush() {
+        out().flush();
+        err().flush();
+    }
+
+    public static OutputFormat format() {
+        OutputFormat format = FORMAT.get();
+        return format == null ? OutputFormat.TEXT : format;
+    }
+
+    /**
+     * Runs the action with the records it prints, on this thread or threads it starts, written in the given format,
+     * and flushes what it printed once it is done.
+     */
+    public static void withFormat(OutputFormat format, Runnable action) {
+        OutputFormat previous = FORMAT.get();
+        FORMAT.set(format);
+        try {
+            action.run();
+        } finally {
+            FORMAT.set(previous);
+            flush();
+        }
+    }
+
+    /**
+     * Runs the action with every line it prints, on this thread or threads it starts, prefixed by the given text, or
+     * led by the given fields in the JSON and TSV formats.
+     */
+    public static void withPrefix(String prefix, String[] fields, Object[] values, Runnable action) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            appendJsonString(json, fields[i]);
+            json.append(':');
+            appendJsonValue(json, values[i]);
+            json.append(',');
+        }
+        StringBuilder tsv = new StringBuilder();
+        appendTsvRow(tsv, values);
+        tsv.append('\t');
+
+        Prefix previous = PREFIX.get();
+        PREFIX.set(new Prefix(prefix, fields, json.toString(), tsv.toString()));
+        try {
+            action.run();
+        } finally {
+            PREFIX.set(previous);
+        }
+    }
+
+    /**
+     * Runs the action with everything it prints, on this thread or threads it starts, going to the given streams.
+     */
+    public static void redirect(PrintStream out, PrintStream err, Runnable action) {
+        Sink previousOut = OUT.get();
+        Sink previousErr = ERR.get();
+        Sink outSink = new Sink(out);
+        Sink errSink = new Sink(err);
+        OUT.set(outSink);
+        ERR.set(errSink);
+        try {
+            action.run();
+        } finally {
+            OUT.set(previousOut);
+            ERR.set(previousErr);
+            outSink.flush();
+            errSink.flush();
+        }
+    }
+
+    private static Sink out() {
+        Sink out = OUT.get();
+        return out == null ? STDOUT : out;
+    }
+
+    private static Sink err() {
+        Sink err = ERR.get();
+        return err == null ? STDERR : err;
+    }
+
+    private static void write(Sink sink, String message, Object[] variables) {
+        try (Profiler.Span span = Profiler.time("render")) {
+            writeLine(sink, message, variables);
+        }
+    }
+
+    private static void writeLine(Sink sink, String message, Object[] variables) {
+        Prefix prefix = PREFIX.get();
+        synchronized (sink) {
+            StringBuilder line = sink.line();
+            if (prefix != null) {
+                line.append(prefix.text());
+            }
+            int start = line.length();
+            if (variables.length == 0) {
+                line.append(message);
+            } else {
+                LineFormat.append(line, message, variables);
+            }
+            if (prefix != null) {
+                for (int i = line.indexOf("\n", start); i >= 0; i = line.indexOf("\n", i + 1)) {
+                    line.insert(i + 1, prefix.text());
+                }
+            }
+            sink.commit();
+        }
+    }
+
+    private static void appendTsvRow(StringBuilder row, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append('\t');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\t' -> row.append("\\t");
+                    case '\n' -> row.append("\\n");
+                    case '\r' -> row.append("\\r");
+                    case '\\' -> row.append("\\\\");
+                    default -> row.append(c);
+                }
+            }
+        }
+    }
+
+    private static void appendJsonValue(StringBuilder json, Object value) {
+        switch (value) {
+            case null -> json.append("null");
+            case Integer number -> json.append(number.intValue());
+            case Long number -> json.append(number.longValue());
+            case Double number when !Double.isFinite(number) -> json.append("null");
+            case Float number when !Float.isFinite(number) -> json.append("null");
+            case Number number -> json.append(number);
+            case Boolean bool -> json.append(bool.booleanValue());
+            default -> appendJsonString(json, value.toString());
+        }
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00")
+                                .append(Character.forDigit(c >> 4, 16))
+                                .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * @param text prefixed to text lines
+     * @param json the fields as leading JSON members, each followed by a comma
+     * @param tsv the fields as leading TSV columns, followed by a tab
+     */
+    private record Prefix(String text, String[] fields, String json, String tsv) {
+
+        boolean adds(String field) {
+            for (String added : fields) {
+                if (added.equals(field)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * One buffered stream. Lines are built in a reused builder under the sink's lock, then copied into the writer;
+     * the first line after a flush starts a virtual thread flushing again after {@link #LINGER}.
+     */
+    private static final class Sink {
+
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(256);
+        private char[] chars = new char[256];
+        private boolean lingering;
+        // The fields of the last TSV header row written
+        private String[] header;
+        private String[] headerPrefix;
+
+        Sink(PrintStream stream) {
+            this.writer = new OutputStreamWriter(new BufferedOutputStream(stream, BUFFER_SIZE), stream.charset());
+        }
+
+        /**
+         * @return the cleared line builder; the caller holds the sink's lock until it has committed the line
+         */
+        StringBuilder line() {
+            line.setLength(0);
+            return line;
+        }
+
+        void commit() {
+            line.append('\n');
+            int length = line.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            line.getChars(0, length, chars, 0);
+            try {
+                writer.write(chars, 0, length);
+            } catch (IOException iE) {
+                throw new UncheckedIOException(iE);
+            }
+            if (length > BUFFER_SIZE) {
+                // Does not keep huge buffers around after a single huge line
+                line.setLength(0);
+                line.trimToSize();
+                chars = new char[256];
+            }
+            if (!lingering) {
+                lingering = true;
+                Thread.ofVirtual().name("printer-flush").start(this::flushLater);
+            }
+        }
+
+        synchronized void flush() {
+            try {
+                writer.flush();
+            } catch (IOException iE) {
+                throw new UncheckedIOException(iE);
+            }
+        }
+
+        private void flushLater() {
+            try {
+                Thread.sleep(LINGER);
+            } catch (InterruptedException iE) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                lingering = false;
+                flush();
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,82 @@
+package com.forrestformations.commands;
+
+import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.Main;
+import com.forrestformations.Printer;
+import com.forrestformations.daemon.ClientPool;
+import com.forrestformations.daemon.DaemonProtocol;
+import com.forrestformations.daemon.DaemonServer;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "daemon", description = "Keep clients warm and serve short commands for thin clients until stopped. "
+        + "Uses the kubeconfig and environment it was started with")
+public final class Daemon implements Runnable {
+
+    @Option(names = {"--socket"}, description = "Unix socket to listen on; default $KUBE_PLAY_SOCKET or ~/.kube-play/daemon.sock")
+    private Path socket = DaemonProtocol.socketPath();
+
+    @Option(names = {"--warm"}, split = ",", description = "Contexts to connect to on start; default the current one")
+    private List<String> warm = new ArrayList<>();
+
+    @Override
+    public void run() {
+        ClientPool pool = new ClientPool();
+        KubeAwareCommand.useClientProvider(pool);
+        try (DaemonServer server = new DaemonServer(socket, Daemon::execute)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    Printer.error("Could not remove %s: %s", socket, e.getMessage());
+                }
+                pool.close();
+            }));
+            warmUp(pool);
+            Printer.print("Listening on %s", socket);
+            server.serve();
+        } catch (IOException e) {
+            Printer.error("Daemon error: %s", e.getMessage());
+        }
+    }
+
+    // In the background, so an unreachable cluster does not hold up serving the others
+    private void warmUp(ClientPool pool) {
+        List<String> contexts = warm.isEmpty() ? Collections.singletonList(null) : warm;
+        for (String context : contexts) {
+            String name = context == null ? "current context" : context;
+            Thread.ofVirtual().name("daemon-warm-up").start(() -> {
+                try {
+                    KubernetesClient client = pool.acquire(context, () -> context == null ?
+                            new ConfigBuilder().build() : Config.autoConfigure(context));
+                    // A first request sets up the connection and TLS session commands will reuse
+                    client.getKubernetesVersion();
+                    pool.release(client);
+                    Printer.print("Warmed up %s", name);
+                } catch (RuntimeException e) {
+                    Printer.error("Could not warm up %s: %s", name, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private static int execute(String[] args, PrintStream out, PrintStream err) {
+        int[] exitCode = new int[1];
+        Printer.redirect(out, err, () -> exitCode[0] = Main.commandLine()
+                .setOut(new PrintWriter(out, true))
+                .setErr(new PrintWriter(err, true))
+                .execute(args));
+        return exitCode[0];
+    }
+
+}
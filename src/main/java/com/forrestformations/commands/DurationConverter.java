@@ -0,0 +1,37 @@
+package com.forrestformations.commands;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.TypeConversionException;
+
+/**
+ * Reads durations the way kubectl takes them, such as 90s, 10m, 2h or 1d, as well as ISO-8601 like PT10M.
+ */
+final class DurationConverter implements ITypeConverter<Duration> {
+
+    private static final Pattern SHORT = Pattern.compile("(\\d+)([smhd])");
+
+    @Override
+    public Duration convert(String value) {
+        Matcher matcher = SHORT.matcher(value.trim());
+        if (matcher.matches()) {
+            long amount = Long.parseLong(matcher.group(1));
+            return switch (matcher.group(2)) {
+                case "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                default -> Duration.ofDays(amount);
+            };
+        }
+        try {
+            return Duration.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new TypeConversionException("Invalid duration '" + value + "', expected e.g. 30s, 10m, 2h or 1d");
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.forrestformations.commands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.forrestformations.CommandException;
+import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.OutputFormat;
+import com.forrestformations.Printer;
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.NameMatcher;
+import com.forrestformations.help.PodQuery;
+import com.forrestformations.logs.LogFetcher;
+import com.forrestformations.logs.LogStore;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+@Command(name = "search", description = "Fetches what is new in the logs of the matching pods into a local store, "
+        + "then searches the store")
+public final class LogSearch extends KubeAwareCommand {
+
+    private static final String[] MATCH_FIELDS = {"timestamp", "source", "line"};
+
+    @Mixin
+    private PodSelection selection;
+
+    @Mixin
+    private OutputOption output;
+
+    @Option(names = {"-e", "--regexp"}, description = "Only show lines containing a match of this regex")
+    private Pattern regexp;
+
+    @Option(names = {"-i", "--ignore-case"}, description = "Match the regex regardless of case")
+    private boolean ignoreCase = false;
+
+    @Option(names = {"--last"}, converter = DurationConverter.class,
+            description = "Only search lines newer than this, e.g. 10m; default all stored lines")
+    private Duration last;
+
+    @Option(names = {"--since"}, converter = DurationConverter.class,
+            description = "How far back to fetch containers not in the store yet; default 1h")
+    private Duration since = Duration.ofHours(1);
+
+    @Option(names = {"--tail"}, description = "Most lines to fetch per container, -1 for no limit; default -1")
+    private int tail = -1;
+
+    @Option(names = {"--offline"}, description = "Search the store without fetching anything new")
+    private boolean offline = false;
+
+    @Option(names = {"-c", "--container"}, split = ",", description = "Only these containers; default all")
+    private List<String> containers = List.of();
+
+    @Option(names = {"-A", "--all-namespaces"}, description = "Matching pods across all namespaces")
+    private boolean allNamespaces = false;
+
+    @Option(names = {"--parallelism"}, description = "How many containers to fetch at once; default 16")
+    private int parallelism = 16;
+
+    @Option(names = {"--retention"}, converter = DurationConverter.class,
+            description = "Drop stored segments with nothing newer than this; default 1d")
+    private Duration retention = Duration.ofDays(1);
+
+    @Option(names = {"--store"}, description = "Store directory; default ~/.kube-play/logs/<cluster>")
+    private Path store;
+
+    @Override
+    protected OutputFormat outputFormat() {
+        return output.format();
+    }
+
+    @Override
+    protected boolean supportsFanOut() {
+        // The store of a cluster is locked while in use, and namespaces are covered by -A
+        return false;
+    }
+
+    @Override
+    protected void go(KubernetesClient client) throws CommandException {
+        Path directory = store != null ? store : LogStore.defaultDirectory(client);
+        try (LogStore logStore = LogStore.open(directory)) {
+            if (!offline) {
+                fetch(client, logStore);
+            }
+
+            long started = System.nanoTime();
+            Instant from = last == null ? Instant.MIN : Instant.now().minus(last);
+            Pattern pattern = regexp == null || !ignoreCase ? regexp :
+                    Pattern.compile(regexp.pattern(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            long matches = logStore.search(sources(client), from, Instant.MAX, pattern, match ->
+                    Printer.record("%s [%s] %s", MATCH_FIELDS, match.timestamp(), match.source(), match.line()));
+            Printer.error("%d matching lines, searched in %d ms", matches,
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (IOException iE) {
+            throw new CommandException("Log store error: " + iE.getMessage(), iE);
+        }
+    }
+
+    private void fetch(KubernetesClient client, LogStore logStore) throws IOException, CommandException {
+        long started = System.nanoTime();
+        PodQuery query = allNamespaces ? selection.query().inAnyNamespace() : selection.query();
+        List<Pod> pods = KubeHelp.given(client).pods().find(query);
+        try {
+            LogFetcher.Summary summary = new LogFetcher(client, logStore, parallelism)
+                    .fetch(pods, Set.copyOf(containers), since, tail);
+            Printer.error("Fetched %d new lines (%d KiB) from %d containers of %d pods in %d ms%s",
+                    summary.lines(), summary.bytes() / 1024, summary.containers(), pods.size(),
+                    Duration.ofNanos(System.nanoTime() - started).toMillis(),
+                    summary.failed() > 0 ? ", " + summary.failed() + " failed" : "");
+            if (summary.truncated() > 0) {
+                Printer.error("Cut %d lines longer than %d KiB", summary.truncated(),
+                        LogFetcher.MAX_LINE_LENGTH / 1024);
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Fetch interrupted", iE);
+        }
+        logStore.prune(retention);
+    }
+
+    /**
+     * Matches stored sources by namespace, pod name and container; label and field selectors only narrow what is
+     * fetched, since the store does not keep labels.
+     */
+    private Predicate<String> sources(KubernetesClient client) {
+        NameMatcher names = selection.names();
+        String namespace = client.getNamespace();
+        return source -> {
+            String[] parts = source.split("/", 3);
+            return parts.length == 3
+                    && (allNamespaces || parts[0].equals(namespace))
+                    && names.matches(parts[1])
+                    && (containers.isEmpty() || containers.contains(parts[2]));
+        };
+    }
+
+}
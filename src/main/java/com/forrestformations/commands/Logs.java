@@ -0,0 +1,76 @@
+package com.forrestformations.commands;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import com.forrestformations.CommandException;
+import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.Printer;
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.PodCache;
+import com.forrestformations.help.PodQuery;
+import com.forrestformations.logs.LogTail;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+@Command(name = "logs", description = "Follows the logs of all matching pods, merged in timestamp order",
+        subcommands = LogSearch.class)
+public final class Logs extends KubeAwareCommand {
+
+    @Mixin
+    private PodSelection selection;
+
+    @Option(names = {"-c", "--container"}, split = ",", description = "Only follow these containers; default all")
+    private List<String> containers = List.of();
+
+    @Option(names = {"--tail"}, description = "Lines to show from each running container first, -1 for all; default 10")
+    private int tail = 10;
+
+    @Option(names = {"--since"}, converter = DurationConverter.class,
+            description = "Only show lines newer than this, e.g. 30s, 10m or 2h")
+    private Duration since;
+
+    @Option(names = {"-t", "--timestamps"}, description = "Show the timestamp of each line")
+    private boolean timestamps = false;
+
+    @Option(names = {"--no-color"}, description = "Do not color the pod prefixes")
+    private boolean noColor = false;
+
+    @Option(names = {"-A", "--all-namespaces"}, description = "Follow matching pods across all namespaces")
+    private boolean allNamespaces = false;
+
+    @Override
+    protected boolean supportsFanOut() {
+        // One merged stream per process; -A covers the multi-namespace case
+        return false;
+    }
+
+    @Override
+    protected void go(KubernetesClient client) throws CommandException {
+        PodQuery query = allNamespaces ? selection.query().inAnyNamespace() : selection.query();
+        LogTail.Settings settings = new LogTail.Settings(Set.copyOf(containers), tail, since, timestamps,
+                !noColor && System.console() != null, allNamespaces);
+
+        // Written to directly, skipping System.out's per-call locking and encoding
+        FileOutputStream out = new FileOutputStream(FileDescriptor.out);
+        try (PodCache cache = KubeHelp.given(client).pods().watch(query);
+             LogTail logTail = new LogTail(client, out, settings)) {
+            if (cache.pods().isEmpty()) {
+                Printer.error("No pods matching \"%s\" yet, waiting for some to appear", selection.describe());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(logTail::close, "logs-shutdown"));
+            logTail.follow(cache);
+            logTail.run();
+        } catch (IOException iE) {
+            // The reader of a pipe went away, as with | head
+            Printer.error("Stopped writing logs: %s", iE.getMessage());
+        }
+    }
+
+}
@@ -2,15 +2,27 @@ package com.forrestformations.commands;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.OutputFormat;
 import com.forrestformations.Printer;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 
 @Command(name = "namespace", description = "Print namespace")
 public final class Namespace extends KubeAwareCommand {
 
+    private static final String[] FIELDS = {"namespace"};
+
+    @Mixin
+    private OutputOption output;
+
+    @Override
+    protected OutputFormat outputFormat() {
+        return output.format();
+    }
+
     @Override
     public void go(KubernetesClient client) {
-        Printer.print(client.getNamespace());
+        Printer.record("%s", FIELDS, client.getNamespace());
     }
 
 }
@@ -0,0 +1,36 @@
+package com.forrestformations.commands;
+
+import java.util.Locale;
+
+import com.forrestformations.OutputFormat;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.TypeConversionException;
+
+/**
+ * The output format option of the commands that print records.
+ */
+public final class OutputOption {
+
+    @Option(names = {"-o", "--output"}, converter = FormatConverter.class,
+            description = "Output format: text, json (one object per line) or tsv; default text")
+    private OutputFormat format = OutputFormat.TEXT;
+
+    OutputFormat format() {
+        return format;
+    }
+
+    static final class FormatConverter implements ITypeConverter<OutputFormat> {
+
+        @Override
+        public OutputFormat convert(String value) {
+            try {
+                return OutputFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new TypeConversionException("Unknown output format '" + value + "', expected text, json or tsv");
+            }
+        }
+
+    }
+
+}
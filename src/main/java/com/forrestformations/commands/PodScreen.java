@@ -0,0 +1,311 @@
+package com.forrestformations.commands;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.forrestformations.help.PodAlert;
+import com.forrestformations.help.PodEventLog;
+import com.forrestformations.help.PodMetricsSampler;
+import com.forrestformations.help.PodTable;
+import com.forrestformations.help.PodUsage;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.Terminal.Signal;
+import org.jline.terminal.Terminal.SignalHandler;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.jline.utils.Display;
+import org.jline.utils.InfoCmp.Capability;
+
+/**
+ * Full-screen pod table for {@link PodWatch}. JLine's {@link Display} keeps the previous frame and only rewrites the
+ * rows that differ, and each pod's row is rebuilt only when one of its cells changes.
+ */
+final class PodScreen implements AutoCloseable {
+
+    private static final int NAME_WIDTH = 60;
+    private static final int STATUS_WIDTH = 13;
+    private static final int READY_WIDTH = 7;
+    private static final int RESTARTS_WIDTH = 9;
+    private static final int CPU_WIDTH = 7;
+    private static final int MEMORY_WIDTH = 8;
+    private static final int FALLBACK_ROWS = 24;
+    private static final int FALLBACK_COLUMNS = 160;
+    private static final char[] SPARKS = {'▁', '▂', '▃', '▄', '▅', '▆', '▇', '█'};
+    private static final long MEBIBYTE = 1L << 20;
+    private static final long GIBIBYTE = 1L << 30;
+    private static final AttributedStyle ALERT_STYLE = AttributedStyle.BOLD.foreground(AttributedStyle.RED);
+
+    private final Terminal terminal;
+    private final Display display;
+    private final boolean qualifiedNames;
+    private final PodMetricsSampler metrics;
+    private final int trendWidth;
+    private final PodEventLog events;
+    private final Map<String, Row> rows = new HashMap<>();
+    private final StringBuilder line = new StringBuilder(NAME_WIDTH + STATUS_WIDTH + 64);
+    private final SignalHandler previousInterrupt;
+
+    private long frame;
+    private boolean restored;
+
+    /**
+     * CTRL+C restores the terminal and interrupts the constructing thread, which is expected to run the render loop
+     * and close the screen once interrupted.
+     *
+     * @param metrics usage to show per pod, null to leave out the usage columns
+     * @param trendWidth samples shown in the CPU trend column
+     * @param events alerts to flag per pod, null to leave out the alerts column
+     */
+    PodScreen(Terminal terminal, boolean qualifiedNames, PodMetricsSampler metrics, int trendWidth,
+              PodEventLog events) {
+        this.terminal = terminal;
+        this.qualifiedNames = qualifiedNames;
+        this.metrics = metrics;
+        this.trendWidth = trendWidth;
+        this.events = events;
+        this.display = new Display(terminal, true);
+        terminal.puts(Capability.enter_ca_mode);
+        terminal.puts(Capability.cursor_invisible);
+        terminal.puts(Capability.clear_screen);
+        terminal.flush();
+        // The default CTRL+C ends the JVM without unwinding, which would leave the terminal on the alternate screen
+        Thread renderer = Thread.currentThread();
+        this.previousInterrupt = terminal.handle(Signal.INT, signal -> {
+            restore();
+            renderer.interrupt();
+        });
+    }
+
+    synchronized void render(String header, PodTable.Snapshot pods) {
+        if (restored) {
+            return;
+        }
+        Size size = terminal.getSize();
+        int height = size.getRows() > 0 ? size.getRows() : FALLBACK_ROWS;
+        int width = size.getColumns() > 0 ? size.getColumns() : FALLBACK_COLUMNS;
+        display.resize(height, width);
+
+        frame++;
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        long metricsVersion = metrics == null ? 0 : metrics.version();
+        List<AttributedString> lines = new ArrayList<>(Math.min(pods.size(), height) + 5);
+        lines.add(new AttributedString(header));
+        lines.add(AttributedString.EMPTY);
+        lines.add(columnHeaders());
+
+        // Header, blank line, column headers, blank line and footer frame the pod rows
+        int podRows = Math.max(0, height - 5);
+        int shown = pods.size() > podRows ? podRows - 1 : pods.size();
+        for (int idx = 0; idx < pods.size(); idx++) {
+            AttributedString row = row(pods, idx, nowSeconds, metricsVersion);
+            if (idx < shown) {
+                lines.add(row);
+            }
+        }
+        if (shown < pods.size()) {
+            lines.add(new AttributedString("... and " + (pods.size() - shown) + " more"));
+        }
+        rows.values().removeIf(row -> row.frame != frame);
+
+        lines.add(AttributedString.EMPTY);
+        StringBuilder footer = new StringBuilder("Press CTRL+C to quit. Updated at ").append(LocalTime.now()).append('.');
+        if (metrics != null) {
+            metrics.problem().ifPresent(problem -> footer.append(' ').append(problem.lines().findFirst().orElse("")));
+        }
+        if (events != null) {
+            events.problem().ifPresent(problem -> footer.append(' ').append(problem.lines().findFirst().orElse("")));
+        }
+        lines.add(new AttributedString(footer));
+        display.update(lines, -1);
+    }
+
+    @Override
+    public void close() {
+        terminal.handle(Signal.INT, previousInterrupt);
+        restore();
+    }
+
+    private synchronized void restore() {
+        if (restored) {
+            return;
+        }
+        restored = true;
+        terminal.puts(Capability.exit_ca_mode);
+        terminal.puts(Capability.cursor_visible);
+        terminal.flush();
+    }
+
+    private AttributedString columnHeaders() {
+        line.setLength(0);
+        line.append(qualifiedNames ? "NAMESPACE/NAME" : "NAME");
+        appendStatusColumns("STATUS", "READY", "RESTARTS");
+        if (metrics != null) {
+            pad(usageColumn());
+            line.append("CPU");
+            pad(usageColumn() + CPU_WIDTH);
+            line.append("MEMORY");
+            pad(usageColumn() + CPU_WIDTH + MEMORY_WIDTH);
+            line.append("CPU TREND");
+        }
+        pad(ageColumn());
+        line.append("AGE");
+        if (events != null) {
+            pad(alertsColumn());
+            line.append("ALERTS");
+        }
+        return new AttributedString(line);
+    }
+
+    private AttributedString row(PodTable.Snapshot pods, int idx, long nowSeconds, long metricsVersion) {
+        Row row = rows.computeIfAbsent(pods.uid(idx), uid -> new Row());
+        row.frame = frame;
+
+        String status = pods.status(idx);
+        long ageSeconds = Math.max(0, nowSeconds - pods.createdSeconds(idx));
+        int ready = pods.ready(idx);
+        int containers = pods.containers(idx);
+        int restarts = pods.restarts(idx);
+        Set<PodAlert> alerts = events == null ? Set.of() : events.alerts(pods.uid(idx), pods.oomKilledSeconds(idx));
+        if (row.line != null && ageSeconds == row.ageSeconds && status.equals(row.status) && ready == row.ready
+                && containers == row.containers && restarts == row.restarts && metricsVersion == row.metricsVersion
+                && alerts.equals(row.alerts)) {
+            return row.line;
+        }
+
+        line.setLength(0);
+        if (qualifiedNames) {
+            line.append(pods.namespace(idx)).append('/');
+        }
+        line.append(pods.name(idx));
+        appendStatusColumns(status, ready + "/" + containers, Integer.toString(restarts));
+        if (metrics != null) {
+            appendUsage(metrics.usage(pods.namespace(idx), pods.name(idx)).orElse(null));
+        }
+        pad(ageColumn());
+        appendDuration(line, ageSeconds);
+
+        if (!alerts.isEmpty()) {
+            pad(alertsColumn());
+        }
+        AttributedStringBuilder styled = new AttributedStringBuilder(line.length() + 24).append(line);
+        if (!alerts.isEmpty()) {
+            styled.styled(ALERT_STYLE, alerts.stream().map(PodAlert::label).collect(Collectors.joining(" ")));
+        }
+
+        row.status = status;
+        row.ageSeconds = ageSeconds;
+        row.ready = ready;
+        row.containers = containers;
+        row.restarts = restarts;
+        row.metricsVersion = metricsVersion;
+        row.alerts = alerts;
+        row.line = styled.toAttributedString();
+        return row.line;
+    }
+
+    private void appendStatusColumns(String status, String ready, String restarts) {
+        pad(NAME_WIDTH);
+        line.append(status);
+        pad(NAME_WIDTH + 1 + STATUS_WIDTH);
+        line.append(ready);
+        pad(NAME_WIDTH + 1 + STATUS_WIDTH + READY_WIDTH);
+        line.append(restarts);
+    }
+
+    private void appendUsage(PodUsage usage) {
+        pad(usageColumn());
+        if (usage == null) {
+            line.append('-');
+            return;
+        }
+        line.append(usage.cpuMillis()).append('m');
+        pad(usageColumn() + CPU_WIDTH);
+        appendMemory(line, usage.memoryBytes());
+        pad(usageColumn() + CPU_WIDTH + MEMORY_WIDTH);
+        appendSparkline(line, usage);
+    }
+
+    private int usageColumn() {
+        return NAME_WIDTH + 1 + STATUS_WIDTH + READY_WIDTH + RESTARTS_WIDTH;
+    }
+
+    private int ageColumn() {
+        return metrics == null ? usageColumn() : usageColumn() + CPU_WIDTH + MEMORY_WIDTH + trendWidth + 1;
+    }
+
+    private int alertsColumn() {
+        // AGE is at most "99d 23h 59m 59s"
+        return ageColumn() + 16;
+    }
+
+    private void pad(int column) {
+        do {
+            line.append(' ');
+        } while (line.length() < column + 1);
+    }
+
+    /**
+     * Appends the CPU samples as bars scaled to the window's highest sample.
+     */
+    static void appendSparkline(StringBuilder sb, PodUsage usage) {
+        long max = 1;
+        for (int i = 0; i < usage.samples(); i++) {
+            max = Math.max(max, usage.cpuMillisAt(i));
+        }
+        for (int i = 0; i < usage.samples(); i++) {
+            sb.append(SPARKS[(int) (usage.cpuMillisAt(i) * (SPARKS.length - 1) / max)]);
+        }
+    }
+
+    static void appendMemory(StringBuilder sb, long bytes) {
+        if (bytes >= GIBIBYTE) {
+            long tenths = bytes * 10 / GIBIBYTE;
+            sb.append(tenths / 10).append('.').append(tenths % 10).append("Gi");
+        } else {
+            sb.append(bytes / MEBIBYTE).append("Mi");
+        }
+    }
+
+    static String formatDuration(Duration duration) {
+        StringBuilder sb = new StringBuilder();
+        appendDuration(sb, duration.toSeconds());
+        return sb.toString();
+    }
+
+    static void appendDuration(StringBuilder sb, long totalSeconds) {
+        long days = totalSeconds / 86_400;
+        long hours = totalSeconds / 3_600 % 24;
+        long minutes = totalSeconds / 60 % 60;
+        long seconds = totalSeconds % 60;
+
+        int start = sb.length();
+        if (days > 0) sb.append(days).append("d ");
+        if (hours > 0) sb.append(hours).append("h ");
+        if (minutes > 0) sb.append(minutes).append("m ");
+        if (seconds > 0 || sb.length() == start) sb.append(seconds).append("s");
+        else sb.setLength(sb.length() - 1);
+    }
+
+    private static final class Row {
+
+        private long frame;
+        private String status;
+        private long ageSeconds;
+        private int ready;
+        private int containers;
+        private int restarts;
+        private long metricsVersion;
+        private Set<PodAlert> alerts;
+        private AttributedString line;
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.forrestformations.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import com.forrestformations.help.LabelExpression;
+import com.forrestformations.help.NameMatcher;
+import com.forrestformations.help.NamePattern;
+import com.forrestformations.help.PodQuery;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+import picocli.CommandLine.TypeConversionException;
+
+/**
+ * Pod selection options shared by the commands that act on a set of pods. Patterns and label selectors are compiled
+ * while the arguments are parsed, so a bad one fails before any cluster is contacted.
+ */
+public final class PodSelection {
+
+    @Spec(Spec.Target.MIXEE)
+    private CommandSpec command;
+
+    private List<NamePattern> includes = List.of();
+
+    @Option(names = {"-x", "--exclude"}, split = ",", converter = NamePatternConverter.class, paramLabel = "PATTERN",
+            description = "Pod names to leave out, same syntax as the included ones")
+    private List<NamePattern> excludes = List.of();
+
+    @Option(names = {"-l", "--selector"}, converter = LabelExpressionConverter.class,
+            description = "Label selector evaluated by the API server, e.g. app=web,tier!=db,env in (prod,qa); "
+                    + "repeat to require all")
+    private List<LabelExpression> labels = List.of();
+
+    @Option(names = {"--field-selector"}, split = ",",
+            description = "Field selector evaluated by the API server, e.g. status.phase=Running,spec.nodeName=node-1")
+    private Map<String, String> fieldSelectors = Map.of();
+
+    @Option(names = {"--page-size"}, description = "Pods fetched per list request; default 500")
+    private int pageSize = PodQuery.DEFAULT_PAGE_SIZE;
+
+    // A setter, since picocli reports a failed conversion of a variadic positional only as an unmatched argument
+    @Parameters(arity = "0..*", paramLabel = "PATTERN",
+            description = "Pod names to include, as regex (pod-name.*), or as glob with a glob: prefix "
+                    + "(glob:pod-name-*); default all")
+    private void setIncludes(List<String> patterns) {
+        try {
+            includes = patterns.stream().map(NamePattern::parse).toList();
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(command.commandLine(), e.getMessage());
+        }
+    }
+
+    /**
+     * Describes the name patterns for messages.
+     */
+    public String describe() {
+        return names().toString();
+    }
+
+    public PodQuery query() {
+        PodQuery query = PodQuery.matching(names())
+                .withFields(fieldSelectors)
+                .withPageSize(pageSize);
+        for (LabelExpression expression : labels) {
+            query = query.withLabels(expression);
+        }
+        return query;
+    }
+
+    NameMatcher names() {
+        return NameMatcher.of(includes, excludes);
+    }
+
+    static final class NamePatternConverter implements ITypeConverter<NamePattern> {
+
+        @Override
+        public NamePattern convert(String value) {
+            try {
+                return NamePattern.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new TypeConversionException(e.getMessage());
+            }
+        }
+
+    }
+
+    static final class LabelExpressionConverter implements ITypeConverter<LabelExpression> {
+
+        @Override
+        public LabelExpression convert(String value) {
+            try {
+                return LabelExpression.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new TypeConversionException(e.getMessage());
+            }
+        }
+
+    }
+
+}
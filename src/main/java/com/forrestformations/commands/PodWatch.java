@@ -1,99 +1,130 @@
 package com.forrestformations.commands;
 
-import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-
 import java.io.IOException;
 import java.time.Duration;
-import java.time.LocalTime;
-import java.time.OffsetDateTime;
 
 import com.forrestformations.CommandException;
 import com.forrestformations.KubeAwareCommand;
-import io.fabric8.kubernetes.api.model.Pod;
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.PodEventLog;
+import com.forrestformations.help.PodMetricsSampler;
+import com.forrestformations.help.PodQuery;
+import com.forrestformations.help.PodTable;
+import com.forrestformations.help.PodTableCache;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
-import org.jline.utils.InfoCmp.Capability;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
-import picocli.CommandLine.Parameters;
 
 @Command(name = "pod-watch", description = "Watches a set of identified pods")
 public final class PodWatch extends KubeAwareCommand {
 
-    @Parameters(index = "0", description = "pod-name.*")
-    private String regex = ".*";
+    // Without watch events the screen is still redrawn this often, so the age column does not go stale
+    private static final Duration AGE_REFRESH = Duration.ofSeconds(30);
+    private static final int TREND_SAMPLES = 20;
+
+    @Mixin
+    private PodSelection selection;
 
     @Option(names = {"-i", "--interval"}, description = "How often to update, lowest is 1 second")
     private int interval = 1;
 
+    @Option(names = {"-A", "--all-namespaces"}, description = "Watch matching pods across all namespaces")
+    private boolean allNamespaces = false;
+
+    @Option(names = {"--poll"}, description = "List all pods every interval instead of watching for changes")
+    private boolean poll = false;
+
+    @Option(names = {"--metrics-interval"},
+            description = "Sample CPU and memory from the metrics API every N seconds; 0 turns it off; default 15")
+    private int metricsInterval = 15;
+
+    @Option(names = {"--no-events"}, description = "Do not watch Events for restart storms, OOM kills and failing probes")
+    private boolean noEvents = false;
+
+    @Override
+    protected boolean supportsFanOut() {
+        // One terminal screen per process; -A covers the multi-namespace case
+        return false;
+    }
+
     @Override
     protected void go(KubernetesClient client) throws CommandException {
-        try (Terminal terminal = TerminalBuilder.terminal()) {
-            render(terminal, client);
-        } catch (InterruptedException | IOException e) {
+        PodMetricsSampler metrics = metricsInterval > 0 ? KubeHelp.given(client)
+                .pods()
+                .sampleMetrics(query(), Duration.ofSeconds(metricsInterval), TREND_SAMPLES) : null;
+        PodEventLog events = noEvents ? null : KubeHelp.given(client).pods().watchEvents(query());
+        try (Terminal terminal = TerminalBuilder.terminal();
+             PodScreen screen = new PodScreen(terminal, allNamespaces, metrics, TREND_SAMPLES, events)) {
+            if (poll) {
+                poll(screen, client);
+            } else {
+                watch(screen, client, metrics, events);
+            }
+        } catch (InterruptedException quit) {
+            // CTRL+C, see PodScreen
+        } catch (KubernetesClientException kCE) {
+            // CTRL+C during a request surfaces as a client exception with the interrupt flag set again
+            if (!Thread.currentThread().isInterrupted()) {
+                throw kCE;
+            }
+        } catch (IOException e) {
             throw new CommandException("Command exception", e);
+        } finally {
+            if (metrics != null) {
+                metrics.close();
+            }
+            if (events != null) {
+                events.close();
+            }
         }
     }
 
-    private void render(Terminal terminal, KubernetesClient client) throws InterruptedException, IOException {
+    private void poll(PodScreen screen, KubernetesClient client) throws InterruptedException {
+        PodQuery query = query();
         while (true) {
-            printScreen(terminal, client);
+            PodTable pods = new PodTable();
+            KubeHelp.given(client)
+                    .pods()
+                    .forEachPage(query, pods::putAll);
+            screen.render(header(client), pods.snapshot());
             Thread.sleep(interval * 1000L);
         }
     }
 
-    private void printScreen(Terminal terminal, KubernetesClient client) {
-        terminal.puts(Capability.clear_screen);
-        terminal.writer().printf("Pods found with regex \"%s\" within \"%s\" namespace:\n\n", regex, client.getNamespace());
-        printMatchingPods(client, terminal);
-        terminal.writer().printf("\nPress CTRL+C to quit. Updated at %s", LocalTime.now());
-        terminal.flush();
-    }
-
-    private void printMatchingPods(KubernetesClient client, Terminal terminal) {
-        client.pods()
-                .list()
-                .getItems()
-                .stream()
-                .filter(pod -> pod.getMetadata()
-                        .getName()
-                        .matches(regex))
-                .forEach(pod -> printPod(pod, terminal));
-    }
-
-    private void printPod(Pod pod, Terminal terminal) {
-        String name = pod.getMetadata()
-                .getName();
-
-        String status = (pod.getMetadata().getDeletionTimestamp() == null) ?
-                pod.getStatus().getPhase() : "Terminating";
-
-        String age = formatDuration(parseAge(pod));
-
-        String statement = String.format("%-60s %-13s %s", name, status, age);
-        terminal.writer().println(statement);
+    private void watch(PodScreen screen, KubernetesClient client, PodMetricsSampler metrics, PodEventLog events)
+            throws InterruptedException {
+        try (PodTableCache cache = KubeHelp.given(client).pods().watchTable(query())) {
+            long drawnAt = System.nanoTime() - AGE_REFRESH.toNanos();
+            long metricsVersion = -1;
+            long eventsVersion = -1;
+            while (true) {
+                boolean changed = cache.awaitChange(Duration.ofSeconds(interval));
+                // New samples and Events do not show up as pod changes, so their versions are checked as well
+                long currentMetrics = metrics == null ? 0 : metrics.version();
+                long currentEvents = events == null ? 0 : events.version();
+                if (changed || currentMetrics != metricsVersion || currentEvents != eventsVersion
+                        || System.nanoTime() - drawnAt >= AGE_REFRESH.toNanos()) {
+                    screen.render(header(client), cache.snapshot());
+                    drawnAt = System.nanoTime();
+                    metricsVersion = currentMetrics;
+                    eventsVersion = currentEvents;
+                    Thread.sleep(interval * 1000L);
+                }
+            }
+        }
     }
 
-    private Duration parseAge(Pod pod) {
-        String timestamp = pod.getMetadata().getCreationTimestamp();
-        OffsetDateTime creationTime = OffsetDateTime.parse(timestamp, ISO_OFFSET_DATE_TIME);
-        return Duration.between(creationTime, OffsetDateTime.now());
+    private PodQuery query() {
+        return allNamespaces ? selection.query().inAnyNamespace() : selection.query();
     }
 
-    private String formatDuration(Duration duration) {
-        long days = duration.toDays();
-        long hours = duration.toHoursPart();
-        long minutes = duration.toMinutesPart();
-        long seconds = duration.toSecondsPart();
-
-        StringBuilder sb = new StringBuilder();
-        if (days > 0) sb.append(days).append("d ");
-        if (hours > 0) sb.append(hours).append("h ");
-        if (minutes > 0) sb.append(minutes).append("m ");
-        if (seconds > 0 || sb.isEmpty()) sb.append(seconds).append("s");
-
-        return sb.toString().trim();
+    private String header(KubernetesClient client) {
+        String scope = allNamespaces ? "all namespaces" : "\"" + client.getNamespace() + "\" namespace";
+        return "Pods matching \"" + selection.describe() + "\" within " + scope + ":";
     }
 
 }
@@ -1,24 +1,34 @@
 package com.forrestformations.commands;
 
-import static java.util.stream.Collectors.toList;
+import com.forrestformations.CommandException;
 import com.forrestformations.KubeAwareCommand;
-import com.forrestformations.KubeCtlException;
+import com.forrestformations.OutputFormat;
 import com.forrestformations.Printer;
+import com.forrestformations.forward.BalancedTunnel;
+import com.forrestformations.forward.ForwardingEngine;
+import com.forrestformations.forward.Tunnel;
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.PodCache;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.LocalPortForward;
-import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
-import picocli.CommandLine.Parameters;
 
 @Command(name = "port-forward", description = "Print namespace")
 public final class PortForward extends KubeAwareCommand {
 
-    @Parameters(index = "0", description = "pod-name.*")
-    private String regex = ".*";
+    private static final String[] TUNNEL_FIELDS = {"remotePort", "localPort", "pod"};
+    private static final String[] BALANCED_FIELDS = {"remotePort", "localPort", "pods", "selection", "policy"};
+
+    @Mixin
+    private PodSelection selection;
+
+    @Mixin
+    private OutputOption output;
 
     @Option(names = {"-p", "--port"}, description = "Local port number to start from; default 8001")
     private int port = 8001;
@@ -26,73 +36,81 @@ public final class PortForward extends KubeAwareCommand {
     @Option(names = {"-r", "--remotePort"}, description = "Remote port number; default 8000")
     private int remotePort = 8000;
 
+    @Option(names = {"--stats-interval"}, description = "Print tunnel statistics every N seconds; default 0 (only on exit)")
+    private int statsInterval = 0;
+
+    @Option(names = {"-f", "--follow"}, description = "Move forwards to replacement pods when pods are restarted or rolled out")
+    private boolean follow = false;
+
+    @Option(names = {"-b", "--balance"}, description = "Expose one local port spreading connections over all ready matching pods")
+    private boolean balance = false;
+
+    @Option(names = {"--policy"}, description = "Balancing policy: ${COMPLETION-CANDIDATES}; default ROUND_ROBIN")
+    private BalancedTunnel.Policy policy = BalancedTunnel.Policy.ROUND_ROBIN;
+
+    // Shared by all fan-out targets, so every pod gets its own local port
+    private final AtomicInteger nextPort = new AtomicInteger(-1);
+
     @Override
-    public void go(KubernetesClient client) {
-        List<Pod> pods = client.pods()
-                .list()
-                .getItems()
-                .stream()
-                .filter(pod -> pod.getMetadata()
-                        .getName()
-                        .matches(regex))
-                .toList();
+    protected OutputFormat outputFormat() {
+        return output.format();
+    }
 
-        if (pods.isEmpty()) {
-            Printer.print("No matching pods using the regex \"%s\"", regex);
+    @Override
+    public void go(KubernetesClient client) throws CommandException {
+        nextPort.compareAndSet(-1, port);
+        if (balance) {
+            try (PodCache cache = KubeHelp.given(client).pods().watch(selection.query())) {
+                balance(client, cache);
+            }
             return;
         }
 
-        portForward(pods);
-    }
-
-    private void portForward(List<Pod> pods) {
-        try {
-            Printer.print("Enabling port forward for:");
+        if (follow) {
+            try (PodCache cache = KubeHelp.given(client).pods().watch(selection.query())) {
+                forward(client, cache.pods(), cache);
+            }
+            return;
+        }
 
-            IntStream.range(0, pods.size())
-                    .forEach(idx -> portForwardWithKubeCtl(pods.get(idx), port + idx));
+        forward(client, KubeHelp.given(client).pods().find(selection.query()), null);
+    }
 
+    private void balance(KubernetesClient client, PodCache cache) throws CommandException {
+        try (ForwardingEngine engine = new ForwardingEngine(client)) {
+            BalancedTunnel tunnel = engine.balance(cache, policy, nextPort.getAndIncrement(), remotePort);
+            Printer.record("%d:%d - %d pods matching \"%s\" (%s)", BALANCED_FIELDS, tunnel.remotePort(),
+                    tunnel.localPort(), cache.pods().size(), selection.describe(), tunnel.policy());
             Printer.print("Port forwarding started. Press Ctrl+C to stop.");
-            Thread.currentThread().join();
+            engine.awaitClose(Duration.ofSeconds(statsInterval));
         } catch (InterruptedException iE) {
             Printer.error("Port forward error: %s", iE.getMessage());
         }
     }
 
-    private void portForwardWithKubeCtl(Pod pod, int localPort) {
-        Printer.print("%d:%d - %s", remotePort, localPort, pod.getMetadata().getName());
-        try {
-            String ns = pod.getMetadata().getNamespace();
-            Printer.print("Forwarding pod in namespace %s", ns);
-            Process process = startKubectlPortForward(pod, localPort, remotePort);
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                if (process.isAlive()) {
-                    process.destroy();
-                }
-            }));
-        } catch (Exception e) {
-            throw new KubeCtlException(String.format("Failed to port forward pod %s", pod.getMetadata().getName()), e);
+    private void forward(KubernetesClient client, List<Pod> pods, PodCache cache) throws CommandException {
+        if (pods.isEmpty()) {
+            Printer.print("No pods matching \"%s\"", selection.describe());
+            return;
         }
-    }
 
-    private Process startKubectlPortForward(Pod pod, int localPort, int remotePort) {
-        String namespace = pod.getMetadata().getNamespace();
-        String podName = pod.getMetadata().getName();
-
-        List<String> command = List.of(
-                "kubectl", "port-forward",
-                "pod/" + podName,
-                localPort + ":" + remotePort,
-                "-n", namespace
-        );
-
-        try {
-            Printer.print("Starting kubectl port-forward: %s", String.join(" ", command));
-            ProcessBuilder builder = new ProcessBuilder(command);
-            builder.inheritIO(); // optional: pipe to stdout/stderr
-            return builder.start(); // returns immediately
-        } catch (IOException e) {
-            throw new KubeCtlException(String.format("Failed to port forward pod %s", pod.getMetadata().getName()), e);
+        try (ForwardingEngine engine = new ForwardingEngine(client)) {
+            Printer.print("Enabling port forward for:");
+
+            for (Pod pod : pods) {
+                Tunnel tunnel = engine.open(pod, nextPort.getAndIncrement(), remotePort);
+                Printer.record("%d:%d - %s", TUNNEL_FIELDS, tunnel.remotePort(), tunnel.localPort(),
+                        tunnel.podName());
+            }
+
+            if (cache != null) {
+                engine.supervise(cache);
+            }
+
+            Printer.print("Port forwarding started. Press Ctrl+C to stop.");
+            engine.awaitClose(Duration.ofSeconds(statsInterval));
+        } catch (InterruptedException iE) {
+            Printer.error("Port forward error: %s", iE.getMessage());
         }
     }
 
@@ -0,0 +1,50 @@
+package com.forrestformations.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import com.forrestformations.CommandException;
+import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.Printer;
+import com.forrestformations.replay.Recorder;
+import com.forrestformations.replay.Recording;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "record", description = "Record the pods, replica sets, deployments, jobs and events of a namespace, "
+        + "and how they change, into a file to serve with 'replay'")
+public final class Record extends KubeAwareCommand {
+
+    @Parameters(index = "0", paramLabel = "FILE", description = "Recording to write")
+    private Path file;
+
+    @Option(names = {"-d", "--duration"}, converter = DurationConverter.class,
+            description = "How long to record changes after listing, e.g. 10m; default 1m, 0s for a snapshot only")
+    private Duration duration = Duration.ofMinutes(1);
+
+    @Override
+    protected boolean supportsFanOut() {
+        return false;
+    }
+
+    @Override
+    public void go(KubernetesClient client) throws CommandException {
+        Printer.print("Recording %s for %d s...", client.getNamespace(), duration.toSeconds());
+        try {
+            Recording recording = new Recorder(client).record(duration);
+            recording.write(file);
+            Printer.print("Wrote %d collection(s) and %d event(s) to %s (%d KiB)", recording.lists().size(),
+                    recording.events().size(), file, Files.size(file) / 1024);
+        } catch (IOException iOE) {
+            throw new CommandException("Could not write " + file + ": " + iOE.getMessage(), iOE);
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Interrupted while recording", iE);
+        }
+    }
+
+}
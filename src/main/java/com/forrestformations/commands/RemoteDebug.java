@@ -1,27 +1,40 @@
 package com.forrestformations.commands;
 
-import static java.util.stream.Collectors.toSet;
-
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.forrestformations.CommandException;
 import com.forrestformations.KubeAwareCommand;
+import com.forrestformations.OutputFormat;
 import com.forrestformations.Printer;
+import com.forrestformations.help.DeploymentHelper;
+import com.forrestformations.help.KubeHelp;
+import com.forrestformations.help.PatchResult;
+import com.forrestformations.help.RolloutStatus;
+import com.forrestformations.help.RolloutWatch;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerPort;
-import io.fabric8.kubernetes.api.model.ContainerPortBuilder;
 import io.fabric8.kubernetes.api.model.EnvVar;
-import io.fabric8.kubernetes.api.model.OwnerReference;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
-import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
-import picocli.CommandLine.Parameters;
 
 @Command(name = "remote-debug", description = "Enables/disables java remote debug session for the matching pods")
 public final class RemoteDebug extends KubeAwareCommand {
@@ -32,36 +45,60 @@ public final class RemoteDebug extends KubeAwareCommand {
     private static final String REDUNDANT_WHITESPACE = "\\s{2,}";
 
     private static final Set<String> DEBUG_VARS = Set.of("CATALINA_OPTS");
+    private static final int DEBUG_PORT = 8000;
+
+    private static final String[] RESULT_FIELDS = {"deployment", "status", "attempts", "error"};
+    private static final String[] ROLLOUT_FIELDS =
+            {"deployment", "state", "replicas", "ready", "timeToReadyMillis", "message"};
+    // Rollouts not done are listed first, then the slowest to get ready
+    private static final Comparator<RolloutStatus> SLOWEST_FIRST = Comparator
+            .comparing((RolloutStatus rollout) -> rollout.timeToReady() != null)
+            .thenComparing(RolloutStatus::timeToReady, Comparator.nullsFirst(Comparator.reverseOrder()));
+
+    @Mixin
+    private PodSelection selection;
 
-    @Parameters(index = "0", description = "pod-name.*")
-    private String regex = ".*";
+    @Mixin
+    private OutputOption output;
 
     @Option(names = {"-r", "--remove"}, description = "Remove debug configuration")
     private boolean remove = false;
 
+    @Option(names = {"--parallelism"}, description = "How many deployments to patch at once; default 8")
+    private int parallelism = 8;
+
+    @Option(names = {"-w", "--wait"}, description = "Wait for the patched deployments to roll out, reporting the "
+            + "time each took to get ready")
+    private boolean wait = false;
+
+    @Option(names = {"--timeout"}, converter = DurationConverter.class,
+            description = "How long --wait waits for the rollouts, e.g. 90s or 10m; default 5m")
+    private Duration timeout = Duration.ofMinutes(5);
+
     @Override
-    public void go(KubernetesClient client) {
-        List<Pod> pods = client.pods()
-                .list()
-                .getItems()
-                .stream()
-                .filter(pod -> pod.getMetadata()
-                        .getName()
-                        .matches(regex))
-                .toList();
+    protected OutputFormat outputFormat() {
+        return output.format();
+    }
+
+    @Override
+    public void go(KubernetesClient client) throws CommandException {
+        List<Pod> pods = KubeHelp.given(client)
+                .pods()
+                .find(selection.query());
 
         if (pods.isEmpty()) {
-            Printer.print("No matching pods using the regex \"%s\" within \"%s\" namespace",
-                    regex, client.getNamespace());
+            Printer.print("No pods matching \"%s\" within \"%s\" namespace",
+                    selection.describe(), client.getNamespace());
             return;
         }
 
         Printer.print("Pods found within \"%s\" namespace:", client.getNamespace());
+        DeploymentHelper deploymentHelper = KubeHelp.given(client).deployments();
         Set<String> deploymentNames = pods.stream()
                 .peek(pod -> Printer.print(pod.getMetadata().getName()))
-                .map(pod -> identifyPodDeployment(pod, client))
+                .map(deploymentHelper::findName)
                 .flatMap(Optional::stream)
-                .collect(toSet());
+                .collect(toCollection(TreeSet::new));
 
         if (deploymentNames.isEmpty()) {
             Printer.print("\nNo corresponding deployments identified");
@@ -69,75 +106,116 @@ public final class RemoteDebug extends KubeAwareCommand {
         }
 
         Printer.print("\nIdentified corresponding deployments:");
-        List<Deployment> deployments = deploymentNames.stream()
-                .map(name -> client.apps()
-                        .deployments()
-                        .withName(name)
-                        .get())
-                .peek(deployment -> Printer.print(deployment.getMetadata().getName()))
-                .toList();
-
-        List<Deployment> modifiedDeployments = deployments.stream()
-                .map(deployment -> modifyDebug(deployment, client))
-                .flatMap(Optional::stream)
-                .toList();
-
-        if (modifiedDeployments.isEmpty()) {
-            Printer.print("\nNo deployments needed modifications");
-            return;
+        deploymentNames.forEach(Printer::print);
+
+        Printer.print("\nPatching deployments (remote debug %s):", (remove ? "disabled" : "enabled"));
+        List<PatchResult> results = deploymentHelper.patch(deploymentNames, this::debugPatch, parallelism);
+        printSummary(results);
+
+        Set<String> patched = results.stream()
+                .filter(result -> result.status() == PatchResult.Status.PATCHED)
+                .map(PatchResult::name)
+                .collect(toCollection(TreeSet::new));
+        if (wait && !patched.isEmpty()) {
+            awaitRollouts(deploymentHelper, patched);
         }
-
-        Printer.print("\nSaving modified deployments (remote debug %s):", (remove ? "disabled" : "enabled"));
-        modifiedDeployments.stream()
-                .peek(deployment -> Printer.print(deployment.getMetadata().getName()))
-                .forEach(deployment -> client.apps()
-                        .deployments()
-                        .withName(deployment.getMetadata().getName())
-                        .edit(d -> deployment));
     }
 
-    private Optional<String> identifyPodDeployment(Pod pod, KubernetesClient client) {
-        Optional<OwnerReference> replicaSetOwnerRef = pod.getMetadata().getOwnerReferences().stream()
-                .filter(owner -> "ReplicaSet".equals(owner.getKind()))
-                .findFirst();
-
-        if (replicaSetOwnerRef.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Follows all rollouts through one watch, printing a line whenever one of them progresses, until every one is
+     * done or the timeout hits.
+     */
+    private void awaitRollouts(DeploymentHelper deploymentHelper, Set<String> names) throws CommandException {
+        Printer.print("\nWaiting for %d rollout(s), at most %d s:", names.size(), timeout.toSeconds());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<String, RolloutStatus> shown = new HashMap<>();
+        List<RolloutStatus> rollouts;
+        try (RolloutWatch watch = deploymentHelper.watchRollouts(names)) {
+            while (true) {
+                rollouts = watch.rollouts();
+                rollouts.stream()
+                        .filter(rollout -> !rollout.equals(shown.put(rollout.name(), rollout)))
+                        .forEach(RemoteDebug::printProgress);
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || rollouts.stream().allMatch(RolloutStatus::isDone)) {
+                    break;
+                }
+                watch.awaitChange(Duration.ofNanos(remaining));
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Interrupted while waiting for rollouts", iE);
         }
 
-        String replicaSetName = replicaSetOwnerRef.get().getName();
-        ReplicaSet replicaSet = client.apps().replicaSets()
-                .withName(replicaSetName)
-                .get();
+        Printer.print("\nTime to ready, slowest first:");
+        rollouts.stream().sorted(SLOWEST_FIRST).forEach(rollout -> Printer.record(
+                rollout.state() == RolloutStatus.State.COMPLETE ? "%s ready after %5$d ms" : "%s %2$s: %6$s",
+                ROLLOUT_FIELDS, rollout.name(), rollout.state(), rollout.replicas(), rollout.ready(),
+                rollout.timeToReady() == null ? null : rollout.timeToReady().toMillis(), rollout.message()));
 
-        if (replicaSet == null) {
-            return Optional.empty();
+        long pending = rollouts.stream().filter(rollout -> !rollout.isDone()).count();
+        if (pending > 0) {
+            Printer.error("Timed out after %d s with %d rollout(s) not done", timeout.toSeconds(), pending);
         }
+    }
 
-        return replicaSet.getMetadata().getOwnerReferences().stream()
-                .filter(owner -> "Deployment".equals(owner.getKind()))
-                .map(OwnerReference::getName)
-                .findFirst();
+    private static void printProgress(RolloutStatus rollout) {
+        if (rollout.state() == RolloutStatus.State.COMPLETE) {
+            Printer.print("%s: ready after %.1f s (%d replicas)", rollout.name(),
+                    rollout.timeToReady().toMillis() / 1000.0, rollout.replicas());
+        } else {
+            Printer.print("%s: %s, %d/%d ready", rollout.name(), rollout.message(), rollout.ready(),
+                    rollout.replicas());
+        }
+    }
+
+    private void printSummary(List<PatchResult> results) {
+        results.forEach(result -> {
+            if (result.status() == PatchResult.Status.FAILED && Printer.format() == OutputFormat.TEXT) {
+                Printer.error("%s failed after %d attempt(s): %s", result.name(), result.attempts(), result.error());
+                return;
+            }
+            String text = switch (result.status()) {
+                case PATCHED -> "%s patched (attempts: %3$d)";
+                case UNCHANGED -> "%s needed no modifications";
+                case FAILED -> "%s failed after %3$d attempt(s): %4$s";
+            };
+            Printer.record(text, RESULT_FIELDS, result.name(), result.status(), result.attempts(), result.error());
+        });
+
+        Map<PatchResult.Status, Long> counts = results.stream()
+                .collect(groupingBy(PatchResult::status, () -> new EnumMap<>(PatchResult.Status.class), counting()));
+        Printer.print("\nPatched: %d, unchanged: %d, failed: %d",
+                counts.getOrDefault(PatchResult.Status.PATCHED, 0L),
+                counts.getOrDefault(PatchResult.Status.UNCHANGED, 0L),
+                counts.getOrDefault(PatchResult.Status.FAILED, 0L));
     }
 
-    private Optional<Deployment> modifyDebug(Deployment deployment, KubernetesClient client) {
-        List<Container> containers = deployment.getSpec()
+    /**
+     * Builds a strategic merge patch touching only the debug env var and port of the containers that need them.
+     */
+    private Optional<Map<String, Object>> debugPatch(Deployment deployment) {
+        List<Map<String, Object>> containerPatches = deployment.getSpec()
                 .getTemplate()
                 .getSpec()
-                .getContainers();
+                .getContainers()
+                .stream()
+                .map(this::containerPatch)
+                .flatMap(Optional::stream)
+                .toList();
 
-        boolean updated = containers.stream()
-                .map(this::checkAndModifyContainer)
-                .reduce(false, (a, b) -> a || b);
+        if (containerPatches.isEmpty()) {
+            return Optional.empty();
+        }
 
-        return updated ? Optional.of(deployment) : Optional.empty();
+        return Optional.of(Map.of("spec", Map.of("template", Map.of("spec", Map.of("containers", containerPatches)))));
     }
 
-    private boolean checkAndModifyContainer(Container container) {
+    private Optional<Map<String, Object>> containerPatch(Container container) {
         List<EnvVar> envVars = container.getEnv();
 
         if (envVars == null) {
-            return false;
+            return Optional.empty();
         }
 
         Optional<EnvVar> catalinaEnvVar = envVars.stream()
@@ -145,56 +223,51 @@ public final class RemoteDebug extends KubeAwareCommand {
                 .findFirst();
 
         if (catalinaEnvVar.isEmpty()) {
-            return false;
+            return Optional.empty();
         }
 
-        boolean envVarModified = catalinaEnvVar.map(this::modifyEnvVar)
-                .orElse(false);
-        boolean portModified = modifyPorts(container.getPorts());
+        Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("name", container.getName());
+        catalinaEnvVar.flatMap(envVar -> modifyEnvVar(envVar.getValue(), remove)
+                        .map(value -> Map.of("name", envVar.getName(), "value", value)))
+                .ifPresent(envPatch -> patch.put("env", List.of(envPatch)));
+        modifyPorts(container.getPorts())
+                .ifPresent(portPatch -> patch.put("ports", List.of(portPatch)));
 
-        return envVarModified || portModified;
+        return patch.size() > 1 ? Optional.of(patch) : Optional.empty();
     }
 
-    private boolean modifyEnvVar(EnvVar envVar) {
-        String variableValue = envVar.getValue();
-        Matcher matcher = DEBUG_PATTERN.matcher(variableValue);
+    static Optional<String> modifyEnvVar(String variableValue, boolean remove) {
+        String value = variableValue == null ? "" : variableValue;
+        Matcher matcher = DEBUG_PATTERN.matcher(value);
 
         if (remove && matcher.find()) {
             String updatedValue = matcher.replaceAll("")
                     .replaceAll(REDUNDANT_WHITESPACE, " ")
                     .trim();
-            envVar.setValue(updatedValue);
-            return true;
+            return Optional.of(updatedValue);
         }
 
         if (!remove && !matcher.find()) {
-            envVar.setValue((variableValue + " " + DEBUG_STATEMENT).trim());
-            return true;
+            return Optional.of((value + " " + DEBUG_STATEMENT).trim());
         }
 
-        return false;
+        return Optional.empty();
     }
 
-    private boolean modifyPorts(List<ContainerPort> ports) {
-        Optional<ContainerPort> debugPort = ports.stream()
-                .filter(port -> port.getContainerPort() == 8000)
-                .findFirst();
+    private Optional<Map<String, Object>> modifyPorts(List<ContainerPort> ports) {
+        boolean debugPortPresent = ports != null && ports.stream()
+                .anyMatch(port -> port.getContainerPort() == DEBUG_PORT);
 
-        if (remove && debugPort.isPresent()) {
-            ports.remove(debugPort.get());
-            return true;
+        if (remove && debugPortPresent) {
+            return Optional.of(Map.of("containerPort", DEBUG_PORT, "$patch", "delete"));
         }
 
-        if (!remove && debugPort.isEmpty()) {
-            ports.add(new ContainerPortBuilder()
-                    .withName("debug")
-                    .withProtocol("TCP")
-                    .withContainerPort(8000)
-                    .build());
-            return true;
+        if (!remove && !debugPortPresent) {
+            return Optional.of(Map.of("containerPort", DEBUG_PORT, "name", "debug", "protocol", "TCP"));
         }
 
-        return false;
+        return Optional.empty();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.forrestformations.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import com.forrestformations.CommandException;
+import com.forrestformations.Printer;
+import com.forrestformations.replay.Recording;
+import com.forrestformations.replay.ReplayServer;
+import com.forrestformations.replay.SyntheticNamespace;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+@Command(name = "replay", description = "Serve a recording, or a generated namespace, as a local API server until "
+        + "stopped, so commands and benchmarks run reproducibly without a cluster")
+public final class Replay implements Callable<Integer> {
+
+    @Spec
+    private CommandSpec command;
+
+    @Parameters(index = "0", arity = "0..1", paramLabel = "FILE", description = "Recording made with 'record'")
+    private Path file;
+
+    @Option(names = {"--synthetic"}, paramLabel = "PODS",
+            description = "Generate a namespace of this many pods instead of reading a recording")
+    private int synthetic;
+
+    @Option(names = {"--synthetic-namespace"}, description = "Name of the generated namespace; default replay")
+    private String syntheticNamespace = "replay";
+
+    @Option(names = {"--events"}, description = "Container restarts to generate over the span; default 1000")
+    private int events = 1000;
+
+    @Option(names = {"--span"}, converter = DurationConverter.class,
+            description = "How long the generated restarts are spread over; default 10m")
+    private Duration span = Duration.ofMinutes(10);
+
+    @Option(names = {"--save"}, description = "Also write the generated namespace to this file")
+    private Path save;
+
+    @Option(names = {"--port"}, description = "Port to listen on; default any free one")
+    private int port = 0;
+
+    @Option(names = {"--speed"},
+            description = "How many times faster than recorded to replay changes, 0 for all at once; default 1")
+    private double speed = 1;
+
+    @Option(names = {"--kubeconfig"}, description = "Write a kubeconfig pointing at the replay to this file")
+    private Path kubeconfig;
+
+    /**
+     * @return 1 if the recording could not be read, saved or served; usage errors exit through picocli with 2
+     */
+    @Override
+    public Integer call() {
+        if ((file == null) == (synthetic <= 0)) {
+            throw new ParameterException(command.commandLine(), "Give either a FILE or --synthetic PODS");
+        }
+        try {
+            replay();
+            return 0;
+        } catch (CommandException cE) {
+            Printer.error("Command error: %s", cE.getMessage());
+            return 1;
+        }
+    }
+
+    private void replay() throws CommandException {
+        Recording recording;
+        try {
+            recording = file != null ?
+                    Recording.read(file) : SyntheticNamespace.generate(syntheticNamespace, synthetic, events, span);
+        } catch (IOException iOE) {
+            throw new CommandException("Could not read " + file + ": " + iOE.getMessage(), iOE);
+        }
+        if (save != null) {
+            try {
+                recording.write(save);
+                Printer.print("Saved to %s (%d KiB)", save, Files.size(save) / 1024);
+            } catch (IOException iOE) {
+                throw new CommandException("Could not write " + save + ": " + iOE.getMessage(), iOE);
+            }
+        }
+        try {
+            serve(recording);
+        } catch (IOException iOE) {
+            throw new CommandException("Could not serve the replay: " + iOE.getMessage(), iOE);
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve(Recording recording) throws IOException, InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (ReplayServer server = ReplayServer.start(recording, port, speed)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                stopped.countDown();
+            }));
+            String namespace = recording.namespaces().stream().findFirst().orElse("default");
+            Printer.print("Serving %d object(s) in %s on %s, replaying %d event(s)", server.objects(),
+                    String.join(", ", recording.namespaces()), server.url(), recording.events().size());
+            if (kubeconfig != null) {
+                Files.writeString(kubeconfig, kubeconfig(server.url(), namespace));
+                Printer.print("Run commands with KUBECONFIG=%s", kubeconfig);
+            }
+            Printer.flush();
+            stopped.await();
+        }
+    }
+
+    private static String kubeconfig(String url, String namespace) {
+        return """
+                apiVersion: v1
+                kind: Config
+                clusters:
+                - name: replay
+                  cluster:
+                    server: %s
+                contexts:
+                - name: replay
+                  context:
+                    cluster: replay
+                    namespace: %s
+                    user: replay
+                current-context: replay
+                users:
+                - name: replay
+                  user: {}
+                """.formatted(url, namespace);
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.forrestformations.daemon;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.forrestformations.ClientProvider;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+
+/**
+ * Keeps one client per kubeconfig context and API server open for the life of the daemon, so commands reuse its
+ * connections, TLS sessions and parsed credentials instead of building them per run. The kubeconfig is parsed again
+ * only once one of its files has changed; a changed default namespace is applied to the open client, changed
+ * credentials replace it. The least recently used clients are closed once more contexts than {@link #MAX_CLIENTS}
+ * have been used, each as soon as no command is using it any more.
+ */
+public final class ClientPool implements ClientProvider, AutoCloseable {
+
+    static final int MAX_CLIENTS = 16;
+
+    private final Map<String, Resolved> configs = new ConcurrentHashMap<>();
+    // Both guarded by this; clients in access order for eviction
+    private final Map<Key, Pooled> clients = new LinkedHashMap<>(MAX_CLIENTS, 0.75f, true);
+    private final Map<KubernetesClient, Pooled> lent = new IdentityHashMap<>();
+
+    @Override
+    public KubernetesClient acquire(String context, Supplier<Config> config) {
+        Config resolved = resolve(context, config);
+        Key key = Key.of(context, resolved);
+        List<Object> credentials = credentials(resolved);
+        synchronized (this) {
+            Pooled pooled = clients.get(key);
+            if (pooled == null || !pooled.credentials.equals(credentials)) {
+                if (pooled != null) {
+                    retire(pooled);
+                }
+                pooled = new Pooled(credentials, ClientProvider.build(resolved));
+                clients.put(key, pooled);
+                evictOverflow();
+            }
+            KubernetesClient view = pooled.view(resolved.getNamespace());
+            pooled.users++;
+            lent.put(view, pooled);
+            return view;
+        }
+    }
+
+    @Override
+    public synchronized void release(KubernetesClient client) {
+        Pooled pooled = lent.get(client);
+        if (pooled != null && --pooled.users == 0 && pooled.retired) {
+            shut(pooled);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        clients.values().forEach(pooled -> pooled.client.close());
+        // Retired ones still in use, closed under the commands using them as the daemon exits
+        lent.values().stream().filter(pooled -> pooled.retired).distinct().forEach(pooled -> pooled.client.close());
+        clients.clear();
+        lent.clear();
+        configs.clear();
+    }
+
+    // The kubeconfig stamps are read before it is parsed, so a change made meanwhile is seen on the next command
+    private Config resolve(String context, Supplier<Config> config) {
+        String name = context == null ? "" : context;
+        long[] stamps = Config.getKubeconfigFilenames().stream().mapToLong(file -> new File(file).lastModified())
+                .toArray();
+        Resolved cached = configs.get(name);
+        if (cached != null && Arrays.equals(cached.stamps(), stamps)) {
+            return cached.config();
+        }
+        Config fresh = config.get();
+        if (configs.size() >= MAX_CLIENTS) {
+            configs.clear();
+        }
+        configs.put(name, new Resolved(fresh, stamps));
+        return fresh;
+    }
+
+    private void evictOverflow() {
+        Iterator<Pooled> eldest = clients.values().iterator();
+        while (clients.size() > MAX_CLIENTS) {
+            retire(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private void retire(Pooled pooled) {
+        pooled.retired = true;
+        if (pooled.users == 0) {
+            shut(pooled);
+        }
+    }
+
+    private void shut(Pooled pooled) {
+        pooled.views.values().forEach(lent::remove);
+        pooled.client.close();
+    }
+
+    private static List<Object> credentials(Config config) {
+        return Arrays.asList(config.getUsername(), config.getPassword(), config.getOauthToken(),
+                config.getAuthProvider(), config.getImpersonateUsername(),
+                config.getClientCertFile(), config.getClientCertData(),
+                config.getClientKeyFile(), config.getClientKeyData(),
+                config.getCaCertFile(), config.getCaCertData());
+    }
+
+    private record Resolved(Config config, long[] stamps) {
+    }
+
+    private record Key(String context, String masterUrl) {
+
+        static Key of(String context, Config config) {
+            String name = context != null ? context :
+                    config.getCurrentContext() == null ? null : config.getCurrentContext().getName();
+            return new Key(name, config.getMasterUrl());
+        }
+
+    }
+
+    private static final class Pooled {
+
+        final List<Object> credentials;
+        final KubernetesClient client;
+        // Per namespace, sharing the client's connections
+        final Map<String, KubernetesClient> views = new HashMap<>();
+        int users;
+        boolean retired;
+
+        Pooled(List<Object> credentials, KubernetesClient client) {
+            this.credentials = credentials;
+            this.client = client;
+        }
+
+        KubernetesClient view(String namespace) {
+            return views.computeIfAbsent(namespace, name -> name == null || name.equals(client.getNamespace()) ?
+                    client : client.adapt(NamespacedKubernetesClient.class).inNamespace(name));
+        }
+
+    }
+
+}
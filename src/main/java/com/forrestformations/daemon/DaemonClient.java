@@ -0,0 +1,78 @@
+package com.forrestformations.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+/**
+ * Thin client side of daemon mode. Uses nothing beyond the JDK, so forwarding a command never loads picocli or the
+ * Kubernetes client.
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Runs the command in a daemon if one is listening and the command can run there.
+     *
+     * @return the command's exit code, empty when it should run in this process instead
+     */
+    public static OptionalInt forward(String... args) {
+        Path socket = DaemonProtocol.socketPath();
+        if (!DaemonProtocol.isForwardable(args)
+                || System.getenv("KUBE_PLAY_NO_DAEMON") != null || !Files.exists(socket)) {
+            return OptionalInt.empty();
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException notListening) {
+            return OptionalInt.empty();
+        }
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            return OptionalInt.of(relay(new DataInputStream(Channels.newInputStream(channel))));
+        } catch (IOException e) {
+            // The request may already have run, so it is not retried locally
+            System.err.printf("Lost the daemon: %s%n", e.getMessage());
+            return OptionalInt.of(1);
+        }
+    }
+
+    private static int relay(DataInputStream frames) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (true) {
+            byte type = frames.readByte();
+            if (type == DaemonProtocol.EXIT) {
+                System.out.flush();
+                System.err.flush();
+                return frames.readInt();
+            }
+            PrintStream target = type == DaemonProtocol.ERR ? System.err : System.out;
+            int remaining = frames.readInt();
+            while (remaining > 0) {
+                int read = frames.read(buffer, 0, Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Daemon closed mid-frame");
+                }
+                target.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+}
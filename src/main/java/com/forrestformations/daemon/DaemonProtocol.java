@@ -0,0 +1,67 @@
+package com.forrestformations.daemon;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wire format between the thin client and the daemon. The client sends the argument count followed by each argument
+ * as modified UTF-8; the daemon answers with frames of a type byte, a length and that many bytes of output, ending
+ * with an exit frame carrying the exit code instead of a length.
+ */
+public final class DaemonProtocol {
+
+    static final byte OUT = 1;
+    static final byte ERR = 2;
+    static final byte EXIT = 3;
+
+    /**
+     * Subcommands that finish quickly and need no terminal or local ports, so can run inside the daemon.
+     */
+    private static final Set<String> FORWARDABLE = Set.of("namespace", "remote-debug");
+
+    /**
+     * Options that keep a forwardable subcommand running until something happens in the cluster. CTRL+C would only
+     * stop the thin client, and output from the threads they start would not reach it, so these run locally.
+     */
+    private static final Map<String, Set<String>> LONG_RUNNING = Map.of("remote-debug", Set.of("-w", "--wait"));
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @param args the command line, subcommand first
+     * @return true if the daemon can run it
+     */
+    public static boolean isForwardable(String... args) {
+        if (args.length == 0 || !FORWARDABLE.contains(args[0])) {
+            return false;
+        }
+        Set<String> longRunning = LONG_RUNNING.getOrDefault(args[0], Set.of());
+        for (int i = 1; i < args.length && !args[i].equals("--"); i++) {
+            for (String option : longRunning) {
+                if (uses(args[i], option)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Short options may be clustered, as in -rw; a value that merely contains the letter only costs a local run
+    private static boolean uses(String arg, String option) {
+        if (option.startsWith("--")) {
+            return arg.equals(option) || arg.startsWith(option + "=");
+        }
+        return arg.startsWith("-") && !arg.startsWith("--") && arg.indexOf(option.charAt(1), 1) > 0;
+    }
+
+    public static Path socketPath() {
+        String configured = System.getenv("KUBE_PLAY_SOCKET");
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured);
+        }
+        return Path.of(System.getProperty("user.home"), ".kube-play", "daemon.sock");
+    }
+
+}
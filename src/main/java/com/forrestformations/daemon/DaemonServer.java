@@ -0,0 +1,221 @@
+package com.forrestformations.daemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ProtocolException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+import com.forrestformations.Printer;
+
+/**
+ * Accepts thin client connections on a Unix domain socket and runs each request on its own virtual thread.
+ */
+public final class DaemonServer implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Handler {
+
+        int run(String[] args, PrintStream out, PrintStream err);
+
+    }
+
+    // Far beyond any real command line; a peer sending more is broken
+    private static final int MAX_ARGUMENTS = 1024;
+    private static final int MAX_REQUEST_BYTES = 1 << 20;
+
+    private final Path socket;
+    private final Handler handler;
+    private final ServerSocketChannel server;
+
+    public DaemonServer(Path socket, Handler handler) throws IOException {
+        this.socket = socket;
+        this.handler = handler;
+        this.server = bind(socket);
+    }
+
+    /**
+     * Serves requests until closed.
+     */
+    public void serve() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                Thread.ofVirtual().name("daemon-request").start(() -> handle(channel));
+            } catch (IOException e) {
+                if (server.isOpen()) {
+                    Printer.error("Daemon accept failed: %s", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Files.deleteIfExists(socket);
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataOutputStream frames = new DataOutputStream(Channels.newOutputStream(channel));
+            int exitCode;
+            try {
+                exitCode = run(readArgs(new DataInputStream(Channels.newInputStream(channel))), frames);
+            } catch (ProtocolException pE) {
+                byte[] message = ("Bad daemon request: " + pE.getMessage() + System.lineSeparator())
+                        .getBytes(StandardCharsets.UTF_8);
+                new FrameStream(frames, DaemonProtocol.ERR).write(message, 0, message.length);
+                exitCode = 2;
+            }
+            synchronized (frames) {
+                frames.writeByte(DaemonProtocol.EXIT);
+                frames.writeInt(exitCode);
+                frames.flush();
+            }
+        } catch (IOException e) {
+            // The client went away, its command has already run or failed
+        }
+    }
+
+    /**
+     * Reads the arguments as {@link DataInputStream#readUTF()} would, checking each length against what is left of
+     * the request's budget before allocating for it.
+     */
+    private static String[] readArgs(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new ProtocolException(count + " arguments");
+        }
+        String[] args = new String[count];
+        int budget = MAX_REQUEST_BYTES;
+        for (int i = 0; i < count; i++) {
+            int length = in.readUnsignedShort();
+            budget -= length;
+            if (budget < 0) {
+                throw new ProtocolException("longer than " + MAX_REQUEST_BYTES + " bytes");
+            }
+            byte[] encoded = new byte[2 + length];
+            encoded[0] = (byte) (length >>> 8);
+            encoded[1] = (byte) length;
+            in.readFully(encoded, 2, length);
+            args[i] = DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(encoded)));
+        }
+        return args;
+    }
+
+    private int run(String[] args, DataOutputStream frames) {
+        PrintStream out = new PrintStream(new FrameStream(frames, DaemonProtocol.OUT), true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(new FrameStream(frames, DaemonProtocol.ERR), true, StandardCharsets.UTF_8);
+        if (!DaemonProtocol.isForwardable(args)) {
+            err.println("Not served by the daemon, run without it");
+            return 2;
+        }
+        try {
+            return handler.run(args, out, err);
+        } catch (RuntimeException e) {
+            err.printf("Daemon error: %s%n", e.getMessage());
+            return 1;
+        } finally {
+            out.flush();
+            err.flush();
+        }
+    }
+
+    private static ServerSocketChannel bind(Path socket) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            if (listening(address)) {
+                throw new IOException("A daemon is already listening on " + socket);
+            }
+            // Left behind by a daemon that did not shut down cleanly
+            Files.delete(socket);
+        }
+        // Anyone who can connect runs commands with our kubeconfig credentials. The socket is created with the
+        // umask's permissions and only narrowed after binding, so it must sit in a directory only we can enter
+        privateDirectory(socket.toAbsolutePath().getParent());
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(address);
+        Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        return server;
+    }
+
+    private static void privateDirectory(Path directory) throws IOException {
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(ownerOnly));
+        }
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal us = directory.getFileSystem()
+                .getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        // Not narrowed here when it is ours: it may be a shared directory such as /tmp
+        if (!attributes.isDirectory() || !attributes.owner().equals(us)
+                || !attributes.permissions().equals(ownerOnly)) {
+            throw new IOException(directory + " must be a directory owned by " + us.getName()
+                    + " and accessible only to it (chmod 700) to hold the daemon socket");
+        }
+    }
+
+    private static boolean listening(UnixDomainSocketAddress address) {
+        try (SocketChannel ignored = SocketChannel.open(address)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static final class FrameStream extends OutputStream {
+
+        private final DataOutputStream frames;
+        private final byte type;
+
+        FrameStream(DataOutputStream frames, byte type) {
+            this.frames = frames;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            synchronized (frames) {
+                frames.writeByte(type);
+                frames.writeInt(length);
+                frames.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (frames) {
+                frames.flush();
+            }
+        }
+
+    }
+
+}
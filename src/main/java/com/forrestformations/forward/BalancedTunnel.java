@@ -0,0 +1,244 @@
+package com.forrestformations.forward;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.forrestformations.Printer;
+import com.forrestformations.help.PodCache;
+import com.forrestformations.help.Pods;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+/**
+ * One local port spreading its connections over all ready pods of a {@link PodCache}.
+ * <p>
+ * Pods enter and leave the rotation as they become ready or go away. A pod that refuses
+ * {@value #MAX_CONNECT_FAILURES} connections in a row is ejected for {@link #EJECTION}, after which one connection
+ * is let through to check whether it recovered. The pod gets no other connections until that probe has connected or
+ * failed.
+ */
+public final class BalancedTunnel implements Closeable {
+
+    public enum Policy {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    private static final int MAX_CONNECT_FAILURES = 3;
+    private static final Duration EJECTION = Duration.ofSeconds(10);
+    private static final Duration REFRESH = Duration.ofSeconds(5);
+
+    private final KubernetesClient client;
+    private final BufferPool pool;
+    private final PodCache cache;
+    private final Policy policy;
+    private final int localPort;
+    private final int remotePort;
+    private final TunnelStats unrouted = new TunnelStats();
+    private final ServerSocketChannel server;
+    private final Set<Relay> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Backend> backends = new LinkedHashMap<>();
+    private final AtomicInteger nextBackend = new AtomicInteger();
+
+    private volatile List<Backend> rotation = List.of();
+    private volatile boolean closed;
+
+    BalancedTunnel(KubernetesClient client, BufferPool pool, PodCache cache, Policy policy, int localPort,
+                   int remotePort) throws IOException {
+        this.client = client;
+        this.pool = pool;
+        this.cache = cache;
+        this.policy = policy;
+        this.localPort = localPort;
+        this.remotePort = remotePort;
+        refresh();
+        this.server = ServerSocketChannel.open()
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), localPort));
+        Thread.ofVirtual().name("balanced-refresh-" + localPort).start(this::refreshLoop);
+        Thread.ofVirtual().name("balanced-accept-" + localPort).start(this::accept);
+    }
+
+    public int localPort() {
+        return localPort;
+    }
+
+    public int remotePort() {
+        return remotePort;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * @return pod name to statistics for every pod currently in the rotation
+     */
+    public synchronized Map<String, TunnelStats> backendStats() {
+        Map<String, TunnelStats> stats = new LinkedHashMap<>();
+        backends.forEach((key, backend) -> stats.put(backend.podName(), backend.stats));
+        stats.put("(no ready pod)", unrouted);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // Closing on shutdown, nothing left to do with the failure
+        }
+        connections.forEach(Relay::close);
+        connections.clear();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel socket = server.accept();
+                connections.removeIf(connection -> !connection.isOpen());
+                Backend backend = choose();
+                if (backend == null) {
+                    unrouted.failed();
+                    socket.close();
+                    continue;
+                }
+                Pod pod = backend.pod;
+                Relay relay = Relay.start(client, pod.getMetadata().getNamespace(), pod.getMetadata().getName(),
+                        remotePort, socket, pool, backend.stats);
+                backend.started(relay);
+                connections.add(relay);
+            } catch (ClosedChannelException cCE) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    unrouted.failed();
+                    Printer.error("Port %d: failed to balance connection: %s", localPort, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Backend choose() {
+        List<Backend> candidates = rotation;
+        long now = System.nanoTime();
+        int size = candidates.size();
+        if (size == 0) {
+            return null;
+        }
+
+        if (policy == Policy.LEAST_CONNECTIONS) {
+            Backend least = null;
+            for (Backend backend : candidates) {
+                if (backend.isHealthy(now) && (least == null
+                        || backend.stats.activeConnections() < least.stats.activeConnections())) {
+                    least = backend;
+                }
+            }
+            return least;
+        }
+
+        int start = Math.floorMod(nextBackend.getAndIncrement(), size);
+        for (int offset = 0; offset < size; offset++) {
+            Backend backend = candidates.get((start + offset) % size);
+            if (backend.isHealthy(now)) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    private void refreshLoop() {
+        try {
+            while (!closed) {
+                cache.awaitChange(REFRESH);
+                refresh();
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void refresh() {
+        Map<String, Pod> ready = new LinkedHashMap<>();
+        cache.pods()
+                .stream()
+                .filter(Pods::isReady)
+                .forEach(pod -> ready.put(pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName(), pod));
+
+        backends.keySet().retainAll(ready.keySet());
+        ready.forEach((key, pod) -> backends.computeIfAbsent(key, k -> new Backend()).pod = pod);
+        rotation = backends.values()
+                .stream()
+                .sorted(Comparator.comparing(Backend::podName))
+                .toList();
+    }
+
+    /**
+     * Health of one pod. Only the accept thread chooses backends, so the ejection state needs no locking.
+     */
+    private static final class Backend {
+
+        private final TunnelStats stats = new TunnelStats();
+        private volatile Pod pod;
+        private volatile long ejectedUntil;
+        private volatile boolean probing;
+        private volatile Relay probe;
+
+        String podName() {
+            return pod.getMetadata().getName();
+        }
+
+        void started(Relay relay) {
+            if (probing && probe == null) {
+                probe = relay;
+            }
+        }
+
+        boolean isHealthy(long now) {
+            if (probing) {
+                Relay current = probe;
+                if (current != null && current.isConnecting()) {
+                    return false;
+                }
+                probing = false;
+                probe = null;
+                if (stats.consecutiveConnectFailures() == MAX_CONNECT_FAILURES - 1) {
+                    // The probe was not chosen or closed locally before it connected; probe again
+                    stats.resetConnectFailures(MAX_CONNECT_FAILURES);
+                    ejectedUntil = now;
+                }
+            }
+            if (stats.consecutiveConnectFailures() < MAX_CONNECT_FAILURES) {
+                return true;
+            }
+            if (ejectedUntil == 0) {
+                ejectedUntil = now + EJECTION.toNanos();
+                return false;
+            }
+            if (now - ejectedUntil < 0) {
+                return false;
+            }
+            // Let one connection probe the pod; failing again restarts the ejection
+            ejectedUntil = 0;
+            stats.resetConnectFailures(MAX_CONNECT_FAILURES - 1);
+            probing = true;
+            return true;
+        }
+
+    }
+
+}
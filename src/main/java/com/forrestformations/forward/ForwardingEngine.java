@@ -0,0 +1,131 @@
+package com.forrestformations.forward;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.CommandException;
+import com.forrestformations.Printer;
+import com.forrestformations.help.PodCache;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+/**
+ * Owns all tunnels of a port-forward session, forwarding in-process over the client's websockets instead of one
+ * {@code kubectl port-forward} process per pod. Closing the engine, explicitly or on JVM shutdown, prints the final
+ * tunnel statistics and closes every tunnel.
+ */
+public final class ForwardingEngine implements AutoCloseable {
+
+    private static final int POOLED_BUFFERS = 256;
+    private static final String[] STATS_FIELDS = {"localPort", "pod", "active", "connections", "bytesIn", "bytesOut",
+            "avgConnectMillis", "maxConnectMillis", "errors", "reconnects", "maxDowntimeMillis"};
+
+    private final KubernetesClient client;
+    private final BufferPool pool = new BufferPool(POOLED_BUFFERS);
+    private final List<Tunnel> tunnels = new CopyOnWriteArrayList<>();
+    private final List<BalancedTunnel> balancedTunnels = new CopyOnWriteArrayList<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final Thread shutdownHook = new Thread(this::close, "forwarding-shutdown");
+
+    private TunnelSupervisor supervisor;
+
+    public ForwardingEngine(KubernetesClient client) {
+        this.client = client;
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public Tunnel open(Pod pod, int localPort, int remotePort) throws CommandException {
+        try {
+            Tunnel tunnel = new Tunnel(client, pool, pod, localPort, remotePort);
+            tunnels.add(tunnel);
+            return tunnel;
+        } catch (IOException iE) {
+            throw new CommandException(String.format("Failed to listen on port %d for pod %s",
+                    localPort, pod.getMetadata().getName()), iE);
+        }
+    }
+
+    /**
+     * Opens one local port spreading connections over all ready pods of the cache.
+     */
+    public BalancedTunnel balance(PodCache cache, BalancedTunnel.Policy policy, int localPort, int remotePort)
+            throws CommandException {
+        try {
+            BalancedTunnel tunnel = new BalancedTunnel(client, pool, cache, policy, localPort, remotePort);
+            balancedTunnels.add(tunnel);
+            return tunnel;
+        } catch (IOException iE) {
+            throw new CommandException(String.format("Failed to listen on port %d", localPort), iE);
+        }
+    }
+
+    /**
+     * Keeps the opened tunnels following the pods of the cache, moving a tunnel to a replacement pod when its pod
+     * goes away.
+     */
+    public synchronized void supervise(PodCache cache) {
+        if (supervisor != null) {
+            supervisor.close();
+        }
+        supervisor = new TunnelSupervisor(cache, List.copyOf(tunnels));
+    }
+
+    /**
+     * Blocks until the engine is closed, printing tunnel statistics every {@code statsInterval} if it is positive.
+     */
+    public void awaitClose(Duration statsInterval) throws InterruptedException {
+        Printer.flush();
+        if (statsInterval.isZero() || statsInterval.isNegative()) {
+            closed.await();
+            return;
+        }
+        while (!closed.await(statsInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+            printStats();
+        }
+    }
+
+    public void printStats() {
+        Printer.print("%-6s %-50s %6s %8s %12s %12s %10s %10s %6s %6s %10s",
+                "LOCAL", "POD", "ACTIVE", "CONNS", "IN", "OUT", "AVG_CONN", "MAX_CONN", "ERRORS", "RECONN", "MAX_DOWN");
+        tunnels.forEach(tunnel -> printStats(tunnel.localPort(), tunnel.podName(), tunnel.stats()));
+        balancedTunnels.forEach(tunnel -> tunnel.backendStats()
+                .forEach((podName, stats) -> printStats(tunnel.localPort(), podName, stats)));
+        // Also printed on shutdown, when nothing flushes later
+        Printer.flush();
+    }
+
+    private static void printStats(int localPort, String podName, TunnelStats stats) {
+        Printer.record("%-6d %-50s %6d %8d %12d %12d %8.1fms %8.1fms %6d %6d %8.0fms", STATS_FIELDS,
+                localPort, podName, stats.activeConnections(), stats.connections(),
+                stats.bytesIn(), stats.bytesOut(), stats.averageConnectMillis(), stats.maxConnectMillis(),
+                stats.errors(), stats.reconnects(), stats.maxDowntimeMillis());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        if (supervisor != null) {
+            supervisor.close();
+        }
+        if (!tunnels.isEmpty() || !balancedTunnels.isEmpty()) {
+            printStats();
+        }
+        tunnels.forEach(Tunnel::close);
+        balancedTunnels.forEach(BalancedTunnel::close);
+        closed.countDown();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException shuttingDown) {
+                // The hook is already running and closes nothing twice
+            }
+        }
+    }
+
+}
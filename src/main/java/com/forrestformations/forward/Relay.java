@@ -0,0 +1,245 @@
+package com.forrestformations.forward;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.http.WebSocket;
+
+/**
+ * Relays one local connection over a port-forward websocket, speaking the {@value #PROTOCOL} channel framing:
+ * every binary message starts with a channel byte, data on channel 0 and error text on channel 1, and the first
+ * message of each channel only announces the port.
+ * <p>
+ * Local reads go into a pooled direct buffer right after the channel byte, which spares the socket read the JDK's
+ * temporary direct buffer; the client still copies each frame when it is sent, so the buffer is reused as soon as
+ * {@link WebSocket#send} returns. Messages from the pod are written to the socket by a dedicated virtual thread,
+ * and the next message is only requested once the previous one is written, which keeps a slow local client from
+ * buffering unbounded data.
+ */
+final class Relay implements WebSocket.Listener {
+
+    private static final String PROTOCOL = "v4.channel.k8s.io";
+    private static final byte DATA_CHANNEL = 0;
+    private static final byte ERROR_CHANNEL = 1;
+    private static final int PORT_ANNOUNCEMENTS = 2;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long MAX_QUEUED_BYTES = 4L * BufferPool.BUFFER_SIZE;
+    private static final long MIN_QUEUE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long MAX_QUEUE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final SocketChannel socket;
+    private final BufferPool pool;
+    private final TunnelStats stats;
+    private final String target;
+    private final long acceptedAt = System.nanoTime();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Semaphore inboundReady = new Semaphore(0);
+
+    private volatile ByteBuffer inbound;
+    private volatile WebSocket webSocket;
+    private int messagesRead;
+
+    private Relay(SocketChannel socket, BufferPool pool, TunnelStats stats, String target) {
+        this.socket = socket;
+        this.pool = pool;
+        this.stats = stats;
+        this.target = target;
+    }
+
+    static Relay start(KubernetesClient client, String namespace, String podName, int remotePort,
+                       SocketChannel socket, BufferPool pool, TunnelStats stats) {
+        Relay relay = new Relay(socket, pool, stats, namespace + "/" + podName + ":" + remotePort);
+        stats.opened();
+        Thread.ofVirtual().name("relay-in-" + podName).start(relay::pumpInbound);
+
+        String masterUrl = client.getMasterUrl().toString();
+        URI uri = URI.create(masterUrl + (masterUrl.endsWith("/") ? "" : "/") + "api/v1/namespaces/" + namespace
+                + "/pods/" + podName + "/portforward?ports=" + remotePort);
+        client.getHttpClient()
+                .newWebSocketBuilder()
+                .uri(uri)
+                .subprotocol(PROTOCOL)
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .buildAsync(relay)
+                .whenComplete((webSocket, failure) -> {
+                    if (failure != null) {
+                        relay.failConnect(failure);
+                        return;
+                    }
+                    relay.webSocket = webSocket;
+                    stats.connectedAfter(System.nanoTime() - relay.acceptedAt);
+                    Thread.ofVirtual().name("relay-out-" + podName).start(relay::pumpOutbound);
+                });
+        return relay;
+    }
+
+    boolean isOpen() {
+        return !closed.get();
+    }
+
+    /**
+     * @return whether the websocket to the pod is still being opened
+     */
+    boolean isConnecting() {
+        return webSocket == null && !closed.get();
+    }
+
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        stats.closed();
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // The connection is going away either way
+        }
+        WebSocket current = webSocket;
+        if (current != null) {
+            current.sendClose(1000, "Local connection closed");
+        }
+        inboundReady.release();
+    }
+
+    @Override
+    public void onMessage(WebSocket webSocket, ByteBuffer message) {
+        this.webSocket = webSocket;
+        if (++messagesRead <= PORT_ANNOUNCEMENTS || !message.hasRemaining()) {
+            webSocket.request();
+            return;
+        }
+
+        byte channel = message.get();
+        if (channel == ERROR_CHANNEL) {
+            fail("remote", new IOException(StandardCharsets.UTF_8.decode(message).toString()));
+            return;
+        }
+        if (channel != DATA_CHANNEL) {
+            fail("protocol", new IOException("Unexpected channel " + channel));
+            return;
+        }
+
+        // Hand the message to the inbound pump; request() is only called after it has been written
+        inbound = message;
+        inboundReady.release();
+    }
+
+    @Override
+    public void onClose(WebSocket webSocket, int code, String reason) {
+        close();
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        fail("websocket", error);
+    }
+
+    /**
+     * Local client → pod.
+     */
+    private void pumpOutbound() {
+        ByteBuffer buffer = pool.acquire();
+        try {
+            while (!closed.get()) {
+                buffer.clear();
+                buffer.put(DATA_CHANNEL);
+                int read = socket.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                if (read == 0) {
+                    continue;
+                }
+
+                WebSocket current = webSocket;
+                awaitQueueDrained(current);
+                if (!current.send(buffer.flip())) {
+                    fail("send", new IOException("Websocket closed or refused the data"));
+                    break;
+                }
+                stats.sent(read);
+            }
+        } catch (IOException iE) {
+            if (!closed.get()) {
+                fail("read", iE);
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.release(buffer);
+            close();
+        }
+    }
+
+    /**
+     * Holds back local reads while more than {@link #MAX_QUEUED_BYTES} wait to go out. The client has no callback for
+     * its queue draining, so each wait lasts about as long as the excess took to drain at the rate seen last.
+     */
+    private void awaitQueueDrained(WebSocket current) throws InterruptedException {
+        long queued = current.queueSize();
+        long wait = MIN_QUEUE_WAIT_NANOS;
+        while (queued > MAX_QUEUED_BYTES && !closed.get()) {
+            long before = System.nanoTime();
+            TimeUnit.NANOSECONDS.sleep(wait);
+            long now = current.queueSize();
+            long drained = queued - now;
+            wait = drained > 0 ? (now - MAX_QUEUED_BYTES) * (System.nanoTime() - before) / drained : wait * 2;
+            wait = Math.clamp(wait, MIN_QUEUE_WAIT_NANOS, MAX_QUEUE_WAIT_NANOS);
+            queued = now;
+        }
+    }
+
+    /**
+     * Pod → local client.
+     */
+    private void pumpInbound() {
+        try {
+            while (true) {
+                inboundReady.acquire();
+                ByteBuffer message = inbound;
+                inbound = null;
+                if (closed.get() || message == null) {
+                    return;
+                }
+
+                int bytes = message.remaining();
+                while (message.hasRemaining()) {
+                    socket.write(message);
+                }
+                stats.received(bytes);
+                webSocket.request();
+            }
+        } catch (IOException iE) {
+            fail("write", iE);
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            close();
+        }
+    }
+
+    private void failConnect(Throwable error) {
+        if (!closed.get()) {
+            stats.connectFailed();
+            Printer.error("Port forward to %s failed (connect): %s", target, error.getMessage());
+        }
+        close();
+    }
+
+    private void fail(String stage, Throwable error) {
+        if (closed.get()) {
+            return;
+        }
+        stats.failed();
+        Printer.error("Port forward to %s failed (%s): %s", target, stage, error.getMessage());
+        close();
+    }
+
+}
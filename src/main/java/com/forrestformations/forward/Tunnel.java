@@ -0,0 +1,155 @@
+package com.forrestformations.forward;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+/**
+ * A local port forwarded to one port of one pod. Every accepted connection is relayed over its own port-forward
+ * websocket of the shared client.
+ * <p>
+ * The local port outlives the pod: a {@link TunnelSupervisor} can move the tunnel to a replacement pod, and
+ * connections accepted while there is no pod wait up to {@link #TARGET_WAIT} for one.
+ */
+public final class Tunnel implements Closeable {
+
+    static final Duration TARGET_WAIT = Duration.ofSeconds(30);
+
+    private final KubernetesClient client;
+    private final int localPort;
+    private final int remotePort;
+    private final BufferPool pool;
+    private final TunnelStats stats = new TunnelStats();
+    private final ServerSocketChannel server;
+    private final Set<Relay> connections = ConcurrentHashMap.newKeySet();
+    private final Object targetLock = new Object();
+
+    private Pod target;
+    private volatile boolean closed;
+
+    Tunnel(KubernetesClient client, BufferPool pool, Pod pod, int localPort, int remotePort) throws IOException {
+        this.client = client;
+        this.target = pod;
+        this.localPort = localPort;
+        this.remotePort = remotePort;
+        this.pool = pool;
+        this.server = ServerSocketChannel.open()
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), localPort));
+        Thread.ofVirtual().name("tunnel-accept-" + localPort).start(this::accept);
+    }
+
+    /**
+     * @return the name of the pod the tunnel currently forwards to, or "-" while it has none
+     */
+    public String podName() {
+        Pod current = target();
+        return current == null ? "-" : current.getMetadata().getName();
+    }
+
+    public int localPort() {
+        return localPort;
+    }
+
+    public int remotePort() {
+        return remotePort;
+    }
+
+    public TunnelStats stats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(server);
+        connections.forEach(Relay::close);
+        connections.clear();
+        retarget(null);
+    }
+
+    Pod target() {
+        synchronized (targetLock) {
+            return target;
+        }
+    }
+
+    /**
+     * Points new connections at another pod, or at none. Established connections stay with the pod they started on.
+     */
+    void retarget(Pod pod) {
+        synchronized (targetLock) {
+            target = pod;
+            targetLock.notifyAll();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel socket = server.accept();
+                connections.removeIf(connection -> !connection.isOpen());
+                Pod current = target();
+                if (current != null) {
+                    relay(current, socket);
+                } else {
+                    Thread.ofVirtual().name("tunnel-wait-" + localPort).start(() -> relayWhenTargeted(socket));
+                }
+            } catch (ClosedChannelException cCE) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    stats.failed();
+                    Printer.error("Port %d: failed to forward connection to %s: %s", localPort, podName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void relayWhenTargeted(SocketChannel socket) {
+        long deadline = System.nanoTime() + TARGET_WAIT.toNanos();
+        Pod current;
+        synchronized (targetLock) {
+            long remaining;
+            while ((current = target) == null && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    targetLock.wait(Math.max(1, remaining / 1_000_000));
+                } catch (InterruptedException iE) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        if (current == null) {
+            stats.failed();
+            closeQuietly(socket);
+            return;
+        }
+        relay(current, socket);
+    }
+
+    private void relay(Pod pod, SocketChannel socket) {
+        connections.add(Relay.start(client, pod.getMetadata().getNamespace(), pod.getMetadata().getName(),
+                remotePort, socket, pool, stats));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Closing on shutdown, nothing left to do with the failure
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.forrestformations.forward;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic counters of one tunnel. Updates are contention-free so relays on many threads can record every read.
+ */
+public final class TunnelStats {
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final LongAdder connected = new LongAdder();
+    private final LongAccumulator maxConnectNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger consecutiveConnectFailures = new AtomicInteger();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAccumulator maxDowntimeNanos = new LongAccumulator(Math::max, 0);
+    private volatile long lastDowntimeNanos;
+
+    /**
+     * Bytes received from the pod and written to local clients.
+     */
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * Bytes read from local clients and sent to the pod.
+     */
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long connections() {
+        return connections.sum();
+    }
+
+    public int activeConnections() {
+        return active.get();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public double averageConnectMillis() {
+        long count = connected.sum();
+        return count == 0 ? 0 : (double) connectNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double maxConnectMillis() {
+        return (double) maxConnectNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * How often the tunnel was moved to a replacement pod.
+     */
+    public long reconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * Time between losing the previous pod and forwarding to its replacement, for the latest reconnect.
+     */
+    public double lastDowntimeMillis() {
+        return (double) lastDowntimeNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double maxDowntimeMillis() {
+        return (double) maxDowntimeNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    int consecutiveConnectFailures() {
+        return consecutiveConnectFailures.get();
+    }
+
+    void opened() {
+        connections.increment();
+        active.incrementAndGet();
+    }
+
+    void closed() {
+        active.decrementAndGet();
+    }
+
+    void connectedAfter(long nanos) {
+        consecutiveConnectFailures.set(0);
+        connectNanos.add(nanos);
+        connected.increment();
+        maxConnectNanos.accumulate(nanos);
+    }
+
+    void received(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    void sent(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    void failed() {
+        errors.increment();
+    }
+
+    void connectFailed() {
+        consecutiveConnectFailures.incrementAndGet();
+        errors.increment();
+    }
+
+    void resetConnectFailures(int count) {
+        consecutiveConnectFailures.set(count);
+    }
+
+    void reconnectedAfter(long downtimeNanos) {
+        consecutiveConnectFailures.set(0);
+        reconnects.increment();
+        lastDowntimeNanos = downtimeNanos;
+        maxDowntimeNanos.accumulate(downtimeNanos);
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.forrestformations.forward;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.forrestformations.Printer;
+import com.forrestformations.help.PodCache;
+import com.forrestformations.help.Pods;
+import io.fabric8.kubernetes.api.model.Pod;
+
+/**
+ * Keeps tunnels pointed at live pods. When a tunnel's pod is deleted, starts terminating, or keeps refusing
+ * connections, the tunnel is moved to a ready pod no other tunnel uses, on the same local port. Pods that refused
+ * connections are skipped for an exponentially growing period, and while a tunnel has no replacement the check is
+ * repeated with exponential backoff as well as on every pod change.
+ */
+final class TunnelSupervisor implements AutoCloseable {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration IDLE_CHECK = Duration.ofSeconds(5);
+    private static final int MAX_CONNECT_FAILURES = 3;
+
+    private final PodCache cache;
+    private final List<Tunnel> tunnels;
+    private final Map<Tunnel, Long> lostAt = new HashMap<>();
+    private final Map<String, Quarantine> quarantined = new HashMap<>();
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    TunnelSupervisor(PodCache cache, List<Tunnel> tunnels) {
+        this.cache = cache;
+        this.tunnels = tunnels;
+        this.thread = Thread.ofVirtual().name("tunnel-supervisor").start(this::supervise);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private void supervise() {
+        Duration backoff = MIN_BACKOFF;
+        try {
+            while (!closed) {
+                boolean settled = reconcile();
+                backoff = settled ? MIN_BACKOFF : min(backoff.multipliedBy(2), MAX_BACKOFF);
+                cache.awaitChange(settled ? IDLE_CHECK : backoff);
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true if every tunnel has a healthy pod
+     */
+    private boolean reconcile() {
+        long now = System.nanoTime();
+        quarantined.values().removeIf(quarantine -> quarantine.forgettable(now));
+        Map<String, Pod> live = cache.pods()
+                .stream()
+                .filter(pod -> pod.getMetadata().getDeletionTimestamp() == null)
+                .collect(Collectors.toMap(TunnelSupervisor::key, Function.identity()));
+
+        boolean settled = true;
+        for (Tunnel tunnel : tunnels) {
+            Pod target = tunnel.target();
+            if (target != null && isHealthy(tunnel, target, live)) {
+                continue;
+            }
+
+            if (target != null) {
+                detach(tunnel, target, live, now);
+            }
+
+            Optional<Pod> replacement = findReplacement(live, now);
+            if (replacement.isEmpty()) {
+                settled = false;
+                continue;
+            }
+
+            tunnel.retarget(replacement.get());
+            Long lost = lostAt.remove(tunnel);
+            long downtime = lost == null ? 0 : System.nanoTime() - lost;
+            tunnel.stats().reconnectedAfter(downtime);
+            Printer.print("Port %d: now forwarding to %s (down for %d ms)",
+                    tunnel.localPort(), tunnel.podName(), Duration.ofNanos(downtime).toMillis());
+        }
+        return settled;
+    }
+
+    private boolean isHealthy(Tunnel tunnel, Pod target, Map<String, Pod> live) {
+        return live.containsKey(key(target))
+                && tunnel.stats().consecutiveConnectFailures() < MAX_CONNECT_FAILURES;
+    }
+
+    private void detach(Tunnel tunnel, Pod target, Map<String, Pod> live, long now) {
+        String key = key(target);
+        if (live.containsKey(key)) {
+            Quarantine quarantine = quarantined.computeIfAbsent(key, k -> new Quarantine());
+            quarantine.extend(now);
+            Printer.error("Port %d: %s keeps refusing connections, skipping it for %d s",
+                    tunnel.localPort(), target.getMetadata().getName(), quarantine.period.toSeconds());
+        } else {
+            Printer.error("Port %d: %s is gone, waiting for a replacement", tunnel.localPort(),
+                    target.getMetadata().getName());
+        }
+        tunnel.retarget(null);
+        lostAt.put(tunnel, now);
+    }
+
+    private Optional<Pod> findReplacement(Map<String, Pod> live, long now) {
+        Set<String> inUse = tunnels.stream()
+                .map(Tunnel::target)
+                .filter(pod -> pod != null)
+                .map(TunnelSupervisor::key)
+                .collect(Collectors.toSet());
+
+        return live.values()
+                .stream()
+                .filter(Pods::isReady)
+                .filter(pod -> !inUse.contains(key(pod)))
+                .filter(pod -> {
+                    Quarantine quarantine = quarantined.get(key(pod));
+                    return quarantine == null || quarantine.expired(now);
+                })
+                .findFirst();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static String key(Pod pod) {
+        return pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName();
+    }
+
+    /**
+     * Doubles how long a pod is skipped every time it is caught refusing connections again.
+     */
+    private static final class Quarantine {
+
+        private Duration period = Duration.ZERO;
+        private long until;
+
+        void extend(long now) {
+            period = period.isZero() ? MIN_BACKOFF : min(period.multipliedBy(2), MAX_BACKOFF);
+            until = now + period.toNanos();
+        }
+
+        boolean expired(long now) {
+            return now - until >= 0;
+        }
+
+        /**
+         * @return true once the pod has behaved long enough for its next failure to start from the shortest period
+         */
+        boolean forgettable(long now) {
+            return now - until >= MAX_BACKOFF.toNanos();
+        }
+
+    }
+
+}
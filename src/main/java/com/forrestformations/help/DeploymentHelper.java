@@ -1,11 +1,34 @@
 package com.forrestformations.help;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
 
 public interface DeploymentHelper {
 
     Optional<String> findName(Pod pod);
 
+    /**
+     * Patches the named deployments concurrently, at most {@code parallelism} at a time.
+     * <p>
+     * {@code patcher} computes a strategic merge patch from the current deployment, or nothing when the deployment
+     * needs no change. Patches are only applied to the resourceVersion they were computed from; on a 409 conflict
+     * the deployment is read again and the patch recomputed.
+     *
+     * @return one result per name, in the order given
+     */
+    List<PatchResult> patch(Collection<String> names, Function<Deployment, Optional<Map<String, Object>>> patcher,
+                            int parallelism);
+
+    /**
+     * Starts following the rollouts of the named deployments in the client's namespace; time to ready is measured
+     * from this call.
+     */
+    RolloutWatch watchRollouts(Collection<String> names);
+
 }
@@ -1,41 +1,126 @@
 package com.forrestformations.help;
 
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
-import io.fabric8.kubernetes.api.model.OwnerReference;
+import com.forrestformations.profile.Profiler;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
 
 final class DeploymentHelperImpl extends KubeAwareHelper implements DeploymentHelper {
 
-    DeploymentHelperImpl(KubernetesClient client) {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Duration CONFLICT_BACKOFF = Duration.ofMillis(200);
+    private static final PatchContext STRATEGIC_MERGE = PatchContext.of(PatchType.STRATEGIC_MERGE);
+
+    private final OwnerResolver owners;
+
+    DeploymentHelperImpl(KubernetesClient client, OwnerResolver owners) {
         super(client);
+        this.owners = owners;
     }
 
     @Override
     public Optional<String> findName(Pod pod) {
-        Optional<OwnerReference> replicaSetOwnerRef = pod.getMetadata().getOwnerReferences().stream()
-                .filter(owner -> "ReplicaSet".equals(owner.getKind()))
-                .findFirst();
+        String key = "deployment of pod " + pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getUid();
+        return reads.read(key, () -> owners.resolve(pod)
+                .filter(owner -> owner.is(Owner.DEPLOYMENT))
+                .map(Owner::name));
+    }
+
+    @Override
+    public List<PatchResult> patch(Collection<String> names,
+                                   Function<Deployment, Optional<Map<String, Object>>> patcher, int parallelism) {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PatchResult>> results = names.stream()
+                    .map(name -> executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            return patch(name, patcher);
+                        } finally {
+                            permits.release();
+                        }
+                    }))
+                    .toList();
 
-        if (replicaSetOwnerRef.isEmpty()) {
-            return Optional.empty();
+            return results.stream()
+                    .map(DeploymentHelperImpl::await)
+                    .toList();
         }
+    }
 
-        String replicaSetName = replicaSetOwnerRef.get().getName();
-        ReplicaSet replicaSet = client.apps().replicaSets()
-                .withName(replicaSetName)
-                .get();
+    @Override
+    public RolloutWatch watchRollouts(Collection<String> names) {
+        RolloutWatchImpl watch = new RolloutWatchImpl(client, Set.copyOf(names));
+        watch.start();
+        return watch;
+    }
 
-        if (replicaSet == null) {
-            return Optional.empty();
+    private PatchResult patch(String name, Function<Deployment, Optional<Map<String, Object>>> patcher)
+            throws InterruptedException {
+        try (Profiler.Span span = Profiler.time("patch")) {
+            return patchWithRetries(name, patcher);
         }
+    }
+
+    private PatchResult patchWithRetries(String name, Function<Deployment, Optional<Map<String, Object>>> patcher)
+            throws InterruptedException {
+        RollableScalableResource<Deployment> resource = client.apps().deployments().withName(name);
+        // Not a shared read: a retry after a conflict needs a resourceVersion newer than the one it conflicted with
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Deployment deployment = resource.get();
+                if (deployment == null) {
+                    return PatchResult.failed(name, attempt, "not found");
+                }
 
-        return replicaSet.getMetadata().getOwnerReferences().stream()
-                .filter(owner -> "Deployment".equals(owner.getKind()))
-                .map(OwnerReference::getName)
-                .findFirst();
+                Optional<Map<String, Object>> patch = patcher.apply(deployment);
+                if (patch.isEmpty()) {
+                    return PatchResult.unchanged(name, attempt);
+                }
+
+                Map<String, Object> guarded = new LinkedHashMap<>(patch.get());
+                guarded.put("metadata", Map.of("resourceVersion", deployment.getMetadata().getResourceVersion()));
+                resource.patch(STRATEGIC_MERGE, client.getKubernetesSerialization().asJson(guarded));
+                return PatchResult.patched(name, attempt);
+            } catch (KubernetesClientException kCE) {
+                if (kCE.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt == MAX_ATTEMPTS) {
+                    return PatchResult.failed(name, attempt, kCE.getMessage());
+                }
+                Thread.sleep(CONFLICT_BACKOFF.multipliedBy(attempt));
+            } catch (RuntimeException runtime) {
+                return PatchResult.failed(name, attempt, runtime.getMessage());
+            }
+        }
+    }
+
+    private static PatchResult await(Future<PatchResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while patching deployments", iE);
+        } catch (ExecutionException eE) {
+            throw new IllegalStateException("Deployment patch failed", eE.getCause());
+        }
     }
 
 }
@@ -0,0 +1,56 @@
+package com.forrestformations.help;
+
+/**
+ * Fixed-size buffer of one pod's latest Events. An Event the server updates, bumping its count, replaces its earlier
+ * entry instead of taking a new slot.
+ */
+final class EventRing {
+
+    private final String[] uids;
+    private final String[] reasons;
+    private final int[] counts;
+    private final long[] lastSeenSeconds;
+    private int next;
+
+    EventRing(int capacity) {
+        uids = new String[capacity];
+        reasons = new String[capacity];
+        counts = new int[capacity];
+        lastSeenSeconds = new long[capacity];
+    }
+
+    void record(String uid, String reason, int count, long seenSeconds) {
+        int slot = indexOf(uid);
+        if (slot < 0) {
+            slot = next;
+            next = (next + 1) % uids.length;
+        }
+        uids[slot] = uid;
+        reasons[slot] = reason;
+        counts[slot] = count;
+        lastSeenSeconds[slot] = seenSeconds;
+    }
+
+    /**
+     * @return how many times Events with the reason occurred, counting only Events seen since the given time
+     */
+    int occurrences(String reason, long sinceSeconds) {
+        int total = 0;
+        for (int i = 0; i < uids.length; i++) {
+            if (uids[i] != null && reason.equals(reasons[i]) && lastSeenSeconds[i] >= sinceSeconds) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    private int indexOf(String uid) {
+        for (int i = 0; i < uids.length; i++) {
+            if (uid.equals(uids[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -5,9 +5,12 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 abstract class KubeAwareHelper {
 
     protected final KubernetesClient client;
+    // Shared by every helper of the client, so their identical reads in flight at once go out as one
+    protected final SingleFlight reads;
 
     KubeAwareHelper(KubernetesClient client) {
         this.client = client;
+        this.reads = SingleFlight.of(client);
     }
 
 }
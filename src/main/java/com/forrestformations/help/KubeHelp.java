@@ -19,7 +19,11 @@ public final class KubeHelp {
         }
 
         public DeploymentHelper deployments() {
-            return new DeploymentHelperImpl(client);
+            return new DeploymentHelperImpl(client, owners());
+        }
+
+        public OwnerResolver owners() {
+            return new OwnerResolverImpl(client);
         }
 
     }
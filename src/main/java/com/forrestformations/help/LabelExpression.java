@@ -0,0 +1,134 @@
+package com.forrestformations.help;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A label selector in the API server's syntax, e.g. {@code app=web,tier!=db,env in (prod,staging),!canary}, checked
+ * up front so a typo fails at argument parsing instead of as a 400 from each cluster. Expressions combine with
+ * {@link #and(LabelExpression)}.
+ */
+public final class LabelExpression {
+
+    private static final Pattern NAME = Pattern.compile("([A-Za-z0-9]([-A-Za-z0-9_.]{0,61}[A-Za-z0-9])?)?");
+    private static final Pattern PREFIX = Pattern.compile("[a-z0-9]([-a-z0-9.]{0,251}[a-z0-9])?");
+
+    private final List<String> requirements;
+
+    private LabelExpression(List<String> requirements) {
+        this.requirements = requirements;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the offending requirement
+     */
+    public static LabelExpression parse(String text) {
+        List<String> requirements = new ArrayList<>();
+        for (String requirement : splitRequirements(text)) {
+            requirements.add(normalize(requirement.trim()));
+        }
+        return new LabelExpression(List.copyOf(requirements));
+    }
+
+    public LabelExpression and(LabelExpression other) {
+        List<String> combined = new ArrayList<>(requirements);
+        combined.addAll(other.requirements);
+        return new LabelExpression(List.copyOf(combined));
+    }
+
+    boolean isEmpty() {
+        return requirements.isEmpty();
+    }
+
+    /**
+     * @return the selector as sent to the API server
+     */
+    @Override
+    public String toString() {
+        return String.join(",", requirements);
+    }
+
+    // Commas separate requirements except inside the value list of in and notin
+    private static List<String> splitRequirements(String text) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+            if (depth < 0 || depth > 1) {
+                throw new IllegalArgumentException("Unbalanced parentheses in label selector \"" + text + "\"");
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("Unbalanced parentheses in label selector \"" + text + "\"");
+        }
+        parts.add(text.substring(start));
+        return parts.stream().filter(part -> !part.isBlank()).toList();
+    }
+
+    private static String normalize(String requirement) {
+        if (requirement.startsWith("!")) {
+            return "!" + key(requirement.substring(1).trim(), requirement);
+        }
+
+        int open = requirement.indexOf('(');
+        if (open >= 0) {
+            String[] keyAndOperator = requirement.substring(0, open).trim().split("\\s+");
+            if (keyAndOperator.length != 2 || !requirement.endsWith(")")
+                    || !(keyAndOperator[1].equals("in") || keyAndOperator[1].equals("notin"))) {
+                throw invalid(requirement, "expected key in (values) or key notin (values)");
+            }
+            List<String> values = List.of(requirement.substring(open + 1, requirement.length() - 1).split(",", -1));
+            return key(keyAndOperator[0], requirement) + " " + keyAndOperator[1] + " (" + values.stream()
+                    .map(value -> value(value.trim(), requirement))
+                    .collect(Collectors.joining(",")) + ")";
+        }
+
+        for (String operator : List.of("!=", "==", "=")) {
+            int at = requirement.indexOf(operator);
+            if (at >= 0) {
+                String key = key(requirement.substring(0, at).trim(), requirement);
+                String value = value(requirement.substring(at + operator.length()).trim(), requirement);
+                return key + ("!=".equals(operator) ? "!=" : "=") + value;
+            }
+        }
+        if (requirement.contains("<") || requirement.contains(">")) {
+            throw invalid(requirement, "< and > are not label operators");
+        }
+        return key(requirement, requirement);
+    }
+
+    private static String key(String key, String requirement) {
+        int slash = key.indexOf('/');
+        String name = slash < 0 ? key : key.substring(slash + 1);
+        if (slash >= 0 && !PREFIX.matcher(key.substring(0, slash)).matches()) {
+            throw invalid(requirement, "bad key prefix \"" + key.substring(0, slash) + "\"");
+        }
+        if (name.isEmpty() || !NAME.matcher(name).matches()) {
+            throw invalid(requirement, "bad key \"" + key + "\"");
+        }
+        return key;
+    }
+
+    private static String value(String value, String requirement) {
+        if (!NAME.matcher(value).matches()) {
+            throw invalid(requirement, "bad value \"" + value + "\"");
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(String requirement, String reason) {
+        return new IllegalArgumentException("Invalid label requirement \"" + requirement + "\": " + reason);
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+
+/**
+ * Keeps what a helper builds from a kind of resource current: a list, then a watch from its resourceVersion, listing
+ * again whenever the watch is lost and backing off while that fails. Subclasses list, open the watch and take in its
+ * events; every change they make is counted, for callers waiting on one.
+ */
+abstract class ListWatcher<T> extends KubeAwareHelper implements Watcher<T> {
+
+    static final Duration RELIST_BACKOFF = Duration.ofSeconds(5);
+
+    private final String kind;
+    private final Object changeLock = new Object();
+
+    private volatile long changes;
+    private long observedChanges;
+    private volatile Watch watch;
+    private volatile boolean closed;
+
+    /**
+     * @param kind what is watched, as named in messages and thread names
+     */
+    ListWatcher(KubernetesClient client, String kind) {
+        super(client);
+        this.kind = kind;
+    }
+
+    /**
+     * Lists what is watched and takes it in, replacing what an earlier list left.
+     *
+     * @return the resourceVersion of the list
+     */
+    abstract String list();
+
+    /**
+     * Opens the watch, with this as its watcher.
+     */
+    abstract Watch watch(ListOptions options);
+
+    /**
+     * Reports a lost watch or a failed list. Printed by default.
+     */
+    void report(String problem) {
+        Printer.error("%s", problem);
+    }
+
+    /**
+     * Called each time a list in the background succeeded, clearing what was reported before.
+     */
+    void relisted() {
+    }
+
+    /**
+     * Blocks until there have been changes since the previous call, or the timeout elapses.
+     *
+     * @return true if there were changes
+     */
+    public boolean awaitChange(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (changeLock) {
+            long remaining;
+            while (changes == observedChanges && (remaining = deadline - System.nanoTime()) > 0) {
+                changeLock.wait(Math.max(1, remaining / 1_000_000));
+            }
+            boolean changed = changes != observedChanges;
+            observedChanges = changes;
+            return changed;
+        }
+    }
+
+    /**
+     * @return how many changes there have been, for callers polling rather than waiting
+     */
+    long changes() {
+        return changes;
+    }
+
+    final void markChanged() {
+        synchronized (changeLock) {
+            changes++;
+            changeLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void onClose(WatcherException cause) {
+        if (closed) {
+            return;
+        }
+        // 410 Gone means our resourceVersion was compacted away, any other failure means the client gave up
+        // reconnecting; either way only a fresh list brings the copy back in line with the server
+        if (!cause.isHttpGone()) {
+            report(kind + " watch closed: " + cause.getMessage());
+        }
+        relistInBackground();
+    }
+
+    public void close() {
+        closed = true;
+        Watch current = watch;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Lists and opens the watch on the calling thread, failing if the list does.
+     */
+    final void relist() {
+        String resourceVersion = list();
+        markChanged();
+
+        if (!closed) {
+            watch = watch(new ListOptionsBuilder()
+                    .withResourceVersion(resourceVersion)
+                    .withAllowWatchBookmarks(true)
+                    .build());
+        }
+    }
+
+    final void relistInBackground() {
+        Thread.ofVirtual().name(kind.toLowerCase() + "-relist").start(this::relistWithBackoff);
+    }
+
+    private void relistWithBackoff() {
+        while (!closed) {
+            try {
+                relist();
+                relisted();
+                return;
+            } catch (KubernetesClientException kCE) {
+                report(String.format("%s relist failed, retrying in %ds: %s", kind, RELIST_BACKOFF.toSeconds(),
+                        kCE.getMessage()));
+                try {
+                    Thread.sleep(RELIST_BACKOFF);
+                } catch (InterruptedException iE) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+}
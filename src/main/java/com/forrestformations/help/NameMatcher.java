@@ -0,0 +1,71 @@
+package com.forrestformations.help;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Pod names matching any include pattern, or any name when there are none, and no exclude pattern.
+ */
+public final class NameMatcher {
+
+    private static final NameMatcher ALL = new NameMatcher(new NamePattern[0], new NamePattern[0]);
+
+    private final NamePattern[] includes;
+    private final NamePattern[] excludes;
+
+    private NameMatcher(NamePattern[] includes, NamePattern[] excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    public static NameMatcher all() {
+        return ALL;
+    }
+
+    public static NameMatcher of(List<NamePattern> includes, List<NamePattern> excludes) {
+        // One match-all include makes the others irrelevant
+        NamePattern[] including = includes.stream().anyMatch(NamePattern::matchesAny) ?
+                new NamePattern[0] : includes.toArray(NamePattern[]::new);
+        return new NameMatcher(including, excludes.toArray(NamePattern[]::new));
+    }
+
+    public boolean matches(String name) {
+        for (NamePattern exclude : excludes) {
+            if (exclude.test(name)) {
+                return false;
+            }
+        }
+        if (includes.length == 0) {
+            return true;
+        }
+        for (NamePattern include : includes) {
+            if (include.test(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the only name that can match, which the API server can select on
+     */
+    Optional<String> exactName() {
+        return includes.length == 1 ? includes[0].exactName() : Optional.empty();
+    }
+
+    /**
+     * Describes the patterns for messages, e.g. {@code api-*, web-* excluding *-canary-*}.
+     */
+    @Override
+    public String toString() {
+        String included = includes.length == 0 ? "*" : join(includes);
+        return excludes.length == 0 ? included : included + " excluding " + join(excludes);
+    }
+
+    private static String join(NamePattern[] patterns) {
+        return Arrays.stream(patterns).map(NamePattern::toString).collect(Collectors.joining(", "));
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.forrestformations.help;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * One pod name pattern, compiled once. Regexes and globs that amount to an exact name, a literal prefix, suffix or
+ * substring are checked with plain string operations; anything else becomes a single {@link Pattern}.
+ * <p>
+ * {@link #parse(String)} reads a regex unless the pattern starts with {@code glob:}; {@code re:} may mark a regex
+ * explicitly. Globs are never guessed, since {@code api-*} or {@code pods?} are valid regexes too.
+ */
+public final class NamePattern implements Predicate<String> {
+
+    private static final String REGEX_PREFIX = "re:";
+    private static final String GLOB_PREFIX = "glob:";
+    private static final String REGEX_ANY = ".*";
+    private static final String REGEX_SYNTAX = "\\^$.|?*+()[]{}";
+
+    private enum Kind {ANY, EXACT, PREFIX, SUFFIX, CONTAINS, PATTERN}
+
+    private final String source;
+    private final Kind kind;
+    private final String literal;
+    private final Pattern pattern;
+
+    private NamePattern(String source, Kind kind, String literal, Pattern pattern) {
+        this.source = source;
+        this.kind = kind;
+        this.literal = literal;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the pattern is not a valid regex
+     */
+    public static NamePattern parse(String text) {
+        if (text.startsWith(REGEX_PREFIX)) {
+            return regex(text.substring(REGEX_PREFIX.length()), text);
+        }
+        if (text.startsWith(GLOB_PREFIX)) {
+            return glob(text.substring(GLOB_PREFIX.length()), text);
+        }
+        return regex(text, text);
+    }
+
+    public static NamePattern regex(String regex) {
+        return regex(regex, regex);
+    }
+
+    public static NamePattern glob(String glob) {
+        return glob(glob, glob);
+    }
+
+    @Override
+    public boolean test(String name) {
+        return switch (kind) {
+            case ANY -> true;
+            case EXACT -> name.equals(literal);
+            case PREFIX -> name.startsWith(literal);
+            case SUFFIX -> name.endsWith(literal);
+            case CONTAINS -> name.contains(literal);
+            case PATTERN -> pattern.matcher(name).matches();
+        };
+    }
+
+    boolean matchesAny() {
+        return kind == Kind.ANY;
+    }
+
+    /**
+     * @return the only name this pattern matches, which the API server can select on
+     */
+    Optional<String> exactName() {
+        return kind == Kind.EXACT ? Optional.of(literal) : Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static NamePattern regex(String regex, String source) {
+        String body = regex;
+        if (body.startsWith("^")) {
+            body = body.substring(1);
+        }
+        if (body.endsWith("$") && !body.endsWith("\\$")) {
+            body = body.substring(0, body.length() - 1);
+        }
+
+        if (body.equals(REGEX_ANY)) {
+            return new NamePattern(source, Kind.ANY, null, null);
+        }
+        boolean anyBefore = body.startsWith(REGEX_ANY);
+        // One .* may not count as both the leading and the trailing one
+        boolean anyAfter = body.endsWith(REGEX_ANY) && body.length() >= (anyBefore ? 2 : 1) * REGEX_ANY.length();
+        String middle = body.substring(anyBefore ? REGEX_ANY.length() : 0,
+                body.length() - (anyAfter ? REGEX_ANY.length() : 0));
+        String literal = unescape(middle);
+        if (literal != null && !literal.isEmpty()) {
+            return new NamePattern(source, kind(anyBefore, anyAfter), literal, null);
+        }
+
+        try {
+            return new NamePattern(source, Kind.PATTERN, null, Pattern.compile(regex));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex \"" + regex + "\": " + e.getDescription(), e);
+        }
+    }
+
+    private static NamePattern glob(String glob, String source) {
+        if (glob.chars().allMatch(c -> c == '*')) {
+            return new NamePattern(source, Kind.ANY, null, null);
+        }
+        boolean anyBefore = glob.startsWith("*");
+        boolean anyAfter = glob.endsWith("*");
+        String middle = glob.substring(anyBefore ? 1 : 0, glob.length() - (anyAfter ? 1 : 0));
+        if (middle.indexOf('*') < 0 && middle.indexOf('?') < 0) {
+            return new NamePattern(source, kind(anyBefore, anyAfter), middle, null);
+        }
+
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return new NamePattern(source, Kind.PATTERN, null, Pattern.compile(regex.toString()));
+    }
+
+    private static Kind kind(boolean anyBefore, boolean anyAfter) {
+        if (anyBefore && anyAfter) {
+            return Kind.CONTAINS;
+        }
+        return anyBefore ? Kind.SUFFIX : anyAfter ? Kind.PREFIX : Kind.EXACT;
+    }
+
+    /**
+     * @return the text a regex without any unescaped syntax matches, null if it has some
+     */
+    private static String unescape(String regex) {
+        StringBuilder literal = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    return null;
+                }
+                literal.append(regex.charAt(++i));
+            } else if (REGEX_SYNTAX.indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.forrestformations.help;
+
+/**
+ * The top-level workload controlling a pod, e.g. the Deployment behind its ReplicaSet.
+ */
+public record Owner(String kind, String namespace, String name) {
+
+    public static final String DEPLOYMENT = "Deployment";
+    public static final String REPLICA_SET = "ReplicaSet";
+    public static final String STATEFUL_SET = "StatefulSet";
+    public static final String DAEMON_SET = "DaemonSet";
+    public static final String JOB = "Job";
+    public static final String CRON_JOB = "CronJob";
+
+    public boolean is(String ownerKind) {
+        return ownerKind.equals(kind);
+    }
+
+}
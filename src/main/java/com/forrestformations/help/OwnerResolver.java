@@ -0,0 +1,15 @@
+package com.forrestformations.help;
+
+import java.util.Optional;
+
+import io.fabric8.kubernetes.api.model.Pod;
+
+public interface OwnerResolver {
+
+    /**
+     * Follows the pod's controller references up to the top-level workload: Pod → ReplicaSet → Deployment,
+     * Pod → Job → CronJob, or the StatefulSet/DaemonSet/other controller directly owning the pod.
+     */
+    Optional<Owner> resolve(Pod pod);
+
+}
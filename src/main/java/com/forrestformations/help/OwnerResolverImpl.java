@@ -0,0 +1,134 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.forrestformations.profile.Profiler;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+/**
+ * Resolves owners from ReplicaSets and Jobs listed once per namespace, so resolving many pods costs one list call
+ * per namespace and kind instead of one GET per pod. Listings are refreshed after {@link #TTL}; a name missing from
+ * the listing, e.g. a ReplicaSet created after it, falls back to a single GET.
+ */
+final class OwnerResolverImpl extends KubeAwareHelper implements OwnerResolver {
+
+    static final Duration TTL = Duration.ofSeconds(30);
+
+    private final Map<String, OwnerIndex> replicaSets = new ConcurrentHashMap<>();
+    private final Map<String, OwnerIndex> jobs = new ConcurrentHashMap<>();
+
+    OwnerResolverImpl(KubernetesClient client) {
+        super(client);
+    }
+
+    @Override
+    public Optional<Owner> resolve(Pod pod) {
+        try (Profiler.Span span = Profiler.time("owners")) {
+            return resolveOwner(pod);
+        }
+    }
+
+    private Optional<Owner> resolveOwner(Pod pod) {
+        String namespace = Optional.ofNullable(pod.getMetadata().getNamespace())
+                .orElseGet(client::getNamespace);
+        Optional<OwnerReference> podOwner = controllerOf(pod.getMetadata().getOwnerReferences());
+        if (podOwner.isEmpty()) {
+            return Optional.empty();
+        }
+
+        OwnerReference owner = podOwner.get();
+        Owner direct = new Owner(owner.getKind(), namespace, owner.getName());
+        return Optional.of(switch (owner.getKind()) {
+            case Owner.REPLICA_SET -> index(replicaSets, namespace, this::listReplicaSets)
+                    .parentOf(owner.getName(), name -> reads.read("replicaset " + namespace + "/" + name,
+                            () -> client.apps().replicaSets().inNamespace(namespace).withName(name).get()))
+                    .orElse(direct);
+            case Owner.JOB -> index(jobs, namespace, this::listJobs)
+                    .parentOf(owner.getName(), name -> reads.read("job " + namespace + "/" + name,
+                            () -> client.batch().v1().jobs().inNamespace(namespace).withName(name).get()))
+                    .orElse(direct);
+            default -> direct;
+        });
+    }
+
+    private List<? extends HasMetadata> listReplicaSets(String namespace) {
+        return reads.read("replicasets " + namespace,
+                () -> client.apps().replicaSets().inNamespace(namespace).list()).getItems();
+    }
+
+    private List<? extends HasMetadata> listJobs(String namespace) {
+        return reads.read("jobs " + namespace, () -> client.batch().v1().jobs().inNamespace(namespace).list())
+                .getItems();
+    }
+
+    private static OwnerIndex index(Map<String, OwnerIndex> indexes, String namespace,
+                                    Function<String, List<? extends HasMetadata>> lister) {
+        OwnerIndex current = indexes.get(namespace);
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        // List outside the map so other namespaces are not blocked; concurrent lists are shared by reads
+        OwnerIndex listed = new OwnerIndex(namespace, lister.apply(namespace));
+        return indexes.compute(namespace, (ns, latest) -> latest != null && latest != current
+                && !latest.isExpired() ? latest : listed);
+    }
+
+    private static Optional<OwnerReference> controllerOf(List<OwnerReference> owners) {
+        return owners.stream()
+                .filter(owner -> Boolean.TRUE.equals(owner.getController()))
+                .findFirst()
+                .or(() -> owners.stream().findFirst());
+    }
+
+    /**
+     * Controller references of the intermediate objects (ReplicaSets or Jobs) of one namespace, by object name.
+     */
+    private static final class OwnerIndex {
+
+        private static final Owner NONE = new Owner("", "", "");
+
+        private final String namespace;
+        private final Map<String, Owner> parents = new ConcurrentHashMap<>();
+        private final long expiresAt;
+
+        OwnerIndex(String namespace, List<? extends HasMetadata> items) {
+            this.namespace = namespace;
+            this.expiresAt = System.nanoTime() + TTL.toNanos();
+            items.forEach(this::add);
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+
+        Optional<Owner> parentOf(String name, Function<String, ? extends HasMetadata> fetch) {
+            Owner parent = parents.get(name);
+            if (parent == null) {
+                HasMetadata item = fetch.apply(name);
+                Owner fetched = item == null ? NONE : toParent(item);
+                parent = Optional.ofNullable(parents.putIfAbsent(name, fetched)).orElse(fetched);
+            }
+            return parent == NONE ? Optional.empty() : Optional.of(parent);
+        }
+
+        private void add(HasMetadata item) {
+            parents.put(item.getMetadata().getName(), toParent(item));
+        }
+
+        private Owner toParent(HasMetadata item) {
+            return controllerOf(item.getMetadata().getOwnerReferences())
+                    .map(owner -> new Owner(owner.getKind(), namespace, owner.getName()))
+                    .orElse(NONE);
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.forrestformations.help;
+
+/**
+ * Outcome of patching one deployment.
+ */
+public record PatchResult(String name, Status status, int attempts, String error) {
+
+    public enum Status {
+        PATCHED,
+        UNCHANGED,
+        FAILED
+    }
+
+    static PatchResult patched(String name, int attempts) {
+        return new PatchResult(name, Status.PATCHED, attempts, null);
+    }
+
+    static PatchResult unchanged(String name, int attempts) {
+        return new PatchResult(name, Status.UNCHANGED, attempts, null);
+    }
+
+    static PatchResult failed(String name, int attempts, String error) {
+        return new PatchResult(name, Status.FAILED, attempts, error);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.forrestformations.help;
+
+/**
+ * Trouble worth flagging next to a pod, from its recent Events and container statuses.
+ */
+public enum PodAlert {
+
+    /**
+     * Containers restarting over and over, Kubernetes backing off between attempts.
+     */
+    RESTART_STORM("CRASHLOOP"),
+
+    /**
+     * A container was killed for exceeding its memory limit.
+     */
+    OOM_KILLED("OOM"),
+
+    /**
+     * Liveness, readiness or startup probes failing.
+     */
+    PROBE_FAILING("PROBE");
+
+    private final String label;
+
+    PodAlert(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+}
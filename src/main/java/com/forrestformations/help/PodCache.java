@@ -0,0 +1,28 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.Pod;
+
+/**
+ * Local view of the matching pods, filled by one initial list and kept current by watch events.
+ */
+public interface PodCache extends AutoCloseable {
+
+    /**
+     * @return the cached pods ordered by namespace and name
+     */
+    List<Pod> pods();
+
+    /**
+     * Blocks until the cache has changed since the previous call, or the timeout elapses.
+     *
+     * @return true if there were changes
+     */
+    boolean awaitChange(Duration timeout) throws InterruptedException;
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,47 @@
+package com.forrestformations.help;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+final class PodCacheImpl extends PodMirror implements PodCache {
+
+    private static final Comparator<Pod> BY_NAMESPACE_AND_NAME = Comparator
+            .comparing((Pod pod) -> pod.getMetadata().getNamespace())
+            .thenComparing(pod -> pod.getMetadata().getName());
+
+    private final Map<String, Pod> podsByUid = new ConcurrentHashMap<>();
+
+    PodCacheImpl(KubernetesClient client, PodQuery query) {
+        super(client, query);
+    }
+
+    @Override
+    public List<Pod> pods() {
+        return podsByUid.values()
+                .stream()
+                .sorted(BY_NAMESPACE_AND_NAME)
+                .toList();
+    }
+
+    @Override
+    void store(Pod pod) {
+        podsByUid.put(pod.getMetadata().getUid(), pod);
+    }
+
+    @Override
+    boolean drop(String uid) {
+        return podsByUid.remove(uid) != null;
+    }
+
+    @Override
+    void retain(Set<String> uids) {
+        podsByUid.keySet().retainAll(uids);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.forrestformations.help;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Recent Events of the matching pods, kept current by a watch, in a bounded buffer per pod and for a bounded number
+ * of pods, so noisy clusters cannot grow it without limit.
+ */
+public interface PodEventLog extends AutoCloseable {
+
+    /**
+     * @param oomKilledSeconds when a container of the pod last finished OOM killed as its status reports, in epoch
+     *                         seconds, e.g. {@link PodTable.Snapshot#oomKilledSeconds}
+     * @return the alerts raised for the pod within the last few minutes
+     */
+    Set<PodAlert> alerts(String podUid, long oomKilledSeconds);
+
+    /**
+     * @return a counter that moves whenever an Event is recorded
+     */
+    long version();
+
+    /**
+     * @return why Events may be missing, empty while the watch works
+     */
+    Optional<String> problem();
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,178 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+/**
+ * Watches the Events whose involved object is a pod matching the query. At most {@link #EVENTS_PER_POD} Events are
+ * kept per pod and {@link #MAX_PODS} pods are tracked, the least recently updated dropped first.
+ */
+final class PodEventLogImpl extends ListWatcher<Event> implements PodEventLog {
+
+    static final Duration ALERT_WINDOW = Duration.ofMinutes(10);
+    static final int EVENTS_PER_POD = 16;
+    static final int MAX_PODS = 4096;
+
+    private static final int STORM_BACKOFFS = 3;
+    // The kubelet also reports image pull back-offs as BackOff, told apart only by the message
+    private static final String RESTART_BACKOFF = "BackOff";
+    private static final String RESTART_BACKOFF_MESSAGE = "Back-off restarting failed container";
+    private static final String OTHER_BACKOFF = "OtherBackOff";
+    private static final long PAGE_SIZE = 500;
+
+    private final PodQuery query;
+    private final Map<String, EventRing> ringsByPodUid = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EventRing> eldest) {
+            return size() > MAX_PODS;
+        }
+    };
+
+    private volatile String problem;
+
+    PodEventLogImpl(KubernetesClient client, PodQuery query) {
+        super(client, "Event");
+        this.query = query;
+    }
+
+    void start() {
+        relistInBackground();
+    }
+
+    @Override
+    public Set<PodAlert> alerts(String podUid, long oomKilledSeconds) {
+        long since = Instant.now().minus(ALERT_WINDOW).getEpochSecond();
+        Set<PodAlert> alerts = EnumSet.noneOf(PodAlert.class);
+        synchronized (ringsByPodUid) {
+            EventRing ring = ringsByPodUid.get(podUid);
+            if (ring != null) {
+                if (ring.occurrences(RESTART_BACKOFF, since) >= STORM_BACKOFFS) {
+                    alerts.add(PodAlert.RESTART_STORM);
+                }
+                if (ring.occurrences("Unhealthy", since) > 0) {
+                    alerts.add(PodAlert.PROBE_FAILING);
+                }
+                if (ring.occurrences("OOMKilling", since) + ring.occurrences("OOMKilled", since) > 0) {
+                    alerts.add(PodAlert.OOM_KILLED);
+                }
+            }
+        }
+        // The kubelet reports OOM kills in the container status rather than as a pod Event
+        if (oomKilledSeconds >= since) {
+            alerts.add(PodAlert.OOM_KILLED);
+        }
+        return alerts;
+    }
+
+    @Override
+    public long version() {
+        return changes();
+    }
+
+    @Override
+    public Optional<String> problem() {
+        return Optional.ofNullable(problem);
+    }
+
+    @Override
+    public void eventReceived(Action action, Event event) {
+        if (action == Action.ADDED || action == Action.MODIFIED) {
+            record(event);
+        }
+    }
+
+    // Reported rather than printed, the caller owns the screen
+    @Override
+    void report(String problem) {
+        this.problem = problem;
+    }
+
+    @Override
+    void relisted() {
+        problem = null;
+    }
+
+    /**
+     * Lists the Events again. The rings are kept: a listed Event replaces its earlier entry, and one that no longer
+     * exists ages out of the alert window, so alerts do not blink off after a lost watch.
+     */
+    @Override
+    String list() {
+        String continueToken = null;
+        String resourceVersion;
+        do {
+            String token = continueToken;
+            String key = "pod events " + (query.isAnyNamespace() ? "*" : client.getNamespace())
+                    + " limit=" + PAGE_SIZE + " continue=" + token;
+            EventList page = reads.read(key, () -> podEvents().list(new ListOptionsBuilder()
+                    .withLimit(PAGE_SIZE)
+                    .withContinue(token)
+                    .build()));
+            page.getItems().forEach(this::record);
+            continueToken = page.getMetadata().getContinue();
+            resourceVersion = page.getMetadata().getResourceVersion();
+        } while (continueToken != null && !continueToken.isEmpty());
+        return resourceVersion;
+    }
+
+    @Override
+    Watch watch(ListOptions options) {
+        return podEvents().watch(options, this);
+    }
+
+    private FilterWatchListDeletable<Event, EventList, Resource<Event>> podEvents() {
+        return (query.isAnyNamespace() ? client.v1().events().inAnyNamespace() : client.v1().events())
+                .withField("involvedObject.kind", "Pod");
+    }
+
+    private void record(Event event) {
+        ObjectReference pod = event.getInvolvedObject();
+        if (pod == null || pod.getUid() == null || !query.matchesName(pod.getName())) {
+            return;
+        }
+        long seen = lastSeen(event);
+        int count = event.getSeries() != null && event.getSeries().getCount() != null ? event.getSeries().getCount() :
+                event.getCount() != null ? event.getCount() : 1;
+        String reason = event.getReason();
+        if (RESTART_BACKOFF.equals(reason)
+                && (event.getMessage() == null || !event.getMessage().startsWith(RESTART_BACKOFF_MESSAGE))) {
+            reason = OTHER_BACKOFF;
+        }
+        // Names are unique among a namespace's Events too, for the odd Event listed without a uid
+        String id = event.getMetadata().getUid() != null ?
+                event.getMetadata().getUid() : event.getMetadata().getNamespace() + "/" + event.getMetadata().getName();
+        synchronized (ringsByPodUid) {
+            ringsByPodUid.computeIfAbsent(pod.getUid(), uid -> new EventRing(EVENTS_PER_POD))
+                    .record(id, reason, count, seen);
+        }
+        markChanged();
+    }
+
+    private static long lastSeen(Event event) {
+        String timestamp = event.getSeries() != null && event.getSeries().getLastObservedTime() != null ?
+                event.getSeries().getLastObservedTime().getTime() : event.getLastTimestamp();
+        if (timestamp == null && event.getEventTime() != null) {
+            timestamp = event.getEventTime().getTime();
+        }
+        if (timestamp == null) {
+            timestamp = event.getMetadata().getCreationTimestamp();
+        }
+        return Pods.epochSeconds(timestamp);
+    }
+
+}
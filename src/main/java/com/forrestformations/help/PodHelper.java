@@ -1,6 +1,8 @@
 package com.forrestformations.help;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import io.fabric8.kubernetes.api.model.ObjectMeta;
@@ -10,4 +12,33 @@ public interface PodHelper {
 
     List<Pod> find(Predicate<ObjectMeta> filter);
 
+    List<Pod> find(PodQuery query);
+
+    /**
+     * Streams the matching pods page by page, so memory is bounded by the page size rather than the namespace size.
+     * A listing whose continue token expires starts over, handing out pods of its earlier pages again.
+     */
+    void forEachPage(PodQuery query, Consumer<List<Pod>> consumer);
+
+    /**
+     * Lists the matching pods once and keeps them current through a watch, relisting when the watch expires.
+     */
+    PodCache watch(PodQuery query);
+
+    /**
+     * Like {@link #watch}, keeping only a table row per pod, for listings that show pods rather than act on them.
+     */
+    PodTableCache watchTable(PodQuery query);
+
+    /**
+     * Starts sampling usage of the pods in the client's namespace, or all namespaces for such a query, every
+     * interval, keeping the last {@code window} samples per pod.
+     */
+    PodMetricsSampler sampleMetrics(PodQuery query, Duration interval, int window);
+
+    /**
+     * Starts watching the Events of the matching pods, for alerts such as restart storms or OOM kills.
+     */
+    PodEventLog watchEvents(PodQuery query);
+
 }
@@ -1,8 +1,12 @@
 package com.forrestformations.help;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.forrestformations.profile.Profiler;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -15,12 +19,52 @@ final class PodHelperImpl extends KubeAwareHelper implements PodHelper {
 
     @Override
     public List<Pod> find(Predicate<ObjectMeta> filter) {
-        return client.pods()
-                .list()
-                .getItems()
-                .stream()
-                .filter(pod -> filter.test(pod.getMetadata()))
-                .toList();
+        List<Pod> pods = reads.read("pods " + client.getNamespace(), () -> client.pods().list()).getItems();
+        try (Profiler.Span span = Profiler.time("filter")) {
+            return pods.stream()
+                    .filter(pod -> filter.test(pod.getMetadata()))
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<Pod> find(PodQuery query) {
+        List<Pod> matches = new ArrayList<>();
+        new PodPager(client).forEachPage(query, matches::clear, matches::addAll);
+        return matches;
+    }
+
+    @Override
+    public void forEachPage(PodQuery query, Consumer<List<Pod>> consumer) {
+        new PodPager(client).forEachPage(query, consumer);
+    }
+
+    @Override
+    public PodCache watch(PodQuery query) {
+        PodCacheImpl cache = new PodCacheImpl(client, query);
+        cache.start();
+        return cache;
+    }
+
+    @Override
+    public PodTableCache watchTable(PodQuery query) {
+        PodTableCacheImpl cache = new PodTableCacheImpl(client, query);
+        cache.start();
+        return cache;
+    }
+
+    @Override
+    public PodMetricsSampler sampleMetrics(PodQuery query, Duration interval, int window) {
+        PodMetricsSamplerImpl sampler = new PodMetricsSamplerImpl(client, query.isAnyNamespace(), interval, window);
+        sampler.start();
+        return sampler;
+    }
+
+    @Override
+    public PodEventLog watchEvents(PodQuery query) {
+        PodEventLogImpl events = new PodEventLogImpl(client, query);
+        events.start();
+        return events;
     }
 
 }
@@ -0,0 +1,25 @@
+package com.forrestformations.help;
+
+import java.util.Optional;
+
+/**
+ * Samples pod usage from the metrics API on its own schedule, independent of how often pods are listed or drawn.
+ */
+public interface PodMetricsSampler extends AutoCloseable {
+
+    Optional<PodUsage> usage(String namespace, String name);
+
+    /**
+     * @return why usage is missing or stale, e.g. the cluster serves no metrics API, empty while sampling works
+     */
+    Optional<String> problem();
+
+    /**
+     * @return a counter that moves on every completed sample
+     */
+    long version();
+
+    @Override
+    void close();
+
+}
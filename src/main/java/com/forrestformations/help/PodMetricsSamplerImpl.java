@@ -0,0 +1,130 @@
+package com.forrestformations.help;
+
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+/**
+ * Lists PodMetrics for the whole namespace, or all namespaces, every interval and keeps a window of samples per pod.
+ * The metrics API has no label or name filtering beyond equality, so pods are joined with the caller's own listing
+ * by namespace and name when drawn.
+ */
+final class PodMetricsSamplerImpl extends KubeAwareHelper implements PodMetricsSampler {
+
+    private static final BigDecimal THOUSAND = BigDecimal.valueOf(1000);
+
+    private final boolean anyNamespace;
+    private final Duration interval;
+    private final int window;
+
+    // Replaced as a whole after each sample, so readers always see one consistent sample
+    private volatile Map<String, PodUsage> usage = Map.of();
+    private volatile boolean available = true;
+    private volatile String problem;
+    private volatile long version;
+    private volatile Thread sampler;
+
+    PodMetricsSamplerImpl(KubernetesClient client, boolean anyNamespace, Duration interval, int window) {
+        super(client);
+        this.anyNamespace = anyNamespace;
+        this.interval = interval;
+        this.window = window;
+    }
+
+    void start() {
+        sampler = Thread.ofVirtual().name("pod-metrics").start(this::run);
+    }
+
+    @Override
+    public Optional<PodUsage> usage(String namespace, String name) {
+        return Optional.ofNullable(usage.get(namespace + '/' + name));
+    }
+
+    @Override
+    public Optional<String> problem() {
+        return Optional.ofNullable(problem);
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public void close() {
+        Thread current = sampler;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    private void run() {
+        while (available && !Thread.currentThread().isInterrupted()) {
+            try {
+                sample();
+                problem = null;
+            } catch (KubernetesClientException kce) {
+                if (kce.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    // No metrics-server; nothing will change by asking again
+                    available = false;
+                    problem = "Metrics API not available";
+                    version++;
+                    return;
+                }
+                // Reported rather than printed, the caller owns the screen
+                problem = "Metrics sample failed: " + kce.getMessage();
+                version++;
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void sample() {
+        PodMetricsList list = reads.read("podmetrics " + (anyNamespace ? "*" : client.getNamespace()), () ->
+                anyNamespace ? client.top().pods().metrics() : client.top().pods().metrics(client.getNamespace()));
+        Map<String, PodUsage> previous = usage;
+        Map<String, PodUsage> next = new HashMap<>(list.getItems().size() * 2);
+        for (PodMetrics metrics : list.getItems()) {
+            long cpu = 0;
+            long memory = 0;
+            for (ContainerMetrics container : metrics.getContainers()) {
+                cpu += millis(container.getUsage().get("cpu"));
+                memory += units(container.getUsage().get("memory"));
+            }
+            String key = key(metrics.getMetadata());
+            PodUsage before = previous.get(key);
+            next.put(key, before == null ? PodUsage.first(cpu, memory) : before.append(cpu, memory, window));
+        }
+        // Pods missing from this sample are gone, or not running yet; either way their trend restarts
+        usage = next;
+        version++;
+    }
+
+    private static long millis(Quantity quantity) {
+        return quantity == null ? 0 : quantity.getNumericalAmount().multiply(THOUSAND).longValue();
+    }
+
+    private static long units(Quantity quantity) {
+        return quantity == null ? 0 : quantity.getNumericalAmount().longValue();
+    }
+
+    private static String key(ObjectMeta meta) {
+        return meta.getNamespace() + '/' + meta.getName();
+    }
+
+}
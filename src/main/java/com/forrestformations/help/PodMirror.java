@@ -0,0 +1,82 @@
+package com.forrestformations.help;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+
+/**
+ * Keeps a local copy of the matching pods current, listed page by page. Subclasses decide what they keep of each pod.
+ */
+abstract class PodMirror extends ListWatcher<Pod> {
+
+    protected final PodQuery query;
+
+    PodMirror(KubernetesClient client, PodQuery query) {
+        super(client, "Pod");
+        this.query = query;
+    }
+
+    void start() {
+        relist();
+    }
+
+    /**
+     * Adds or replaces a pod.
+     */
+    abstract void store(Pod pod);
+
+    /**
+     * @return true if the pod was there
+     */
+    abstract boolean drop(String uid);
+
+    /**
+     * Drops every pod whose uid is not in the given set.
+     */
+    abstract void retain(Set<String> uids);
+
+    @Override
+    public void eventReceived(Action action, Pod pod) {
+        String uid = pod.getMetadata().getUid();
+        switch (action) {
+            case ADDED, MODIFIED -> {
+                if (query.matches(pod.getMetadata())) {
+                    store(pod);
+                } else if (!drop(uid)) {
+                    return;
+                }
+            }
+            case DELETED -> {
+                if (!drop(uid)) {
+                    return;
+                }
+            }
+            default -> {
+                return;
+            }
+        }
+        markChanged();
+    }
+
+    @Override
+    String list() {
+        // Pods are stored page by page, so a relist never holds more than two pages of them at once
+        Set<String> listed = new HashSet<>();
+        String resourceVersion = new PodPager(client).forEachPage(query, listed::clear, page -> page.forEach(pod -> {
+            listed.add(pod.getMetadata().getUid());
+            store(pod);
+        }));
+        retain(listed);
+        return resourceVersion;
+    }
+
+    @Override
+    Watch watch(ListOptions options) {
+        return query.select(client).watch(options, this);
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.forrestformations.help;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import com.forrestformations.profile.Profiler;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+/**
+ * Lists pods with limit/continue pagination, fetching the next page while the caller handles the current one.
+ */
+final class PodPager extends KubeAwareHelper {
+
+    // A listing slower than the server's compaction interval would expire every time
+    private static final int MAX_RESTARTS = 3;
+
+    PodPager(KubernetesClient client) {
+        super(client);
+    }
+
+    /**
+     * Hands every page, reduced to the pods matching the query, to the consumer in list order. When the server has
+     * compacted away the snapshot being paged through, the continue token expires and the listing starts over from
+     * a fresh one, so the consumer may be handed a pod again.
+     *
+     * @return the resourceVersion of the listed snapshot, to start a watch from
+     */
+    String forEachPage(PodQuery query, Consumer<List<Pod>> consumer) {
+        return forEachPage(query, () -> { }, consumer);
+    }
+
+    /**
+     * Like {@link #forEachPage(PodQuery, Consumer)}, for consumers that rather forget the pages of an expired
+     * snapshot, whose pods may have been deleted since.
+     *
+     * @param restarted called before a listing that started over hands out its first page again
+     */
+    String forEachPage(PodQuery query, Runnable restarted, Consumer<List<Pod>> consumer) {
+        CompletableFuture<PodList> next = fetch(query, null);
+        String resourceVersion = null;
+        int restarts = 0;
+
+        while (next != null) {
+            PodList page;
+            try {
+                page = await(next);
+            } catch (KubernetesClientException kCE) {
+                if (kCE.getCode() != HttpURLConnection.HTTP_GONE || resourceVersion == null
+                        || restarts++ == MAX_RESTARTS) {
+                    throw kCE;
+                }
+                next = fetch(query, null);
+                resourceVersion = null;
+                restarted.run();
+                continue;
+            }
+            String token = page.getMetadata().getContinue();
+            if (resourceVersion == null) {
+                resourceVersion = page.getMetadata().getResourceVersion();
+            }
+
+            next = token == null || token.isEmpty() ? null : fetch(query, token);
+            List<Pod> matching;
+            try (Profiler.Span span = Profiler.time("filter")) {
+                matching = page.getItems()
+                        .stream()
+                        .filter(pod -> query.matches(pod.getMetadata()))
+                        .toList();
+            }
+            consumer.accept(matching);
+        }
+
+        return resourceVersion;
+    }
+
+    private CompletableFuture<PodList> fetch(PodQuery query, String token) {
+        String key = "pods " + query.selection(client) + " limit=" + query.pageSize() + " continue=" + token;
+        return CompletableFuture.supplyAsync(() -> reads.read(key, () -> query.select(client)
+                        .list(new ListOptionsBuilder()
+                                .withLimit((long) query.pageSize())
+                                .withContinue(token)
+                                .build())),
+                task -> Thread.ofVirtual().name("pod-page").start(task));
+    }
+
+    private static PodList await(CompletableFuture<PodList> page) {
+        try {
+            return page.join();
+        } catch (CompletionException cE) {
+            if (cE.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw cE;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.forrestformations.help;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+
+/**
+ * Describes which pods to fetch. Label and field selectors, and a single exact name, are sent to the API server;
+ * only what the server cannot evaluate, the other name patterns, is matched locally.
+ */
+public final class PodQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final NameMatcher names;
+    private final LabelExpression labels;
+    private final Map<String, String> fields;
+    private final boolean anyNamespace;
+    private final int pageSize;
+
+    private PodQuery(NameMatcher names, LabelExpression labels, Map<String, String> fields, boolean anyNamespace,
+                     int pageSize) {
+        this.names = names;
+        this.labels = labels;
+        this.fields = fields;
+        this.anyNamespace = anyNamespace;
+        this.pageSize = pageSize;
+    }
+
+    public static PodQuery all() {
+        return matching(NameMatcher.all());
+    }
+
+    public static PodQuery named(String regex) {
+        return regex == null ? all() : matching(NameMatcher.of(List.of(NamePattern.regex(regex)), List.of()));
+    }
+
+    public static PodQuery matching(NameMatcher names) {
+        return new PodQuery(names, null, Map.of(), false, DEFAULT_PAGE_SIZE);
+    }
+
+    public PodQuery withLabelSelector(String selector) {
+        return selector == null || selector.isBlank() ? this : withLabels(LabelExpression.parse(selector));
+    }
+
+    /**
+     * Adds label requirements, on top of any already set.
+     */
+    public PodQuery withLabels(LabelExpression expression) {
+        LabelExpression combined = labels == null ? expression : labels.and(expression);
+        return new PodQuery(names, combined.isEmpty() ? null : combined, fields, anyNamespace, pageSize);
+    }
+
+    public PodQuery withField(String key, String value) {
+        return withFields(Map.of(key, value));
+    }
+
+    public PodQuery withFields(Map<String, String> additional) {
+        Map<String, String> merged = new LinkedHashMap<>(fields);
+        merged.putAll(additional);
+        return new PodQuery(names, labels, Map.copyOf(merged), anyNamespace, pageSize);
+    }
+
+    public PodQuery inAnyNamespace() {
+        return new PodQuery(names, labels, fields, true, pageSize);
+    }
+
+    /**
+     * Sets how many pods are requested per list call; at most two pages are held in memory at once.
+     */
+    public PodQuery withPageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive, got " + size);
+        }
+        return new PodQuery(names, labels, fields, anyNamespace, size);
+    }
+
+    public boolean isAnyNamespace() {
+        return anyNamespace;
+    }
+
+    int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Applies the part of the query the API server could not, to a pod it returned.
+     */
+    public boolean matches(ObjectMeta metadata) {
+        return names.matches(metadata.getName());
+    }
+
+    boolean matchesName(String name) {
+        return names.matches(name);
+    }
+
+    FilterWatchListDeletable<Pod, PodList, PodResource> select(KubernetesClient client) {
+        FilterWatchListDeletable<Pod, PodList, PodResource> pods = anyNamespace ?
+                client.pods().inAnyNamespace() : client.pods();
+        if (labels != null) {
+            pods = pods.withLabelSelector(labels.toString());
+        }
+
+        Map<String, String> pushed = pushedFields();
+        return pushed.isEmpty() ? pods : pods.withFields(pushed);
+    }
+
+    /**
+     * What {@link #select} asks the API server for, as text; queries selecting alike list the same pods.
+     */
+    String selection(KubernetesClient client) {
+        return (anyNamespace ? "*" : client.getNamespace()) + " labels=" + (labels == null ? "" : labels)
+                + " fields=" + new TreeMap<>(pushedFields());
+    }
+
+    private Map<String, String> pushedFields() {
+        Map<String, String> pushed = new LinkedHashMap<>(fields);
+        names.exactName().ifPresent(name -> pushed.put("metadata.name", name));
+        return pushed;
+    }
+
+}
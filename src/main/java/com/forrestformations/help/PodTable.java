@@ -0,0 +1,266 @@
+package com.forrestformations.help;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+
+/**
+ * What a pod listing shows of each pod, kept in columns instead of as fabric8 pods: namespaces and statuses are
+ * shared strings, times are epoch seconds and container counts are ints. A pod is reduced to its row as it is listed
+ * or watched and can then be dropped, so 10k pods take a few MB rather than the hundreds their spec, status and
+ * managed fields would. Thread-safe; readers take {@link #snapshot snapshots} and render from those.
+ */
+public final class PodTable {
+
+    public static final long NEVER = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final String TERMINATING = "Terminating";
+    private static final String UNKNOWN = "Unknown";
+
+    private final Map<String, Integer> slotsByUid = new HashMap<>();
+    private final Map<String, String> shared = new HashMap<>();
+    private String[] uids = new String[INITIAL_CAPACITY];
+    private String[] namespaces = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] statuses = new String[INITIAL_CAPACITY];
+    private long[] createdSeconds = new long[INITIAL_CAPACITY];
+    private long[] oomKilledSeconds = new long[INITIAL_CAPACITY];
+    private int[] ready = new int[INITIAL_CAPACITY];
+    private int[] containers = new int[INITIAL_CAPACITY];
+    private int[] restarts = new int[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int slotCount;
+    private Snapshot snapshot;
+    private boolean changed = true;
+
+    /**
+     * Adds the pod's row, or updates it if the pod is already in the table.
+     */
+    public synchronized void put(Pod pod) {
+        ObjectMeta metadata = pod.getMetadata();
+        Integer existing = slotsByUid.get(metadata.getUid());
+        int slot = existing != null ? existing : allocate(metadata.getUid());
+        if (existing == null) {
+            // Names, namespaces and creation times never change for a uid
+            namespaces[slot] = share(metadata.getNamespace());
+            names[slot] = metadata.getName();
+            createdSeconds[slot] = Pods.epochSeconds(metadata.getCreationTimestamp());
+        }
+
+        String phase = pod.getStatus() == null || pod.getStatus().getPhase() == null ?
+                UNKNOWN : pod.getStatus().getPhase();
+        statuses[slot] = share(metadata.getDeletionTimestamp() == null ? phase : TERMINATING);
+        int readyCount = 0;
+        int containerCount = 0;
+        int restartCount = 0;
+        long lastOomKill = NEVER;
+        List<ContainerStatus> containerStatuses = pod.getStatus() == null ? null :
+                pod.getStatus().getContainerStatuses();
+        if (containerStatuses != null) {
+            for (ContainerStatus container : containerStatuses) {
+                containerCount++;
+                readyCount += Boolean.TRUE.equals(container.getReady()) ? 1 : 0;
+                restartCount += container.getRestartCount() == null ? 0 : container.getRestartCount();
+                ContainerStateTerminated last = container.getLastState() == null ? null :
+                        container.getLastState().getTerminated();
+                if (last != null && "OOMKilled".equals(last.getReason())) {
+                    lastOomKill = Math.max(lastOomKill, Pods.epochSeconds(last.getFinishedAt()));
+                }
+            }
+        }
+        ready[slot] = readyCount;
+        containers[slot] = containerCount;
+        restarts[slot] = restartCount;
+        oomKilledSeconds[slot] = lastOomKill;
+        changed = true;
+    }
+
+    public synchronized void putAll(List<Pod> pods) {
+        pods.forEach(this::put);
+    }
+
+    /**
+     * @return true if the pod was in the table
+     */
+    public synchronized boolean remove(String uid) {
+        Integer slot = slotsByUid.remove(uid);
+        if (slot == null) {
+            return false;
+        }
+        uids[slot] = null;
+        namespaces[slot] = null;
+        names[slot] = null;
+        statuses[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        changed = true;
+        return true;
+    }
+
+    /**
+     * Removes every pod whose uid is not in the given set.
+     */
+    public synchronized void retainAll(Set<String> retained) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (uids[slot] != null && !retained.contains(uids[slot])) {
+                remove(uids[slot]);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return slotsByUid.size();
+    }
+
+    /**
+     * @return the rows ordered by namespace and name, as of now; the same instance until the table changes
+     */
+    public synchronized Snapshot snapshot() {
+        if (!changed) {
+            return snapshot;
+        }
+        Integer[] order = slotsByUid.values().toArray(new Integer[0]);
+        Arrays.sort(order, Comparator.<Integer, String>comparing(slot -> namespaces[slot])
+                .thenComparing(slot -> names[slot]));
+
+        int size = order.length;
+        Snapshot next = new Snapshot(new String[size], new String[size], new String[size], new String[size],
+                new long[size], new long[size], new int[size], new int[size], new int[size]);
+        for (int row = 0; row < size; row++) {
+            int slot = order[row];
+            next.uids[row] = uids[slot];
+            next.namespaces[row] = namespaces[slot];
+            next.names[row] = names[slot];
+            next.statuses[row] = statuses[slot];
+            next.createdSeconds[row] = createdSeconds[slot];
+            next.oomKilledSeconds[row] = oomKilledSeconds[slot];
+            next.ready[row] = ready[slot];
+            next.containers[row] = containers[slot];
+            next.restarts[row] = restarts[slot];
+        }
+        snapshot = next;
+        changed = false;
+        return next;
+    }
+
+    private int allocate(String uid) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == uids.length) {
+                grow(slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        uids[slot] = uid;
+        slotsByUid.put(uid, slot);
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        uids = Arrays.copyOf(uids, capacity);
+        namespaces = Arrays.copyOf(namespaces, capacity);
+        names = Arrays.copyOf(names, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        createdSeconds = Arrays.copyOf(createdSeconds, capacity);
+        oomKilledSeconds = Arrays.copyOf(oomKilledSeconds, capacity);
+        ready = Arrays.copyOf(ready, capacity);
+        containers = Arrays.copyOf(containers, capacity);
+        restarts = Arrays.copyOf(restarts, capacity);
+    }
+
+    // Every pod of a namespace, and most pods of a cluster, share a handful of these
+    private String share(String value) {
+        return value == null ? null : shared.computeIfAbsent(value, key -> key);
+    }
+
+    /**
+     * The rows of a table at one moment, by index in namespace and name order. Never changes once taken.
+     */
+    public static final class Snapshot {
+
+        private final String[] uids;
+        private final String[] namespaces;
+        private final String[] names;
+        private final String[] statuses;
+        private final long[] createdSeconds;
+        private final long[] oomKilledSeconds;
+        private final int[] ready;
+        private final int[] containers;
+        private final int[] restarts;
+
+        private Snapshot(String[] uids, String[] namespaces, String[] names, String[] statuses, long[] createdSeconds,
+                         long[] oomKilledSeconds, int[] ready, int[] containers, int[] restarts) {
+            this.uids = uids;
+            this.namespaces = namespaces;
+            this.names = names;
+            this.statuses = statuses;
+            this.createdSeconds = createdSeconds;
+            this.oomKilledSeconds = oomKilledSeconds;
+            this.ready = ready;
+            this.containers = containers;
+            this.restarts = restarts;
+        }
+
+        public int size() {
+            return uids.length;
+        }
+
+        public String uid(int row) {
+            return uids[row];
+        }
+
+        public String namespace(int row) {
+            return namespaces[row];
+        }
+
+        public String name(int row) {
+            return names[row];
+        }
+
+        /**
+         * @return the pod's phase, or Terminating once it is being deleted
+         */
+        public String status(int row) {
+            return statuses[row];
+        }
+
+        public long createdSeconds(int row) {
+            return createdSeconds[row];
+        }
+
+        /**
+         * @return when a container of the pod last finished OOM killed, in epoch seconds, {@link #NEVER} if none did
+         */
+        public long oomKilledSeconds(int row) {
+            return oomKilledSeconds[row];
+        }
+
+        public int ready(int row) {
+            return ready[row];
+        }
+
+        public int containers(int row) {
+            return containers[row];
+        }
+
+        public int restarts(int row) {
+            return restarts[row];
+        }
+
+    }
+
+}
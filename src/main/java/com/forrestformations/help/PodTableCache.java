@@ -0,0 +1,25 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+
+/**
+ * Like {@link PodCache}, keeping only the {@link PodTable} row of each matching pod instead of the pod itself.
+ */
+public interface PodTableCache extends AutoCloseable {
+
+    /**
+     * @return the cached rows ordered by namespace and name
+     */
+    PodTable.Snapshot snapshot();
+
+    /**
+     * Blocks until the cache has changed since the previous call, or the timeout elapses.
+     *
+     * @return true if there were changes
+     */
+    boolean awaitChange(Duration timeout) throws InterruptedException;
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,36 @@
+package com.forrestformations.help;
+
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+final class PodTableCacheImpl extends PodMirror implements PodTableCache {
+
+    private final PodTable table = new PodTable();
+
+    PodTableCacheImpl(KubernetesClient client, PodQuery query) {
+        super(client, query);
+    }
+
+    @Override
+    public PodTable.Snapshot snapshot() {
+        return table.snapshot();
+    }
+
+    @Override
+    void store(Pod pod) {
+        table.put(pod);
+    }
+
+    @Override
+    boolean drop(String uid) {
+        return table.remove(uid);
+    }
+
+    @Override
+    void retain(Set<String> uids) {
+        table.retainAll(uids);
+    }
+
+}
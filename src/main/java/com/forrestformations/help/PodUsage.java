@@ -0,0 +1,50 @@
+package com.forrestformations.help;
+
+import java.util.Arrays;
+
+/**
+ * Immutable rolling window of one pod's CPU and memory samples, summed over its containers, oldest first.
+ */
+public final class PodUsage {
+
+    private final long[] cpuMillis;
+    private final long[] memoryBytes;
+
+    private PodUsage(long[] cpuMillis, long[] memoryBytes) {
+        this.cpuMillis = cpuMillis;
+        this.memoryBytes = memoryBytes;
+    }
+
+    static PodUsage first(long cpuMillis, long memoryBytes) {
+        return new PodUsage(new long[]{cpuMillis}, new long[]{memoryBytes});
+    }
+
+    /**
+     * @return a window with the sample appended, dropping the oldest once it holds {@code window} samples
+     */
+    PodUsage append(long cpu, long memory, int window) {
+        int keep = Math.min(cpuMillis.length, window - 1);
+        long[] cpus = Arrays.copyOfRange(cpuMillis, cpuMillis.length - keep, cpuMillis.length + 1);
+        long[] memories = Arrays.copyOfRange(memoryBytes, memoryBytes.length - keep, memoryBytes.length + 1);
+        cpus[keep] = cpu;
+        memories[keep] = memory;
+        return new PodUsage(cpus, memories);
+    }
+
+    public long cpuMillis() {
+        return cpuMillis[cpuMillis.length - 1];
+    }
+
+    public long memoryBytes() {
+        return memoryBytes[memoryBytes.length - 1];
+    }
+
+    public int samples() {
+        return cpuMillis.length;
+    }
+
+    public long cpuMillisAt(int sample) {
+        return cpuMillis[sample];
+    }
+
+}
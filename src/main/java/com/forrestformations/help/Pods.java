@@ -0,0 +1,41 @@
+package com.forrestformations.help;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import io.fabric8.kubernetes.api.model.Pod;
+
+public final class Pods {
+
+    private Pods() {
+    }
+
+    /**
+     * @return true if the pod is not being deleted and reports the Ready condition
+     */
+    public static boolean isReady(Pod pod) {
+        if (pod.getMetadata().getDeletionTimestamp() != null || pod.getStatus() == null
+                || pod.getStatus().getConditions() == null) {
+            return false;
+        }
+        return pod.getStatus()
+                .getConditions()
+                .stream()
+                .anyMatch(condition -> "Ready".equals(condition.getType()) && "True".equals(condition.getStatus()));
+    }
+
+    /**
+     * @return the API server timestamp in epoch seconds, 0 if it is missing or malformed
+     */
+    static long epochSeconds(String timestamp) {
+        if (timestamp == null) {
+            return 0;
+        }
+        try {
+            return Instant.parse(timestamp).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentCondition;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+
+/**
+ * Rollout progress of one deployment, judged the way {@code kubectl rollout status} does.
+ *
+ * @param replicas desired replicas
+ * @param updated replicas running the current template
+ * @param ready available replicas, old ones included while the rollout is in progress
+ * @param timeToReady from when the watch started to when the rollout completed, null until then
+ */
+public record RolloutStatus(String name, State state, int replicas, int updated, int ready, String message,
+                            Duration timeToReady) {
+
+    public enum State {
+        PENDING,
+        COMPLETE,
+        FAILED,
+        MISSING
+    }
+
+    static RolloutStatus missing(String name) {
+        return new RolloutStatus(name, State.MISSING, 0, 0, 0, "not found", null);
+    }
+
+    static RolloutStatus of(Deployment deployment, Duration timeToReady) {
+        String name = deployment.getMetadata().getName();
+        int replicas = orDefault(deployment.getSpec().getReplicas(), 1);
+        DeploymentStatus status = deployment.getStatus();
+        if (status == null) {
+            return new RolloutStatus(name, State.PENDING, replicas, 0, 0, "waiting for the status", null);
+        }
+        int updated = orDefault(status.getUpdatedReplicas(), 0);
+        int available = orDefault(status.getAvailableReplicas(), 0);
+        int current = orDefault(status.getReplicas(), 0);
+
+        // Until the controller has seen the patched spec, the status still describes the previous rollout
+        long generation = Objects.requireNonNullElse(deployment.getMetadata().getGeneration(), 0L);
+        if (Objects.requireNonNullElse(status.getObservedGeneration(), 0L) < generation) {
+            return new RolloutStatus(name, State.PENDING, replicas, updated, available,
+                    "waiting for the controller to observe the change", null);
+        }
+        if (deadlineExceeded(status.getConditions())) {
+            return new RolloutStatus(name, State.FAILED, replicas, updated, available, "progress deadline exceeded",
+                    null);
+        }
+        if (updated < replicas) {
+            return new RolloutStatus(name, State.PENDING, replicas, updated, available,
+                    String.format("%d of %d replicas updated", updated, replicas), null);
+        }
+        if (current > updated) {
+            return new RolloutStatus(name, State.PENDING, replicas, updated, available,
+                    String.format("%d old replicas terminating", current - updated), null);
+        }
+        if (available < updated) {
+            return new RolloutStatus(name, State.PENDING, replicas, updated, available,
+                    String.format("%d of %d updated replicas available", available, updated), null);
+        }
+        return new RolloutStatus(name, State.COMPLETE, replicas, updated, available, "rolled out", timeToReady);
+    }
+
+    public boolean isDone() {
+        return state != State.PENDING;
+    }
+
+    private static boolean deadlineExceeded(List<DeploymentCondition> conditions) {
+        return conditions != null && conditions.stream().anyMatch(condition -> "Progressing".equals(condition.getType())
+                && "ProgressDeadlineExceeded".equals(condition.getReason()));
+    }
+
+    private static int orDefault(Integer value, int otherwise) {
+        return value == null ? otherwise : value;
+    }
+
+}
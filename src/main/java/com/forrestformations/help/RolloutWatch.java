@@ -0,0 +1,27 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rollout progress of a set of deployments in one namespace, kept current by a single watch on the namespace's
+ * deployments rather than one poll per deployment.
+ */
+public interface RolloutWatch extends AutoCloseable {
+
+    /**
+     * @return one status per watched deployment, ordered by name
+     */
+    List<RolloutStatus> rollouts();
+
+    /**
+     * Blocks until a watched deployment has changed since the previous call, or the timeout elapses.
+     *
+     * @return true if there were changes
+     */
+    boolean awaitChange(Duration timeout) throws InterruptedException;
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,99 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+
+final class RolloutWatchImpl extends ListWatcher<Deployment> implements RolloutWatch {
+
+    private final Set<String> names;
+    // Built whole on each update, so a reader never sees a completed rollout without its time to ready
+    private final Map<String, RolloutStatus> statuses = new ConcurrentHashMap<>();
+    private final Map<String, Duration> readyAfter = new ConcurrentHashMap<>();
+    private final long started = System.nanoTime();
+
+    RolloutWatchImpl(KubernetesClient client, Set<String> names) {
+        super(client, "Deployment");
+        this.names = new TreeSet<>(names);
+    }
+
+    void start() {
+        relist();
+    }
+
+    @Override
+    public List<RolloutStatus> rollouts() {
+        return names.stream()
+                .map(name -> {
+                    RolloutStatus status = statuses.get(name);
+                    return status == null ? RolloutStatus.missing(name) : status;
+                })
+                .toList();
+    }
+
+    @Override
+    public void eventReceived(Action action, Deployment deployment) {
+        String name = deployment.getMetadata().getName();
+        if (!names.contains(name)) {
+            return;
+        }
+        switch (action) {
+            case ADDED, MODIFIED -> update(deployment);
+            case DELETED -> statuses.remove(name);
+            default -> {
+                return;
+            }
+        }
+        markChanged();
+    }
+
+    private void update(Deployment deployment) {
+        String name = deployment.getMetadata().getName();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        RolloutStatus status = RolloutStatus.of(deployment, readyAfter.getOrDefault(name, elapsed));
+        if (status.state() == RolloutStatus.State.COMPLETE) {
+            readyAfter.putIfAbsent(name, status.timeToReady());
+        }
+        statuses.put(name, status);
+    }
+
+    @Override
+    String list() {
+        String key = "deployments " + client.getNamespace()
+                + (names.size() == 1 ? " name=" + names.iterator().next() : "");
+        DeploymentList list = reads.read(key, () -> select().list());
+        statuses.keySet().retainAll(list.getItems().stream()
+                .map(deployment -> deployment.getMetadata().getName())
+                .toList());
+        list.getItems().stream()
+                .filter(deployment -> names.contains(deployment.getMetadata().getName()))
+                .forEach(this::update);
+        return list.getMetadata().getResourceVersion();
+    }
+
+    @Override
+    Watch watch(ListOptions options) {
+        return select().watch(options, this);
+    }
+
+    /**
+     * A single deployment is selected by name on the server; several share one watch on the whole namespace.
+     */
+    private FilterWatchListDeletable<Deployment, DeploymentList, RollableScalableResource<Deployment>> select() {
+        return names.size() == 1 ?
+                client.apps().deployments().withField("metadata.name", names.iterator().next()) :
+                client.apps().deployments();
+    }
+
+}
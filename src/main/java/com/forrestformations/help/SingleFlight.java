@@ -0,0 +1,66 @@
+package com.forrestformations.help;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.http.HttpClient;
+
+/**
+ * Collapses identical reads that are in flight at the same time into one API call, whose result every caller
+ * shares; callers must treat it as read-only. Nothing is kept once the call returns, so a caller joining a call in
+ * flight gets an answer at most that call's duration old. One instance serves every client sharing an HTTP
+ * client, namespaced views of it included, which in the daemon spans concurrent commands.
+ */
+final class SingleFlight {
+
+    private static final Map<HttpClient, SingleFlight> SHARED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    static SingleFlight of(KubernetesClient client) {
+        return SHARED.computeIfAbsent(client.getHttpClient(), key -> new SingleFlight());
+    }
+
+    /**
+     * @param key what is read, e.g. the resource path and query; equal keys must mean equal requests
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(String key, Supplier<T> call) {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+        try {
+            T result = call.get();
+            own.complete(result);
+            return result;
+        } catch (Throwable failure) {
+            own.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException cE) {
+            if (cE.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cE.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw cE;
+        }
+    }
+
+}
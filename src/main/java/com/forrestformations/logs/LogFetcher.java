@@ -0,0 +1,257 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.Loggable;
+import io.fabric8.kubernetes.client.dsl.TailPrettyLoggable;
+import io.fabric8.kubernetes.client.dsl.TimeTailPrettyLoggable;
+
+/**
+ * Pulls the logs of many containers into a {@link LogStore} at once. A container already in the store is fetched
+ * with {@code sinceTime} set to its newest stored line, so only what is new crosses the network; a new one is fetched
+ * from {@code sinceSeconds} back, optionally capped by {@code tailLines}. Lines are stored whole up to
+ * {@link #MAX_LINE_LENGTH}, one longer than a block getting a block of its own.
+ */
+public final class LogFetcher {
+
+    /**
+     * Most bytes stored of a line, the rest of a longer one is dropped and counted as truncated.
+     */
+    public static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int ENTRY_HEADER = Long.BYTES + Integer.BYTES;
+
+    /**
+     * @param containers containers fetched
+     * @param failed containers whose logs could not be fetched
+     * @param lines lines stored
+     * @param bytes log bytes received
+     * @param truncated lines stored cut at {@link #MAX_LINE_LENGTH}
+     */
+    public record Summary(int containers, int failed, long lines, long bytes, long truncated) {
+    }
+
+    private final KubernetesClient client;
+    private final LogStore store;
+    private final int parallelism;
+
+    public LogFetcher(KubernetesClient client, LogStore store, int parallelism) {
+        this.client = client;
+        this.store = store;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Fetches the containers of the pods, at most {@code parallelism} at a time.
+     *
+     * @param containers the containers to fetch, all of them when empty
+     * @param since how far back to go for containers not in the store yet
+     * @param tailLines most lines to fetch per container, negative for no limit
+     */
+    public Summary fetch(List<Pod> pods, Set<String> containers, Duration since, int tailLines)
+            throws InterruptedException {
+        List<Source> sources = new ArrayList<>();
+        for (Pod pod : pods) {
+            if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+                continue;
+            }
+            for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+                if (status.getContainerID() != null
+                        && (containers.isEmpty() || containers.contains(status.getName()))) {
+                    sources.add(new Source(pod.getMetadata().getNamespace(), pod.getMetadata().getName(),
+                            status.getName()));
+                }
+            }
+        }
+
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lines = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong truncated = new AtomicLong();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Source source : sources) {
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        fetch(source, since, tailLines, lines, bytes, truncated);
+                    } catch (IOException | KubernetesClientException e) {
+                        failed.incrementAndGet();
+                        Printer.error("Cannot fetch %s: %s", source.name(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return new Summary(sources.size(), failed.get(), lines.get(), bytes.get(), truncated.get());
+    }
+
+    private void fetch(Source source, Duration since, int tailLines, AtomicLong lines, AtomicLong bytes,
+                       AtomicLong truncated) throws IOException {
+        long after = store.lastTimestamp(source.name());
+        TimeTailPrettyLoggable loggable = client.pods()
+                .inNamespace(source.namespace())
+                .withName(source.pod())
+                .inContainer(source.container())
+                .usingTimestamps();
+        TailPrettyLoggable window = after != LogTimestamps.NONE ?
+                loggable.sinceTime(LogTimestamps.format(after)) :
+                loggable.sinceSeconds((int) Math.max(1, since.toSeconds()));
+        Loggable request = tailLines >= 0 ? window.tailingLines(tailLines) : window;
+
+        BlockWriter writer = new BlockWriter(store, store.sourceId(source.name()));
+        LogLine line = new LogLine(MAX_LINE_LENGTH);
+        byte[] buffer = new byte[READ_BUFFER];
+        long lastTimestamp = after;
+        try (InputStream in = request.getLogInputStream()) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                bytes.addAndGet(count);
+                int start = 0;
+                for (int i = 0; i < count; i++) {
+                    if (buffer[i] == '\n') {
+                        line.append(buffer, start, i - start);
+                        lastTimestamp = store(writer, line, after, lastTimestamp, truncated);
+                        line.clear();
+                        start = i + 1;
+                    }
+                }
+                line.append(buffer, start, count - start);
+            }
+            if (line.length > 0) {
+                store(writer, line, after, lastTimestamp, truncated);
+            }
+        } finally {
+            lines.addAndGet(writer.close());
+        }
+    }
+
+    /**
+     * @return the stamp of the line, or of the previous one if it has none
+     */
+    private static long store(BlockWriter writer, LogLine line, long after, long previous, AtomicLong truncated)
+            throws IOException {
+        int stampEnd = LogTimestamps.stampEnd(line.bytes, 0, line.length);
+        long timestamp = stampEnd < 0 ? previous : LogTimestamps.parse(line.bytes, 0, stampEnd);
+        // sinceTime is inclusive, so the newest stored line comes back first
+        if (timestamp == LogTimestamps.NONE || (stampEnd >= 0 && timestamp <= after)) {
+            return previous;
+        }
+        int textStart = stampEnd + 1;
+        writer.add(timestamp, line.bytes, textStart, line.length - textStart);
+        if (line.truncated) {
+            truncated.incrementAndGet();
+        }
+        return timestamp;
+    }
+
+    private record Source(String namespace, String pod, String container) {
+
+        String name() {
+            return namespace + "/" + pod + "/" + container;
+        }
+
+    }
+
+    /**
+     * Collects the lines of one source into blocks and deflates every full block into the store. A line too long for
+     * a block is given one of its own size.
+     */
+    private static final class BlockWriter {
+
+        private final LogStore store;
+        private final int sourceId;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private ByteBuffer block = newBlock(BLOCK_SIZE);
+        private byte[] deflated = new byte[BLOCK_SIZE / 2];
+        private int lines;
+        private long stored;
+        private long firstTimestamp;
+        private long lastTimestamp;
+
+        BlockWriter(LogStore store, int sourceId) {
+            this.store = store;
+            this.sourceId = sourceId;
+        }
+
+        void add(long timestamp, byte[] bytes, int offset, int length) throws IOException {
+            if (block.remaining() < ENTRY_HEADER + length) {
+                flush();
+                if (block.capacity() < ENTRY_HEADER + length) {
+                    block = newBlock(ENTRY_HEADER + length);
+                }
+            }
+            if (lines == 0) {
+                firstTimestamp = timestamp;
+            }
+            block.putLong(timestamp).putInt(length).put(bytes, offset, length);
+            lastTimestamp = timestamp;
+            lines++;
+        }
+
+        /**
+         * @return the lines stored
+         */
+        long close() throws IOException {
+            try {
+                flush();
+                return stored;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (lines == 0) {
+                return;
+            }
+            deflater.reset();
+            deflater.setInput(block.array(), 0, block.position());
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == deflated.length) {
+                    deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                }
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            store.append(new LogSegment.Block(sourceId, lines, firstTimestamp, lastTimestamp, length,
+                    block.position()), ByteBuffer.wrap(deflated, 0, length));
+            stored += lines;
+            lines = 0;
+            if (block.capacity() > BLOCK_SIZE) {
+                block = newBlock(BLOCK_SIZE);
+            } else {
+                block.clear();
+            }
+        }
+
+        private static ByteBuffer newBlock(int size) {
+            return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+    }
+
+}
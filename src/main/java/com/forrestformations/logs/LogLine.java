@@ -0,0 +1,59 @@
+package com.forrestformations.logs;
+
+import java.util.Arrays;
+
+/**
+ * One reusable slot of a {@link LogRing}: the raw bytes of a line as the API server sent it, timestamp included, but
+ * without the newline.
+ */
+final class LogLine {
+
+    static final int MAX_LENGTH = 16 * 1024;
+    private static final int INITIAL_LENGTH = 256;
+
+    private final int maxLength;
+    byte[] bytes = new byte[INITIAL_LENGTH];
+    int length;
+    // Where the message starts, after the timestamp and its separating space
+    int textStart;
+    long timestampNanos;
+    long arrivedNanos;
+    // Whether part of the line was dropped
+    boolean truncated;
+
+    LogLine() {
+        this(MAX_LENGTH);
+    }
+
+    /**
+     * @param maxLength most bytes kept of a line
+     */
+    LogLine(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    void clear() {
+        length = 0;
+        textStart = 0;
+        truncated = false;
+    }
+
+    /**
+     * Appends up to the maximum length in total, dropping the rest of an overlong line and marking it truncated.
+     */
+    void append(byte[] source, int offset, int count) {
+        int kept = Math.min(count, maxLength - length);
+        if (kept < count) {
+            truncated = true;
+        }
+        if (kept <= 0) {
+            return;
+        }
+        if (length + kept > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(maxLength, Math.max(bytes.length * 2, length + kept)));
+        }
+        System.arraycopy(source, offset, bytes, length, kept);
+        length += kept;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.forrestformations.logs;
+
+import java.time.Instant;
+
+/**
+ * A stored log line found by {@link LogStore#search}.
+ *
+ * @param source the {@code namespace/pod/container} the line came from
+ */
+public record LogMatch(Instant timestamp, String source, String line) {
+}
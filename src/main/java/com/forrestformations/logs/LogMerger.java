@@ -0,0 +1,181 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the lines of all sources in timestamp order. The oldest waiting line is written once every open source has
+ * a line waiting, so nothing older can still arrive. Otherwise it waits {@link #MERGE_DELAY} for quiet sources, longer
+ * while an empty source is still streaming and so may be lagging behind, but never past {@link #MAX_HOLD}; and it is
+ * written at once when any ring is filling up, so one chatty pod never stalls on a quiet one. Output goes through one
+ * buffer that is flushed whenever the merger runs out of lines to write.
+ */
+final class LogMerger {
+
+    private static final long MERGE_DELAY = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long MAX_HOLD = TimeUnit.SECONDS.toNanos(2);
+    private static final long IDLE_WAIT = TimeUnit.SECONDS.toNanos(1);
+    private static final int OUTPUT_BUFFER = 64 * 1024;
+
+    private final List<LogSource> sources = new CopyOnWriteArrayList<>();
+    private final OutputStream out;
+    private final boolean timestamps;
+    private final byte[] buffer = new byte[OUTPUT_BUFFER];
+
+    private int buffered;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+    private volatile Thread thread;
+
+    LogMerger(OutputStream out, boolean timestamps) {
+        this.out = out;
+        this.timestamps = timestamps;
+    }
+
+    void add(LogSource source) {
+        sources.add(source);
+        wake();
+    }
+
+    /**
+     * Unparks the merger if it is waiting for lines; cheap enough to call for every line.
+     */
+    void wake() {
+        if (waiting) {
+            Thread current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Merges until closed, then writes out whatever is left.
+     *
+     * @throws IOException if the output can no longer be written, for example because its reader went away
+     */
+    void run() throws IOException {
+        thread = Thread.currentThread();
+        try {
+            while (!closed) {
+                if (!writeNext(false)) {
+                    // Announce the wait before looking once more, so a line published meanwhile unparks us
+                    waiting = true;
+                    if (!writeNext(false)) {
+                        flush();
+                        LockSupport.parkNanos(this, waitNanos());
+                    }
+                    waiting = false;
+                }
+            }
+            while (writeNext(true)) {
+                // Drain what was read before closing
+            }
+            flush();
+        } finally {
+            thread = null;
+        }
+    }
+
+    /**
+     * @return true if a line was written
+     */
+    private boolean writeNext(boolean draining) throws IOException {
+        long now = System.nanoTime();
+        LogSource next = null;
+        LogLine nextLine = null;
+        boolean complete = true;
+        boolean crowded = false;
+        boolean streaming = false;
+        long oldestArrival = Long.MAX_VALUE;
+
+        for (LogSource source : sources) {
+            LogLine head = source.ring().peek();
+            if (head == null) {
+                if (!source.isFinished()) {
+                    complete = false;
+                    streaming |= now - source.lastArrival() < MERGE_DELAY;
+                } else if (source.ring().peek() == null) {
+                    sources.remove(source);
+                }
+                continue;
+            }
+            crowded |= source.ring().isCrowded();
+            oldestArrival = Math.min(oldestArrival, head.arrivedNanos);
+            if (nextLine == null || head.timestampNanos < nextLine.timestampNanos) {
+                next = source;
+                nextLine = head;
+            }
+        }
+
+        long waited = now - oldestArrival;
+        boolean due = waited >= MAX_HOLD || (waited >= MERGE_DELAY && !streaming);
+        if (nextLine == null || !(draining || complete || crowded || due)) {
+            return false;
+        }
+        write(next.prefix(), 0, next.prefix().length);
+        int from = timestamps ? 0 : nextLine.textStart;
+        write(nextLine.bytes, from, nextLine.length - from);
+        write((byte) '\n');
+        next.ring().release();
+        return true;
+    }
+
+    private long waitNanos() {
+        long oldestArrival = Long.MAX_VALUE;
+        for (LogSource source : sources) {
+            LogLine head = source.ring().peek();
+            if (head != null) {
+                oldestArrival = Math.min(oldestArrival, head.arrivedNanos);
+            }
+        }
+        if (oldestArrival == Long.MAX_VALUE) {
+            return IDLE_WAIT;
+        }
+        long waited = System.nanoTime() - oldestArrival;
+        // Past the merge delay, lines from a streaming source wake us, and a source stops counting as streaming
+        // a merge delay after its last line
+        long remaining = waited < MERGE_DELAY ? MERGE_DELAY - waited : Math.min(MERGE_DELAY, MAX_HOLD - waited);
+        return Math.max(1, remaining);
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - buffered) {
+            flush();
+            if (length > buffer.length) {
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, buffered, length);
+        buffered += length;
+    }
+
+    private void write(byte b) throws IOException {
+        if (buffered == buffer.length) {
+            flush();
+        }
+        buffer[buffered++] = b;
+    }
+
+    private void flush() throws IOException {
+        if (buffered > 0) {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+        out.flush();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.forrestformations.logs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded queue of reusable lines between one stream reader and the merger. Slots are recycled rather than allocated
+ * per line, and a full ring parks the reader, which stops consuming the HTTP body and so pushes back on the API
+ * server instead of growing the heap.
+ */
+final class LogRing {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final LogLine[] slots;
+    private final int mask;
+
+    // Only the merger moves head and only the reader moves tail
+    private volatile long head;
+    private volatile long tail;
+    private volatile Thread parkedReader;
+
+    LogRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new LogLine[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogLine();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Waits for a free slot and hands it out cleared, for the reader to fill and {@link #publish()}.
+     */
+    LogLine claim() throws InterruptedException {
+        while (tail - head == slots.length) {
+            parkedReader = Thread.currentThread();
+            if (tail - head == slots.length) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            parkedReader = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        LogLine line = slots[(int) (tail & mask)];
+        line.clear();
+        return line;
+    }
+
+    void publish() {
+        tail = tail + 1;
+    }
+
+    /**
+     * @return the oldest published line, or null if there is none; it stays valid until {@link #release()}
+     */
+    LogLine peek() {
+        long current = head;
+        return current == tail ? null : slots[(int) (current & mask)];
+    }
+
+    void release() {
+        head = head + 1;
+        Thread reader = parkedReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    /**
+     * @return true once at least three quarters of the slots are taken
+     */
+    boolean isCrowded() {
+        return (tail - head) * 4 >= slots.length * 3L;
+    }
+
+}
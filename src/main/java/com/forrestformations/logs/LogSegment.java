@@ -0,0 +1,160 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One data file of deflated blocks plus its index file of fixed-size block records. Every block holds lines of a
+ * single source, so a search skips blocks by source and time range from the index alone and only inflates the
+ * blocks it needs, reading both files through memory maps.
+ *
+ * <p>A block record is written only after its block, so a crash mid-append leaves at worst unreferenced bytes at the
+ * end of the data file, and a torn record at the end of the index is cut off on open.
+ */
+final class LogSegment implements AutoCloseable {
+
+    // Source id, line count, first and last timestamp, offset, deflated and inflated length
+    static final int RECORD_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+
+    private final Path data;
+    private final Path index;
+
+    private FileChannel dataOut;
+    private FileChannel indexOut;
+
+    LogSegment(Path directory, int number) {
+        this.data = directory.resolve(String.format("%06d.seg", number));
+        this.index = directory.resolve(String.format("%06d.idx", number));
+    }
+
+    static int number(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.indexOf('.')));
+    }
+
+    long size() throws IOException {
+        return Files.exists(data) ? Files.size(data) : 0;
+    }
+
+    /**
+     * Appends a deflated block and then its record.
+     */
+    void append(Block block, ByteBuffer deflated) throws IOException {
+        if (dataOut == null) {
+            dataOut = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            indexOut = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            indexOut.position(indexOut.size() - indexOut.size() % RECORD_SIZE);
+        }
+        long offset = dataOut.size();
+        dataOut.position(offset);
+        while (deflated.hasRemaining()) {
+            dataOut.write(deflated);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(block.sourceId())
+                .putInt(block.lines())
+                .putLong(block.firstTimestamp())
+                .putLong(block.lastTimestamp())
+                .putLong(offset)
+                .putInt(block.deflatedLength())
+                .putInt(block.inflatedLength())
+                .flip();
+        while (record.hasRemaining()) {
+            indexOut.write(record);
+        }
+    }
+
+    /**
+     * Maps the segment for reading; the view only sees the blocks written so far.
+     */
+    View open() throws IOException {
+        if (!Files.exists(index) || !Files.exists(data)) {
+            return new View(ByteBuffer.allocate(0), ByteBuffer.allocate(0));
+        }
+        try (FileChannel indexChannel = FileChannel.open(index, StandardOpenOption.READ);
+             FileChannel dataChannel = FileChannel.open(data, StandardOpenOption.READ)) {
+            long records = indexChannel.size() / RECORD_SIZE;
+            MappedByteBuffer indexMap = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, records * RECORD_SIZE);
+            MappedByteBuffer dataMap = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+            return new View(indexMap.order(ByteOrder.LITTLE_ENDIAN), dataMap);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dataOut == null) {
+            return;
+        }
+        FileChannel closingData = dataOut;
+        FileChannel closingIndex = indexOut;
+        dataOut = null;
+        indexOut = null;
+        try {
+            closingData.close();
+        } finally {
+            closingIndex.close();
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(index);
+        Files.deleteIfExists(data);
+    }
+
+    record Block(int sourceId, int lines, long firstTimestamp, long lastTimestamp, int deflatedLength,
+                 int inflatedLength) {
+    }
+
+    /**
+     * Read-only mapping of the index and data files; the mappings stay valid after the files are closed.
+     */
+    static final class View {
+
+        private final ByteBuffer index;
+        private final ByteBuffer data;
+
+        private View(ByteBuffer index, ByteBuffer data) {
+            this.index = index;
+            this.data = data;
+        }
+
+        int blocks() {
+            return index.limit() / RECORD_SIZE;
+        }
+
+        int sourceId(int block) {
+            return index.getInt(block * RECORD_SIZE);
+        }
+
+        long firstTimestamp(int block) {
+            return index.getLong(block * RECORD_SIZE + 8);
+        }
+
+        long lastTimestamp(int block) {
+            return index.getLong(block * RECORD_SIZE + 16);
+        }
+
+        int inflatedLength(int block) {
+            return index.getInt(block * RECORD_SIZE + 36);
+        }
+
+        /**
+         * @return the deflated bytes of the block, without copying them out of the mapping
+         */
+        ByteBuffer deflated(int block) {
+            int offset = (int) index.getLong(block * RECORD_SIZE + 24);
+            int length = index.getInt(block * RECORD_SIZE + 32);
+            return data.slice(offset, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+
+/**
+ * One container's log stream, split into lines on a virtual thread and handed to the merger through a
+ * {@link LogRing}. Reading allocates nothing per line: bytes go from one read buffer into recycled slots.
+ */
+final class LogSource {
+
+    private static final int READ_BUFFER = 16 * 1024;
+
+    private final String name;
+    private final String containerId;
+    private final byte[] prefix;
+    private final LogRing ring;
+    private final long skipThrough;
+    private final Runnable onLine;
+
+    private volatile LogWatch watch;
+    private volatile Thread reader;
+    private volatile boolean closed;
+    private volatile boolean finished;
+    private volatile long finishedAt;
+    private volatile long lastTimestamp;
+    private volatile long lastArrival;
+
+    /**
+     * @param skipThrough drop lines stamped at or before this, as already shown by an earlier stream
+     * @param onLine called after every published line, to wake the merger
+     */
+    LogSource(String name, String containerId, byte[] prefix, int capacity, long skipThrough, Runnable onLine) {
+        this.name = name;
+        this.containerId = containerId;
+        this.prefix = prefix;
+        this.ring = new LogRing(capacity);
+        this.skipThrough = skipThrough;
+        this.lastTimestamp = skipThrough;
+        this.lastArrival = System.nanoTime() - Long.MAX_VALUE / 2;
+        this.onLine = onLine;
+    }
+
+    /**
+     * Opens the stream and reads it on a new virtual thread, so a slow API server does not hold up other sources.
+     */
+    void start(Supplier<LogWatch> opener) {
+        this.reader = Thread.ofVirtual().name("logs-" + name).start(() -> open(opener));
+    }
+
+    void close() {
+        closed = true;
+        LogWatch current = watch;
+        if (current != null) {
+            current.close();
+        }
+        Thread thread = reader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    String containerId() {
+        return containerId;
+    }
+
+    byte[] prefix() {
+        return prefix;
+    }
+
+    LogRing ring() {
+        return ring;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return when the newest line was read, as {@link System#nanoTime()}
+     */
+    long lastArrival() {
+        return lastArrival;
+    }
+
+    /**
+     * @return the stamp of the newest line read so far, or {@link LogTimestamps#NONE}
+     */
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    private void open(Supplier<LogWatch> opener) {
+        try {
+            watch = opener.get();
+        } catch (KubernetesClientException kCE) {
+            Printer.error("Cannot follow %s: %s", name, kCE.getMessage());
+            finish();
+            return;
+        }
+        if (closed) {
+            watch.close();
+            finish();
+            return;
+        }
+        read();
+    }
+
+    private void read() {
+        byte[] buffer = new byte[READ_BUFFER];
+        LogLine line = null;
+        try (InputStream in = watch.getOutput()) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < count; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    if (line == null) {
+                        line = ring.claim();
+                    }
+                    line.append(buffer, start, i - start);
+                    if (complete(line)) {
+                        line = null;
+                    } else {
+                        line.clear();
+                    }
+                    start = i + 1;
+                }
+                if (start < count) {
+                    if (line == null) {
+                        line = ring.claim();
+                    }
+                    line.append(buffer, start, count - start);
+                }
+            }
+            if (line != null && line.length > 0) {
+                complete(line);
+            }
+        } catch (IOException | InterruptedException | RuntimeException ignored) {
+            // A stream that breaks off ends like one that completes; the follower decides whether to reopen it
+        } finally {
+            watch.close();
+            finish();
+        }
+    }
+
+    /**
+     * @return true if the line was published, false if it repeats one an earlier stream already delivered
+     */
+    private boolean complete(LogLine line) {
+        int length = line.length;
+        if (length > 0 && line.bytes[length - 1] == '\r') {
+            line.length = --length;
+        }
+
+        long timestamp = LogTimestamps.NONE;
+        int stampEnd = LogTimestamps.stampEnd(line.bytes, 0, length);
+        if (stampEnd >= 0) {
+            timestamp = LogTimestamps.parse(line.bytes, 0, stampEnd);
+            line.textStart = stampEnd + 1;
+        }
+
+        if (timestamp == LogTimestamps.NONE) {
+            // Unstamped lines keep their place right after the previous line of the same stream
+            timestamp = lastTimestamp;
+        } else if (timestamp <= skipThrough) {
+            return false;
+        }
+        line.timestampNanos = timestamp;
+        line.arrivedNanos = System.nanoTime();
+        lastArrival = line.arrivedNanos;
+        lastTimestamp = timestamp;
+        ring.publish();
+        onLine.run();
+        return true;
+    }
+
+    private void finish() {
+        finishedAt = System.nanoTime();
+        finished = true;
+        onLine.run();
+    }
+
+}
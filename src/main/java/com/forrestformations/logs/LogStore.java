@@ -0,0 +1,414 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+/**
+ * Local store of fetched log lines, one directory per cluster, so follow-up searches run against disk instead of
+ * downloading the logs again. Lines are kept in deflated blocks of one source each, a source being one container of
+ * one pod, in segment files of up to {@link #SEGMENT_SIZE}; see {@link LogSegment}. The {@code sources} file maps
+ * source ids to their {@code namespace/pod/container} names.
+ *
+ * <p>An open store holds a lock on its directory, so two processes never append to the same segment.
+ */
+public final class LogStore implements AutoCloseable {
+
+    static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int BLOCKS_PER_TASK = 16;
+    private static final String SOURCES = "sources";
+    private static final String LOCK = "lock";
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Integer, Long> lastTimestamps = new HashMap<>();
+    private final List<Integer> segments = new ArrayList<>();
+
+    private LogSegment current;
+
+    private LogStore(Path directory, FileChannel lockChannel, FileLock lock) {
+        this.directory = directory;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * @return the store directory for the client's cluster, under ~/.kube-play/logs
+     */
+    public static Path defaultDirectory(KubernetesClient client) {
+        String cluster = client.getMasterUrl().getHost() + "_" + client.getMasterUrl().getPort();
+        return Path.of(System.getProperty("user.home"), ".kube-play", "logs", cluster.replaceAll("[^\\w.-]", "_"));
+    }
+
+    /**
+     * Opens or creates the store in the directory.
+     *
+     * @throws IOException if the store cannot be read, or another process or command has it open
+     */
+    public static LogStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException inThisProcess) {
+            // Held by another command of the same daemon
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Log store " + directory + " is in use by another process or command");
+        }
+
+        LogStore store = new LogStore(directory, lockChannel, lock);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * @return the stamp of the newest stored line of the source, or {@link Long#MIN_VALUE} if there is none
+     */
+    public synchronized long lastTimestamp(String source) {
+        Integer id = ids.get(source);
+        return id == null ? LogTimestamps.NONE : lastTimestamps.getOrDefault(id, LogTimestamps.NONE);
+    }
+
+    /**
+     * Deletes the segments holding only lines older than the retention.
+     *
+     * @return the number of deleted segments
+     */
+    public synchronized int prune(Duration retention) throws IOException {
+        long cutoff = epochNanos(Instant.now().minus(retention));
+        int deleted = 0;
+        // The newest segment is still being appended to
+        for (Integer number : segments.subList(0, Math.max(0, segments.size() - 1)).stream().toList()) {
+            LogSegment segment = new LogSegment(directory, number);
+            LogSegment.View view = segment.open();
+            boolean expired = true;
+            for (int block = 0; block < view.blocks() && expired; block++) {
+                expired = view.lastTimestamp(block) < cutoff;
+            }
+            if (expired) {
+                segment.delete();
+                segments.remove(number);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Finds the stored lines of the accepted sources stamped within the range, a segment at a time, searching runs of
+     * its blocks in parallel and inflating only the blocks whose source and time range can match. Only the matches of
+     * one segment are held at once.
+     *
+     * @param sources accepts {@code namespace/pod/container} names
+     * @param pattern lines have to contain a match of, or null to take all lines
+     * @param found takes the matches on the calling thread, ordered by timestamp within each segment and segment by
+     * segment in the order they were written
+     * @return how many lines matched
+     */
+    public long search(Predicate<String> sources, Instant from, Instant to, Pattern pattern, Consumer<LogMatch> found)
+            throws IOException {
+        boolean[] accepted;
+        List<String> sourceNames;
+        List<Integer> numbers;
+        synchronized (this) {
+            sourceNames = List.copyOf(names);
+            numbers = List.copyOf(segments);
+        }
+        accepted = new boolean[sourceNames.size()];
+        for (int id = 0; id < accepted.length; id++) {
+            accepted[id] = sources.test(sourceNames.get(id));
+        }
+
+        long fromNanos = epochNanos(from);
+        long toNanos = epochNanos(to);
+        long count = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Integer number : numbers) {
+                LogSegment.View view = new LogSegment(directory, number).open();
+                List<Future<List<LogMatch>>> results = new ArrayList<>();
+                for (int first = 0; first < view.blocks(); first += BLOCKS_PER_TASK) {
+                    int end = Math.min(view.blocks(), first + BLOCKS_PER_TASK);
+                    int start = first;
+                    results.add(executor.submit(() -> new BlockSearch(accepted, sourceNames, fromNanos, toNanos,
+                            pattern).search(view, start, end)));
+                }
+                List<LogMatch> matches = new ArrayList<>();
+                for (Future<List<LogMatch>> result : results) {
+                    matches.addAll(result.get());
+                }
+                matches.sort(Comparator.comparing(LogMatch::timestamp).thenComparing(LogMatch::source));
+                matches.forEach(found);
+                count += matches.size();
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Search interrupted", iE);
+        } catch (ExecutionException eE) {
+            throw eE.getCause() instanceof IOException iO ? iO : new IOException(eE.getCause());
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (current != null) {
+                current.close();
+            }
+        } finally {
+            try {
+                lock.release();
+            } finally {
+                lockChannel.close();
+            }
+        }
+    }
+
+    /**
+     * @return the id of the source, registering it if it is new
+     */
+    synchronized int sourceId(String source) throws IOException {
+        Integer id = ids.get(source);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.size();
+        Files.writeString(directory.resolve(SOURCES), newId + "\t" + source + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        names.add(source);
+        ids.put(source, newId);
+        return newId;
+    }
+
+    /**
+     * Appends a deflated block to the newest segment, starting a new one when it is full.
+     */
+    synchronized void append(LogSegment.Block block, ByteBuffer deflated) throws IOException {
+        if (current == null && !segments.isEmpty()) {
+            current = new LogSegment(directory, segments.get(segments.size() - 1));
+        }
+        if (current == null || current.size() >= SEGMENT_SIZE) {
+            if (current != null) {
+                current.close();
+            }
+            int number = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+            current = new LogSegment(directory, number);
+            segments.add(number);
+        }
+        current.append(block, deflated);
+        lastTimestamps.merge(block.sourceId(), block.lastTimestamp(), Math::max);
+    }
+
+    private void load() throws IOException {
+        Path sources = directory.resolve(SOURCES);
+        if (Files.exists(sources)) {
+            for (String line : Files.readAllLines(sources, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    // Torn by a crash while registering; nothing was stored for it
+                    continue;
+                }
+                int id = Integer.parseInt(line.substring(0, tab));
+                if (id != names.size()) {
+                    throw new IOException("Corrupt log store sources file " + sources);
+                }
+                names.add(line.substring(tab + 1));
+                ids.put(line.substring(tab + 1), id);
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".idx"))
+                    .map(LogSegment::number)
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        for (Integer number : segments) {
+            LogSegment.View view = new LogSegment(directory, number).open();
+            for (int block = 0; block < view.blocks(); block++) {
+                lastTimestamps.merge(view.sourceId(block), view.lastTimestamp(block), Math::max);
+            }
+        }
+    }
+
+    static long epochNanos(Instant instant) {
+        if (instant.equals(Instant.MIN)) {
+            return Long.MIN_VALUE;
+        }
+        if (instant.equals(Instant.MAX)) {
+            return Long.MAX_VALUE;
+        }
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Searches a run of blocks of one segment with its own inflater and buffer.
+     */
+    private static final class BlockSearch {
+
+        private final boolean[] accepted;
+        private final List<String> names;
+        private final long from;
+        private final long to;
+        private final Matcher matcher;
+        private final Inflater inflater = new Inflater();
+        private final List<LogMatch> matches = new ArrayList<>();
+        private final AsciiSequence ascii = new AsciiSequence(this);
+        private byte[] inflated = new byte[0];
+
+        BlockSearch(boolean[] accepted, List<String> names, long from, long to, Pattern pattern) {
+            this.accepted = accepted;
+            this.names = names;
+            this.from = from;
+            this.to = to;
+            this.matcher = pattern == null ? null : pattern.matcher("");
+        }
+
+        List<LogMatch> search(LogSegment.View view, int firstBlock, int endBlock) {
+            try {
+                for (int block = firstBlock; block < endBlock; block++) {
+                    int source = view.sourceId(block);
+                    if (source >= accepted.length || !accepted[source] || view.lastTimestamp(block) < from
+                            || view.firstTimestamp(block) > to) {
+                        continue;
+                    }
+                    searchBlock(source, inflate(view, block));
+                }
+                return matches;
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private int inflate(LogSegment.View view, int block) {
+            int length = view.inflatedLength(block);
+            if (inflated.length < length) {
+                inflated = new byte[length];
+            }
+            inflater.reset();
+            inflater.setInput(view.deflated(block));
+            try {
+                int total = 0;
+                while (total < length && !inflater.finished()) {
+                    total += inflater.inflate(inflated, total, length - total);
+                }
+                return total;
+            } catch (DataFormatException dFE) {
+                throw new UncheckedIOException(new IOException("Corrupt log store block", dFE));
+            }
+        }
+
+        private void searchBlock(int source, int length) {
+            ByteBuffer lines = ByteBuffer.wrap(inflated, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            while (lines.remaining() >= Long.BYTES + Integer.BYTES) {
+                long timestamp = lines.getLong();
+                int lineLength = lines.getInt();
+                int start = lines.position();
+                lines.position(start + lineLength);
+                if (timestamp < from || timestamp > to) {
+                    continue;
+                }
+                if (matcher == null || matcher.reset(text(start, lineLength)).find()) {
+                    String line = new String(inflated, start, lineLength, StandardCharsets.UTF_8);
+                    matches.add(new LogMatch(Instant.ofEpochSecond(0, timestamp), names.get(source), line));
+                }
+            }
+        }
+
+        /**
+         * @return the line as characters, without decoding it when it is plain ASCII, as most log lines are
+         */
+        private CharSequence text(int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                if (inflated[i] < 0) {
+                    return new String(inflated, start, length, StandardCharsets.UTF_8);
+                }
+            }
+            ascii.reset(start, length);
+            return ascii;
+        }
+
+    }
+
+    /**
+     * Reads ASCII bytes of the inflated block as characters in place.
+     */
+    private static final class AsciiSequence implements CharSequence {
+
+        private final BlockSearch owner;
+        private int start;
+        private int length;
+
+        AsciiSequence(BlockSearch owner) {
+            this.owner = owner;
+        }
+
+        void reset(int start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) owner.inflated[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(owner.inflated, start + from, to - from, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return new String(owner.inflated, start, length, StandardCharsets.US_ASCII);
+        }
+
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.Printer;
+import com.forrestformations.help.PodCache;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.TailPrettyLoggable;
+import io.fabric8.kubernetes.client.dsl.TimeTailPrettyLoggable;
+
+/**
+ * Follows the logs of every container of the pods in a {@link PodCache}, merged into one output in timestamp order.
+ * Each container is read on its own virtual thread into a bounded ring, so a chatty pod is slowed down to what the
+ * output can take instead of filling the heap or crowding out quieter pods. New pods are picked up as they appear,
+ * restarted containers are followed into their next instance, and streams that break off are reopened from the last
+ * line shown.
+ */
+public final class LogTail implements AutoCloseable {
+
+    private static final int RING_CAPACITY = 1024;
+    private static final Duration IDLE_CHECK = Duration.ofSeconds(5);
+    private static final long REOPEN_DELAY = TimeUnit.SECONDS.toNanos(2);
+    private static final String[] COLORS = {"32", "33", "34", "35", "36", "91", "92", "93", "94", "95", "96", "31"};
+
+    /**
+     * @param containers containers to follow, all of them when empty
+     * @param tailLines lines each container starts with, negative for its whole log
+     * @param since only show lines newer than this, if not null
+     * @param timestamps keep the kubelet's timestamp in front of each line
+     * @param color color each pod's prefix
+     * @param qualifiedNames prefix lines with the namespace as well as the pod name
+     */
+    public record Settings(Set<String> containers, int tailLines, Duration since, boolean timestamps, boolean color,
+                           boolean qualifiedNames) {
+    }
+
+    private final KubernetesClient client;
+    private final Settings settings;
+    private final LogMerger merger;
+    private final Map<String, LogSource> sources = new HashMap<>();
+    private final Map<String, String> colors = new HashMap<>();
+
+    private volatile boolean closed;
+    private Thread follower;
+    private int nextColor;
+
+    public LogTail(KubernetesClient client, OutputStream out, Settings settings) {
+        this.client = client;
+        this.settings = settings;
+        this.merger = new LogMerger(out, settings.timestamps());
+    }
+
+    /**
+     * Starts following the pods of the cache; the containers running now start with their last
+     * {@link Settings#tailLines()} lines, those that show up later with their whole log.
+     */
+    public synchronized void follow(PodCache cache) {
+        if (follower != null) {
+            throw new IllegalStateException("Already following");
+        }
+        follower = Thread.ofVirtual().name("logs-follower").start(() -> reconcileUntilClosed(cache));
+    }
+
+    /**
+     * Writes merged lines until closed.
+     *
+     * @throws IOException if the output stops taking lines, for example because the reading end of a pipe closed
+     */
+    public void run() throws IOException {
+        try {
+            merger.run();
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (this) {
+            if (follower != null) {
+                follower.interrupt();
+            }
+            sources.values().forEach(LogSource::close);
+        }
+        merger.close();
+    }
+
+    private void reconcileUntilClosed(PodCache cache) {
+        boolean first = true;
+        try {
+            while (!closed) {
+                reconcile(cache.pods(), first);
+                first = false;
+                cache.awaitChange(IDLE_CHECK);
+            }
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void reconcile(List<Pod> pods, boolean initial) {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        Set<String> live = new HashSet<>();
+        for (Pod pod : pods) {
+            if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+                continue;
+            }
+            for (ContainerStatus status : pod.getStatus().getContainerStatuses()) {
+                if (!settings.containers().isEmpty() && !settings.containers().contains(status.getName())) {
+                    continue;
+                }
+                boolean running = status.getState() != null && status.getState().getRunning() != null;
+                boolean terminated = status.getState() != null && status.getState().getTerminated() != null;
+                if (status.getContainerID() == null || !(running || terminated)) {
+                    continue;
+                }
+
+                String key = pod.getMetadata().getUid() + "/" + status.getName();
+                live.add(key);
+                LogSource current = sources.get(key);
+                if (current == null) {
+                    open(key, pod, status, initial ? settings.tailLines() : -1, LogTimestamps.NONE);
+                } else if (!current.containerId().equals(status.getContainerID())) {
+                    // Restarted: the new instance's log starts empty, so all of it is new
+                    open(key, pod, status, -1, LogTimestamps.NONE);
+                } else if (running && current.isFinished() && now - current.finishedAt() >= REOPEN_DELAY) {
+                    // Same instance still running, so the stream broke off; pick up after the last line shown
+                    open(key, pod, status, -1, current.lastTimestamp());
+                }
+            }
+        }
+        sources.entrySet().removeIf(entry -> !live.contains(entry.getKey()) && entry.getValue().isFinished());
+        Set<String> uids = new HashSet<>();
+        pods.forEach(pod -> uids.add(pod.getMetadata().getUid()));
+        colors.keySet().retainAll(uids);
+    }
+
+    private void open(String key, Pod pod, ContainerStatus status, int tailLines, long resumeAfter) {
+        String namespace = pod.getMetadata().getNamespace();
+        String podName = pod.getMetadata().getName();
+        String name = (settings.qualifiedNames() ? namespace + "/" : "") + podName + "/" + status.getName();
+        LogSource source = new LogSource(name, status.getContainerID(), prefix(pod, name), RING_CAPACITY,
+                resumeAfter, merger::wake);
+        sources.put(key, source);
+        merger.add(source);
+
+        if (resumeAfter == LogTimestamps.NONE) {
+            Printer.error("+ %s", name);
+        }
+        source.start(() -> {
+            TimeTailPrettyLoggable loggable = client.pods()
+                    .inNamespace(namespace)
+                    .withName(podName)
+                    .inContainer(status.getName())
+                    .usingTimestamps();
+            TailPrettyLoggable since = loggable;
+            if (resumeAfter != LogTimestamps.NONE) {
+                since = loggable.sinceTime(LogTimestamps.format(resumeAfter));
+            } else if (settings.since() != null) {
+                since = loggable.sinceSeconds((int) Math.max(1, settings.since().toSeconds()));
+            }
+            return tailLines >= 0 ? since.tailingLines(tailLines).watchLog() : since.watchLog();
+        });
+    }
+
+    private byte[] prefix(Pod pod, String name) {
+        String prefix = "[" + name + "] ";
+        if (settings.color()) {
+            String color = colors.computeIfAbsent(pod.getMetadata().getUid(),
+                    uid -> COLORS[nextColor++ % COLORS.length]);
+            prefix = "\u001b[" + color + "m" + prefix + "\u001b[0m";
+        }
+        return prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
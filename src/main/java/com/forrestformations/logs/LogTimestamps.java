@@ -0,0 +1,103 @@
+package com.forrestformations.logs;
+
+import java.time.Instant;
+
+/**
+ * Reads the RFC 3339 timestamps the kubelet puts in front of every line, such as
+ * {@code 2024-05-01T12:34:56.123456789Z}, straight from the line's bytes.
+ */
+final class LogTimestamps {
+
+    static final long NONE = Long.MIN_VALUE;
+
+    // "2024-05-01T12:34:56Z"
+    private static final int MIN_LENGTH = 20;
+    // "2024-05-01T12:34:56.123456789Z" and then some slack
+    private static final int MAX_LENGTH = 35;
+
+    private LogTimestamps() {
+    }
+
+    /**
+     * Finds the space ending the timestamp a line starts with.
+     *
+     * @return the index of the space, or -1 if the line does not start with a timestamp followed by a space
+     */
+    static int stampEnd(byte[] bytes, int from, int to) {
+        int limit = Math.min(to, from + MAX_LENGTH);
+        for (int i = from; i < limit; i++) {
+            if (bytes[i] == ' ') {
+                return parse(bytes, from, i) == NONE ? -1 : i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return nanoseconds since the epoch, or {@link #NONE} if the bytes are not a UTC timestamp
+     */
+    static long parse(byte[] bytes, int from, int to) {
+        if (to - from < MIN_LENGTH || bytes[to - 1] != 'Z' || bytes[from + 4] != '-' || bytes[from + 7] != '-'
+                || bytes[from + 10] != 'T' || bytes[from + 13] != ':' || bytes[from + 16] != ':') {
+            return NONE;
+        }
+        int year = digits(bytes, from, 4);
+        int month = digits(bytes, from + 5, 2);
+        int day = digits(bytes, from + 8, 2);
+        int hour = digits(bytes, from + 11, 2);
+        int minute = digits(bytes, from + 14, 2);
+        int second = digits(bytes, from + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || minute < 0 || second < 0) {
+            return NONE;
+        }
+
+        long nanos = 0;
+        int fraction = from + 19;
+        if (fraction < to - 1) {
+            if (bytes[fraction] != '.') {
+                return NONE;
+            }
+            long scale = 100_000_000;
+            for (int i = fraction + 1; i < to - 1; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return NONE;
+                }
+                nanos += digit * scale;
+                scale /= 10;
+            }
+        }
+        long seconds = epochDay(year, month, day) * 86_400 + hour * 3_600L + minute * 60L + second;
+        return seconds * 1_000_000_000L + nanos;
+    }
+
+    /**
+     * @return the timestamp in the form the API server accepts as {@code sinceTime}
+     */
+    static String format(long epochNanos) {
+        return Instant.ofEpochSecond(0, epochNanos).toString();
+    }
+
+    private static int digits(byte[] bytes, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar, without going through LocalDate
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.forrestformations.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.forrestformations.ApiCall")
+@Label("API Call")
+@Category("kube-play")
+@Description("One attempt at a Kubernetes API request, until its response body was read")
+final class ApiCallEvent extends jdk.jfr.Event {
+
+    @Label("Verb")
+    String verb;
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Status")
+    int status;
+
+    @Label("Response Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Retriable")
+    @Description("Whether the attempt failed in a way the client retries")
+    boolean retriable;
+
+}
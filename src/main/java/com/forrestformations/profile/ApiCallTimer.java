@@ -0,0 +1,130 @@
+package com.forrestformations.profile;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+
+/**
+ * Times every attempt at an API request, from sending it until its body was read, and counts the bytes of the body.
+ * Watches are timed until their response starts, as their body lasts as long as the watch. Attempts answered 429 or
+ * 5xx, or that could not connect, are counted as retriable, as the client tries those again up to its backoff limit.
+ * Installed on every client; while no profile is started it passes everything through untouched.
+ */
+public final class ApiCallTimer implements Interceptor {
+
+    public static final String NAME = "kube-play-profile";
+
+    @Override
+    public AsyncBody.Consumer<List<ByteBuffer>> consumer(AsyncBody.Consumer<List<ByteBuffer>> consumer,
+                                                         HttpRequest request) {
+        Profile profile = Profiler.active();
+        return profile == null ?
+                consumer : new TimedConsumer(consumer, profile, describe(request.method(), request.uri()));
+    }
+
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        if (!(consumer instanceof TimedConsumer timed)) {
+            return;
+        }
+        if (timed.call.verb().equals("WATCH") || !(response.body() instanceof AsyncBody body)) {
+            timed.finish(response.code(), false);
+            return;
+        }
+        body.done().whenComplete((done, failure) -> timed.finish(response.code(), failure != null));
+    }
+
+    @Override
+    public void afterConnectionFailure(HttpRequest request, Throwable failure) {
+        Profile profile = Profiler.active();
+        if (profile != null) {
+            profile.recordFailure(describe(request.method(), request.uri()).phase());
+        }
+    }
+
+    /**
+     * Names a request by verb and resource, e.g. {@code LIST pods} or {@code GET pods/log}, leaving out namespaces
+     * and names so calls of a kind add up.
+     */
+    static Call describe(String method, URI uri) {
+        String[] parts = uri.getPath().split("/");
+        int resource = parts.length > 1 && parts[1].equals("api") ? 3 :
+                parts.length > 1 && parts[1].equals("apis") ? 4 : Integer.MAX_VALUE;
+        if (resource >= parts.length) {
+            return new Call(method, uri.getPath());
+        }
+        if (parts[resource].equals("namespaces") && resource + 2 < parts.length) {
+            resource += 2;
+        }
+        boolean named = resource + 1 < parts.length;
+        String subresource = resource + 2 < parts.length ? "/" + parts[resource + 2] : "";
+        String query = uri.getRawQuery();
+        String verb = switch (method) {
+            case "GET" -> query != null && query.contains("watch=true") ? "WATCH" : named ? "GET" : "LIST";
+            case "POST" -> "CREATE";
+            case "PUT" -> "UPDATE";
+            case "DELETE" -> named ? "DELETE" : "DELETECOLLECTION";
+            default -> method;
+        };
+        return new Call(verb, parts[resource] + subresource);
+    }
+
+    record Call(String verb, String resource) {
+
+        String phase() {
+            return "api " + verb + " " + resource;
+        }
+
+    }
+
+    private static final class TimedConsumer implements AsyncBody.Consumer<List<ByteBuffer>> {
+
+        private final AsyncBody.Consumer<List<ByteBuffer>> delegate;
+        private final Profile profile;
+        private final Call call;
+        private final long started = System.nanoTime();
+        private final ApiCallEvent event = new ApiCallEvent();
+        private volatile long bytes;
+
+        TimedConsumer(AsyncBody.Consumer<List<ByteBuffer>> delegate, Profile profile, Call call) {
+            this.delegate = delegate;
+            this.profile = profile;
+            this.call = call;
+            event.begin();
+        }
+
+        @Override
+        public void consume(List<ByteBuffer> buffers, AsyncBody body) throws Exception {
+            long read = 0;
+            for (ByteBuffer buffer : buffers) {
+                read += buffer.remaining();
+            }
+            // Chunks of one body arrive one after the other
+            bytes += read;
+            delegate.consume(buffers, body);
+        }
+
+        @Override
+        public <U> U unwrap(Class<U> target) {
+            return target.isInstance(this) ? target.cast(this) : delegate.unwrap(target);
+        }
+
+        void finish(int status, boolean failed) {
+            boolean retriable = status == 429 || status >= 500 || failed;
+            profile.recordCall(call.phase(), System.nanoTime() - started, bytes, status >= 400 || failed, retriable);
+            event.verb = call.verb();
+            event.resource = call.resource();
+            event.status = status;
+            event.bytes = bytes;
+            event.retriable = retriable;
+            event.commit();
+        }
+
+    }
+
+}
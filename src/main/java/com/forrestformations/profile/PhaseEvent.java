@@ -0,0 +1,17 @@
+package com.forrestformations.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.forrestformations.Phase")
+@Label("Phase")
+@Category("kube-play")
+@Description("One occurrence of a timed phase of a command")
+final class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+}
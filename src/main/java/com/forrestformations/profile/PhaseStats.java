@@ -0,0 +1,9 @@
+package com.forrestformations.profile;
+
+/**
+ * Timings of one phase or kind of API call over a run, in nanoseconds. Bytes, errors and retriable failures are
+ * only counted for API calls; errors include connection failures, which have no timing.
+ */
+public record PhaseStats(String phase, int count, long totalNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                         long maxNanos, long bytes, int errors, int retriable) {
+}
@@ -0,0 +1,105 @@
+package com.forrestformations.profile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+
+/**
+ * The timings collected over one profiled run, by phase; API calls are phases named {@code api VERB resource}.
+ */
+public final class Profile {
+
+    private static final String ROW = "%-36s %6s %10s %9s %9s %9s %9s %9s %6s %9s";
+
+    private final Map<String, Samples> phases = new ConcurrentHashMap<>();
+    private final long started = System.nanoTime();
+    private volatile long totalNanos;
+
+    Profile() {
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return every phase, the one that took longest in total first
+     */
+    public List<PhaseStats> phases() {
+        return phases.entrySet().stream()
+                .map(phase -> phase.getValue().stats(phase.getKey()))
+                .sorted(Comparator.comparingLong(PhaseStats::totalNanos).reversed())
+                .toList();
+    }
+
+    /**
+     * Prints the breakdown to stderr, keeping stdout to the command's own output.
+     */
+    public void print() {
+        Printer.error("Profile of %s ms; phases overlap and include the API calls made within them:",
+                millis(totalNanos));
+        Printer.error(String.format(ROW, "PHASE", "COUNT", "TOTAL ms", "P50 ms", "P90 ms", "P99 ms", "MAX ms", "KiB",
+                "ERRORS", "RETRIABLE"));
+        for (PhaseStats phase : phases()) {
+            Printer.error(String.format(ROW, phase.phase(), phase.count(), millis(phase.totalNanos()),
+                    millis(phase.p50Nanos()), millis(phase.p90Nanos()), millis(phase.p99Nanos()),
+                    millis(phase.maxNanos()), phase.bytes() / 1024, phase.errors(), phase.retriable()));
+        }
+    }
+
+    public void writeJson(Path file) throws IOException {
+        List<Map<String, Object>> rows = phases().stream()
+                .map(phase -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("phase", phase.phase());
+                    row.put("count", phase.count());
+                    row.put("totalMillis", phase.totalNanos() / 1e6);
+                    row.put("p50Millis", phase.p50Nanos() / 1e6);
+                    row.put("p90Millis", phase.p90Nanos() / 1e6);
+                    row.put("p99Millis", phase.p99Nanos() / 1e6);
+                    row.put("maxMillis", phase.maxNanos() / 1e6);
+                    row.put("bytes", phase.bytes());
+                    row.put("errors", phase.errors());
+                    row.put("retriable", phase.retriable());
+                    return row;
+                })
+                .toList();
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("totalMillis", totalNanos / 1e6);
+        profile.put("phases", rows);
+        Files.writeString(file, new KubernetesSerialization().asJson(profile));
+    }
+
+    void record(String phase, long nanos) {
+        samples(phase).add(nanos);
+    }
+
+    void recordCall(String phase, long nanos, long bytes, boolean error, boolean retriable) {
+        samples(phase).addCall(nanos, bytes, error, retriable);
+    }
+
+    void recordFailure(String phase) {
+        samples(phase).addFailure(true, true);
+    }
+
+    void finish() {
+        totalNanos = System.nanoTime() - started;
+    }
+
+    private Samples samples(String phase) {
+        return phases.computeIfAbsent(phase, key -> new Samples());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+}
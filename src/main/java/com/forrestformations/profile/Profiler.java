@@ -0,0 +1,102 @@
+package com.forrestformations.profile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import jdk.jfr.Recording;
+
+/**
+ * Times the phases of a command run and the API calls made during it, while a profile is started. When none is,
+ * which is every run without {@code --profile}, {@link #time} costs one volatile read and returns a shared no-op span.
+ * There is one profile per JVM at a time; in the daemon, commands running concurrently share it.
+ */
+public final class Profiler {
+
+    private static volatile Profile active;
+    private static Recording recording;
+
+    private Profiler() {
+    }
+
+    /**
+     * Starts collecting a profile.
+     *
+     * @param jfrFile where {@link #stop} dumps the phase and API call events as a JFR recording, null for none
+     */
+    public static synchronized void start(Path jfrFile) throws IOException {
+        if (jfrFile != null) {
+            recording = new Recording();
+            recording.enable(PhaseEvent.class);
+            recording.enable(ApiCallEvent.class);
+            recording.setDestination(jfrFile);
+            recording.start();
+        }
+        active = new Profile();
+    }
+
+    /**
+     * Stops collecting, writing the JFR recording if one was requested.
+     */
+    public static synchronized Profile stop() throws IOException {
+        Profile profile = active;
+        active = null;
+        if (profile != null) {
+            profile.finish();
+        }
+        if (recording != null) {
+            try (Recording finished = recording) {
+                recording = null;
+                // With a destination set, stopping writes the file
+                finished.stop();
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Starts timing one occurrence of a phase, ended by closing the span. Phases may nest and overlap; a phase includes
+     * the API calls and inner phases made within it.
+     */
+    public static Span time(String phase) {
+        Profile profile = active;
+        return profile == null ? Span.NONE : new Span(profile, phase);
+    }
+
+    static Profile active() {
+        return active;
+    }
+
+    public static final class Span implements AutoCloseable {
+
+        private static final Span NONE = new Span(null, null);
+
+        private final Profile profile;
+        private final String phase;
+        private final long started;
+        private final PhaseEvent event;
+
+        private Span(Profile profile, String phase) {
+            this.profile = profile;
+            this.phase = phase;
+            this.started = System.nanoTime();
+            if (profile != null) {
+                event = new PhaseEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (profile == null) {
+                return;
+            }
+            profile.record(phase, System.nanoTime() - started);
+            event.phase = phase;
+            event.commit();
+        }
+
+    }
+
+}
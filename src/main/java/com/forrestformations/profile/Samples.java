@@ -0,0 +1,52 @@
+package com.forrestformations.profile;
+
+import java.util.Arrays;
+
+/**
+ * Every timing of one phase, kept whole so percentiles are exact; a run records thousands, not millions.
+ */
+final class Samples {
+
+    private long[] nanos = new long[16];
+    private int count;
+    private long totalNanos;
+    private long bytes;
+    private int errors;
+    private int retriable;
+
+    synchronized void add(long elapsed) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsed;
+        totalNanos += elapsed;
+    }
+
+    synchronized void addCall(long elapsed, long bytes, boolean error, boolean retriable) {
+        add(elapsed);
+        addFailure(error, retriable);
+        this.bytes += bytes;
+    }
+
+    synchronized void addFailure(boolean error, boolean retriable) {
+        errors += error ? 1 : 0;
+        this.retriable += retriable ? 1 : 0;
+    }
+
+    synchronized PhaseStats stats(String phase) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new PhaseStats(phase, count, totalNanos, percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), count == 0 ? 0 : sorted[count - 1], bytes, errors, retriable);
+    }
+
+    // Nearest rank
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.forrestformations.replay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.forrestformations.Printer;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+
+/**
+ * Captures what the commands read from a namespace: Pods, ReplicaSets, Deployments, Jobs and Events are listed once
+ * and then watched for a while. Managed fields are dropped, as nothing reads them and they make up much of an object.
+ */
+public final class Recorder {
+
+    private static final List<Class<? extends HasMetadata>> KINDS =
+            List.of(Pod.class, ReplicaSet.class, Deployment.class, Job.class, Event.class);
+
+    private final KubernetesClient client;
+
+    public Recorder(KubernetesClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Lists the client's namespace, then records changes to it for the given time.
+     */
+    public Recording record(Duration watchFor) throws InterruptedException {
+        Map<String, String> lists = new LinkedHashMap<>();
+        List<Recording.Event> events = Collections.synchronizedList(new ArrayList<>());
+        List<Watch> watches = new ArrayList<>();
+        long started = System.nanoTime();
+        try {
+            for (Class<? extends HasMetadata> kind : KINDS) {
+                record(kind, lists, watchFor.isPositive() ? events : null, started, watches);
+            }
+            if (watchFor.isPositive()) {
+                Thread.sleep(watchFor);
+            }
+        } finally {
+            watches.forEach(Watch::close);
+        }
+
+        List<Recording.Event> recorded = new ArrayList<>(events);
+        recorded.sort((left, right) -> Long.compare(left.offsetMillis(), right.offsetMillis()));
+        return new Recording(lists, recorded);
+    }
+
+    /**
+     * The collection path the API server serves a kind under in a namespace.
+     */
+    static String path(Class<? extends HasMetadata> kind, String namespace) {
+        String group = HasMetadata.getGroup(kind);
+        String prefix = group.isEmpty() ? "/api/" : "/apis/" + group + "/";
+        return prefix + HasMetadata.getVersion(kind) + "/namespaces/" + namespace + "/" + HasMetadata.getPlural(kind);
+    }
+
+    private <T extends HasMetadata> void record(Class<T> kind, Map<String, String> lists,
+                                                List<Recording.Event> events, long started, List<Watch> watches) {
+        String path = path(kind, client.getNamespace());
+        KubernetesResourceList<T> list = client.resources(kind).list();
+        list.getItems().forEach(Recorder::slim);
+        lists.put(path, client.getKubernetesSerialization().asJson(list));
+        if (events == null) {
+            return;
+        }
+
+        watches.add(client.resources(kind).watch(new ListOptionsBuilder()
+                .withResourceVersion(list.getMetadata().getResourceVersion())
+                .build(), new Watcher<>() {
+
+            @Override
+            public void eventReceived(Action action, T resource) {
+                if (action == Action.BOOKMARK || action == Action.ERROR) {
+                    return;
+                }
+                slim(resource);
+                String json = client.getKubernetesSerialization()
+                        .asJson(Map.of("type", action.name(), "object", resource));
+                events.add(new Recording.Event(Duration.ofNanos(System.nanoTime() - started).toMillis(), path, json));
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+                Printer.error("Stopped recording %s: %s", path, cause.getMessage());
+            }
+
+        }));
+    }
+
+    private static void slim(HasMetadata resource) {
+        resource.getMetadata().setManagedFields(null);
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.forrestformations.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A captured namespace: the list responses of its collections, plus the watch events that followed, each at its
+ * offset from the start of the recording. Stored gzipped, so the repetitive JSON of thousands of similar objects
+ * takes a small fraction of its size.
+ */
+public final class Recording {
+
+    private static final int MAGIC = 0x4b505231; // KPR1
+    private static final Pattern NAMESPACE = Pattern.compile("/namespaces/([^/]+)/");
+
+    /**
+     * @param path the collection the event belongs to, e.g. {@code /api/v1/namespaces/default/pods}
+     * @param json the watch event, {@code {"type": ..., "object": ...}}
+     */
+    public record Event(long offsetMillis, String path, String json) {
+    }
+
+    private final Map<String, String> lists;
+    private final List<Event> events;
+
+    /**
+     * @param lists list response JSON by collection path
+     */
+    public Recording(Map<String, String> lists, List<Event> events) {
+        this.lists = Map.copyOf(lists);
+        this.events = List.copyOf(events);
+    }
+
+    public Map<String, String> lists() {
+        return lists;
+    }
+
+    public List<Event> events() {
+        return events;
+    }
+
+    /**
+     * @return the namespaces of the recorded collections, in order
+     */
+    public Set<String> namespaces() {
+        Set<String> namespaces = new TreeSet<>();
+        for (String path : lists.keySet()) {
+            Matcher matcher = NAMESPACE.matcher(path);
+            if (matcher.find()) {
+                namespaces.add(matcher.group(1));
+            }
+        }
+        return namespaces;
+    }
+
+    public static Recording read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a kube-play recording");
+            }
+            int listCount = in.readInt();
+            Map<String, String> lists = new LinkedHashMap<>();
+            for (int i = 0; i < listCount; i++) {
+                lists.put(in.readUTF(), readString(in));
+            }
+            int eventCount = in.readInt();
+            List<Event> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                events.add(new Event(in.readLong(), in.readUTF(), readString(in)));
+            }
+            return new Recording(lists, events);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(lists.size());
+            for (Map.Entry<String, String> list : lists.entrySet()) {
+                out.writeUTF(list.getKey());
+                writeString(out, list.getValue());
+            }
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeLong(event.offsetMillis());
+                out.writeUTF(event.path());
+                writeString(out, event.json());
+            }
+        }
+    }
+
+    // writeUTF is limited to 64 KiB, far less than a list of thousands of pods
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,436 @@
+package com.forrestformations.replay;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+
+/**
+ * Serves a {@link Recording} on localhost as a stand-in API server, so the real commands run against it through an
+ * ordinary kubeconfig. Lists honour label and field selectors and limit/continue paging, single objects can be read,
+ * and watches stream the recorded events as a clock replays them, at the recorded pace times the speed. A watch from
+ * a resourceVersion first gets the events after it, out of the latest {@value #MAX_HISTORY}; older versions are
+ * answered with 410 Gone. Patches are acknowledged as instantly rolled out but not applied.
+ */
+public final class ReplayServer implements AutoCloseable {
+
+    private static final KubernetesSerialization SERIALIZATION = new KubernetesSerialization();
+    private static final Pattern NAMESPACED =
+            Pattern.compile("(/api/v1|/apis/[^/]+/[^/]+)/namespaces/([^/]+)/([^/]+)(?:/([^/]+))?");
+    private static final Pattern CLUSTER_WIDE = Pattern.compile("(/api/v1|/apis/[^/]+/[^/]+)/([^/]+)");
+    private static final String VERSION = "{\"major\":\"1\",\"minor\":\"30\",\"gitVersion\":\"v1.30.0-replay\"}";
+    // Tells a watch its server is shutting down
+    private static final String CLOSED = "";
+    private static final int MAX_HISTORY = 10_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong resourceVersion = new AtomicLong(1);
+    // Guarded by itself, which also orders applying events against watches subscribing
+    private final Deque<Change> history = new ArrayDeque<>();
+    private long compactedVersion;
+    private final Thread clock;
+
+    private ReplayServer(Recording recording, int port, double speed) throws IOException {
+        for (Map.Entry<String, String> list : recording.lists().entrySet()) {
+            load(list.getKey(), list.getValue());
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        clock = Thread.ofVirtual().name("replay-clock").unstarted(() -> replay(recording.events(), speed));
+    }
+
+    /**
+     * Starts serving the recording, replaying its events from now on.
+     *
+     * @param port the port to listen on, 0 for any free one
+     * @param speed how much faster than recorded to replay events, 0 or less for all at once
+     */
+    public static ReplayServer start(Recording recording, int port, double speed) throws IOException {
+        ReplayServer replay = new ReplayServer(recording, port, speed);
+        replay.server.start();
+        replay.clock.start();
+        return replay;
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return the objects served right now
+     */
+    public int objects() {
+        return collections.values().stream().mapToInt(collection -> collection.items.size()).sum();
+    }
+
+    @Override
+    public void close() {
+        clock.interrupt();
+        subscriptions.forEach(subscription -> subscription.queue.offer(CLOSED));
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void load(String path, String json) {
+        GenericKubernetesResourceList list = SERIALIZATION.unmarshal(json, GenericKubernetesResourceList.class);
+        Matcher matcher = NAMESPACED.matcher(path);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a namespaced collection: " + path);
+        }
+        Collection collection = collections.computeIfAbsent(path,
+                key -> new Collection(resource(matcher), matcher.group(2), list.getApiVersion(), list.getKind()));
+        for (GenericKubernetesResource item : list.getItems()) {
+            // Versions restart with the replay, so the recorded ones must not run ahead of what watches see
+            item.getMetadata().setResourceVersion(Long.toString(resourceVersion.get()));
+            collection.put(item, SERIALIZATION.asJson(item));
+        }
+    }
+
+    private void replay(List<Recording.Event> events, double speed) {
+        long started = System.nanoTime();
+        try {
+            for (Recording.Event event : events) {
+                if (speed > 0) {
+                    long due = started + (long) (TimeUnit.MILLISECONDS.toNanos(event.offsetMillis()) / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                WatchEvent recorded = SERIALIZATION.unmarshal(event.json(), WatchEvent.class);
+                apply(event.path(), recorded.getType(),
+                        SERIALIZATION.convertValue(recorded.getObject(), GenericKubernetesResource.class));
+            }
+        } catch (InterruptedException iE) {
+            // Closed
+        }
+    }
+
+    private void apply(String path, String type, GenericKubernetesResource object) {
+        Matcher matcher = NAMESPACED.matcher(path);
+        if (!matcher.matches()) {
+            return;
+        }
+        synchronized (history) {
+            applyInOrder(path, matcher, type, object);
+        }
+    }
+
+    private void applyInOrder(String path, Matcher matcher, String type, GenericKubernetesResource object) {
+        long version = resourceVersion.incrementAndGet();
+        object.getMetadata().setResourceVersion(Long.toString(version));
+        Collection collection = collections.computeIfAbsent(path, key -> new Collection(resource(matcher),
+                matcher.group(2), object.getApiVersion(), object.getKind() + "List"));
+        String json = SERIALIZATION.asJson(object);
+        if (type.equals("DELETED")) {
+            collection.remove(object);
+        } else {
+            collection.put(object, json);
+        }
+
+        Change change = new Change(version, collection.resource, collection.namespace, object,
+                "{\"type\":\"" + type + "\",\"object\":" + json + "}");
+        if (history.size() == MAX_HISTORY) {
+            compactedVersion = history.removeFirst().version();
+        }
+        history.addLast(change);
+        for (Subscription subscription : subscriptions) {
+            if (subscription.wants(change)) {
+                subscription.queue.offer(change.event());
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            route(exchange);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            if (path.equals("/version")) {
+                send(exchange, 200, VERSION);
+                return;
+            }
+
+            Matcher namespaced = NAMESPACED.matcher(path);
+            Matcher clusterWide = CLUSTER_WIDE.matcher(path);
+            String resource;
+            String namespace;
+            if (namespaced.matches()) {
+                resource = resource(namespaced);
+                namespace = namespaced.group(2);
+                if (namespaced.group(4) != null) {
+                    item(exchange, path.substring(0, path.lastIndexOf('/')), namespace, namespaced.group(4));
+                    return;
+                }
+            } else if (clusterWide.matches() && !clusterWide.group(2).equals("namespaces")) {
+                resource = path;
+                namespace = null;
+            } else {
+                notFound(exchange, path);
+                return;
+            }
+
+            Predicate<GenericKubernetesResource> filter = Selectors.labels(query.get("labelSelector"))
+                    .and(Selectors.fields(query.get("fieldSelector")));
+            if ("true".equals(query.get("watch"))) {
+                watch(exchange, resource, namespace, filter, query.get("resourceVersion"));
+            } else {
+                list(exchange, resource, namespace, filter, query);
+            }
+        } catch (IllegalArgumentException iAE) {
+            send(exchange, 400, status(400, "BadRequest", iAE.getMessage()));
+        }
+    }
+
+    private void list(HttpExchange exchange, String resource, String namespace,
+                      Predicate<GenericKubernetesResource> filter, Map<String, String> query) throws IOException {
+        long limit = query.containsKey("limit") ? Long.parseLong(query.get("limit")) : Long.MAX_VALUE;
+        String after = query.getOrDefault("continue", "");
+        String version = Long.toString(resourceVersion.get());
+
+        List<Collection> matching = collections.values().stream()
+                .filter(collection -> collection.resource.equals(resource)
+                        && (namespace == null || collection.namespace.equals(namespace)))
+                .sorted((left, right) -> left.namespace.compareTo(right.namespace))
+                .toList();
+        StringBuilder items = new StringBuilder();
+        String last = null;
+        long count = 0;
+        boolean more = false;
+        // Keys are namespace/name, so the continue key orders the same across namespaces
+        for (Collection collection : matching) {
+            Iterator<Item> page = collection.items.tailMap(after, false).values().iterator();
+            while (page.hasNext() && !more) {
+                Item item = page.next();
+                if (!filter.test(item.resource())) {
+                    continue;
+                }
+                if (count == limit) {
+                    more = true;
+                    break;
+                }
+                items.append(count++ == 0 ? "" : ",").append(item.json());
+                last = item.key();
+            }
+        }
+
+        Collection first = matching.isEmpty() ? null : matching.get(0);
+        StringBuilder body = new StringBuilder(items.length() + 256).append('{');
+        if (first != null) {
+            body.append("\"apiVersion\":\"").append(first.apiVersion).append("\",\"kind\":\"")
+                    .append(first.listKind).append("\",");
+        }
+        body.append("\"metadata\":{\"resourceVersion\":\"").append(version).append('"');
+        if (more) {
+            body.append(",\"continue\":").append(SERIALIZATION.asJson(last));
+        }
+        body.append("},\"items\":[").append(items).append("]}");
+        send(exchange, 200, body.toString());
+    }
+
+    private void watch(HttpExchange exchange, String resource, String namespace,
+                       Predicate<GenericKubernetesResource> filter, String since) throws IOException {
+        if (exchange.getRequestHeaders().containsKey("Upgrade")) {
+            // Refusing the websocket upgrade with a plain 200 makes fabric8 fall back to a streamed HTTP watch
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        // Like the API server, no version or "0" means starting from now
+        long after = since == null || since.isEmpty() ? 0 : Long.parseLong(since);
+        Subscription subscription = new Subscription(resource, namespace, filter, new LinkedBlockingQueue<>());
+        subscribe(subscription, after);
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.flush();
+            for (String event = subscription.queue.take(); event != CLOSED; event = subscription.queue.take()) {
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException gone) {
+            // The client stopped watching
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * Registers a watch, first queueing the events it missed since {@code after}, or 410 Gone if some of them are no
+     * longer kept.
+     */
+    private void subscribe(Subscription subscription, long after) {
+        synchronized (history) {
+            if (after > 0 && after < compactedVersion) {
+                subscription.queue.offer("{\"type\":\"ERROR\",\"object\":" + status(410, "Expired",
+                        "too old resource version: " + after + " (" + compactedVersion + ")") + "}");
+                subscription.queue.offer(CLOSED);
+                return;
+            }
+            if (after > 0) {
+                for (Change change : history) {
+                    if (change.version() > after && subscription.wants(change)) {
+                        subscription.queue.offer(change.event());
+                    }
+                }
+            }
+            subscriptions.add(subscription);
+        }
+    }
+
+    private void item(HttpExchange exchange, String collectionPath, String namespace, String name)
+            throws IOException {
+        Collection collection = collections.get(collectionPath);
+        Item item = collection == null ? null : collection.items.get(namespace + "/" + name);
+        if (item == null) {
+            notFound(exchange, collectionPath + "/" + name);
+            return;
+        }
+        if (exchange.getRequestMethod().equals("PATCH")) {
+            exchange.getRequestBody().readAllBytes();
+            GenericKubernetesResource patched = SERIALIZATION.clone(item.resource());
+            long generation = patched.getMetadata().getGeneration() == null ?
+                    2 : patched.getMetadata().getGeneration() + 1;
+            patched.getMetadata().setGeneration(generation);
+            if (patched.getAdditionalProperties().get("status") instanceof Map<?, ?> status) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> writable = (Map<String, Object>) status;
+                writable.put("observedGeneration", generation);
+            }
+            apply(collectionPath, "MODIFIED", patched);
+            item = collection.items.get(namespace + "/" + name);
+        }
+        send(exchange, 200, item.json());
+    }
+
+    private static void notFound(HttpExchange exchange, String path) throws IOException {
+        send(exchange, 404, status(404, "NotFound", path + " is not in the recording"));
+    }
+
+    private static String status(int code, String reason, String message) {
+        return "{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\",\"message\":"
+                + SERIALIZATION.asJson(message) + ",\"reason\":\"" + reason + "\",\"code\":" + code + "}";
+    }
+
+    private static void send(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String key = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * The cluster-wide path of a namespaced collection's resource, e.g. {@code /api/v1/pods}.
+     */
+    private static String resource(Matcher namespaced) {
+        return namespaced.group(1) + "/" + namespaced.group(3);
+    }
+
+    private record Item(String key, GenericKubernetesResource resource, String json) {
+    }
+
+    /**
+     * One applied event, kept so a watch can catch up from the version its list returned.
+     */
+    private record Change(long version, String resource, String namespace, GenericKubernetesResource object,
+                          String event) {
+    }
+
+    private record Subscription(String resource, String namespace, Predicate<GenericKubernetesResource> filter,
+                                BlockingQueue<String> queue) {
+
+        boolean wants(Change change) {
+            return resource.equals(change.resource())
+                    && (namespace == null || namespace.equals(change.namespace()))
+                    && filter.test(change.object());
+        }
+
+    }
+
+    private static final class Collection {
+
+        private final String resource;
+        private final String namespace;
+        private final String apiVersion;
+        private final String listKind;
+        private final NavigableMap<String, Item> items = new ConcurrentSkipListMap<>();
+
+        Collection(String resource, String namespace, String apiVersion, String listKind) {
+            this.resource = resource;
+            this.namespace = namespace;
+            this.apiVersion = apiVersion;
+            this.listKind = listKind;
+        }
+
+        void put(GenericKubernetesResource resource, String json) {
+            String key = key(resource);
+            items.put(key, new Item(key, resource, json));
+        }
+
+        void remove(GenericKubernetesResource resource) {
+            items.remove(key(resource));
+        }
+
+        private String key(GenericKubernetesResource resource) {
+            return namespace + "/" + resource.getMetadata().getName();
+        }
+
+    }
+
+}
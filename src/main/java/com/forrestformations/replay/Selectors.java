@@ -0,0 +1,112 @@
+package com.forrestformations.replay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+
+/**
+ * Evaluates label and field selectors the way the API server does, for the objects a replay serves.
+ */
+final class Selectors {
+
+    private Selectors() {
+    }
+
+    static Predicate<GenericKubernetesResource> labels(String selector) {
+        Predicate<GenericKubernetesResource> all = resource -> true;
+        if (selector == null || selector.isBlank()) {
+            return all;
+        }
+        for (String requirement : split(selector)) {
+            all = all.and(label(requirement.trim()));
+        }
+        return all;
+    }
+
+    static Predicate<GenericKubernetesResource> fields(String selector) {
+        Predicate<GenericKubernetesResource> all = resource -> true;
+        if (selector == null || selector.isBlank()) {
+            return all;
+        }
+        for (String requirement : selector.split(",")) {
+            boolean negated = requirement.contains("!=");
+            String[] parts = requirement.split(negated ? "!=" : "==?", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unsupported field selector: " + requirement);
+            }
+            String field = parts[0].trim();
+            String value = parts[1].trim();
+            all = all.and(resource -> value.equals(field(resource, field)) != negated);
+        }
+        return all;
+    }
+
+    private static Predicate<GenericKubernetesResource> label(String requirement) {
+        String[] words = requirement.split("\\s+", 3);
+        if (words.length == 3 && (words[1].equals("in") || words[1].equals("notin"))) {
+            Set<String> values = Set.copyOf(Arrays.stream(words[2].replaceAll("[()]", "").split(","))
+                    .map(String::trim)
+                    .toList());
+            boolean in = words[1].equals("in");
+            return resource -> {
+                String value = labels(resource).get(words[0]);
+                return in ? value != null && values.contains(value) : value == null || !values.contains(value);
+            };
+        }
+        if (requirement.startsWith("!")) {
+            String key = requirement.substring(1).trim();
+            return resource -> !labels(resource).containsKey(key);
+        }
+        if (requirement.contains("!=")) {
+            String[] parts = requirement.split("!=", 2);
+            return resource -> !parts[1].trim().equals(labels(resource).get(parts[0].trim()));
+        }
+        if (requirement.contains("=")) {
+            String[] parts = requirement.split("==?", 2);
+            return resource -> parts[1].trim().equals(labels(resource).get(parts[0].trim()));
+        }
+        return resource -> labels(resource).containsKey(requirement);
+    }
+
+    /**
+     * Splits on the commas between requirements, not those inside a set of values.
+     */
+    private static List<String> split(String selector) {
+        List<String> requirements = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                requirements.add(selector.substring(start, i));
+                start = i + 1;
+            }
+        }
+        requirements.add(selector.substring(start));
+        return requirements;
+    }
+
+    private static Map<String, String> labels(GenericKubernetesResource resource) {
+        Map<String, String> labels = resource.getMetadata().getLabels();
+        return labels == null ? Map.of() : labels;
+    }
+
+    private static String field(GenericKubernetesResource resource, String field) {
+        return switch (field) {
+            case "metadata.name" -> resource.getMetadata().getName();
+            case "metadata.namespace" -> resource.getMetadata().getNamespace();
+            default -> Objects.toString(resource.get((Object[]) field.split("\\.")), null);
+        };
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.forrestformations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import io.fabric8.kubernetes.api.model.ContainerStateBuilder;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ContainerStatusBuilder;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.api.model.EventListBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.PodTemplateSpec;
+import io.fabric8.kubernetes.api.model.PodTemplateSpecBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentListBuilder;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSet;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetBuilder;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetListBuilder;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobListBuilder;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+
+/**
+ * Generates a recording of a namespace of any size without a cluster: Deployments of three Tomcat replicas, their
+ * ReplicaSets and running Pods, followed by churn spread over the span, containers restarting (now and then
+ * OOM-killed) with the Events that go with them. Seeded by the namespace, so the same arguments give the same
+ * names, placement and churn.
+ */
+public final class SyntheticNamespace {
+
+    private static final int REPLICAS = 3;
+    private static final String TEMPLATE_HASH = "5d8f7c9b4";
+    private static final KubernetesSerialization SERIALIZATION = new KubernetesSerialization();
+
+    private SyntheticNamespace() {
+    }
+
+    public static Recording generate(String namespace, int pods, int events, Duration span) {
+        Random random = new Random(namespace.hashCode());
+        Instant now = Instant.now();
+        Instant created = now.minus(Duration.ofDays(1));
+        List<Deployment> deployments = new ArrayList<>();
+        List<ReplicaSet> replicaSets = new ArrayList<>();
+        List<Pod> podList = new ArrayList<>();
+
+        for (int d = 0; d * REPLICAS < pods; d++) {
+            String app = String.format("app-%04d", d);
+            int replicas = Math.min(REPLICAS, pods - d * REPLICAS);
+            Deployment deployment = deployment(namespace, app, replicas, random, created);
+            ReplicaSet replicaSet = replicaSet(deployment, random, created);
+            deployments.add(deployment);
+            replicaSets.add(replicaSet);
+            for (int r = 0; r < replicas; r++) {
+                podList.add(pod(replicaSet, r, random, created));
+            }
+        }
+
+        Map<String, String> lists = new LinkedHashMap<>();
+        lists.put(Recorder.path(Pod.class, namespace), list(new PodListBuilder().withItems(podList).build()));
+        lists.put(Recorder.path(ReplicaSet.class, namespace),
+                list(new ReplicaSetListBuilder().withItems(replicaSets).build()));
+        lists.put(Recorder.path(Deployment.class, namespace),
+                list(new DeploymentListBuilder().withItems(deployments).build()));
+        lists.put(Recorder.path(Job.class, namespace), list(new JobListBuilder().build()));
+        lists.put(Recorder.path(Event.class, namespace), list(new EventListBuilder().build()));
+
+        List<Recording.Event> churn = new ArrayList<>();
+        for (int e = 0; e < events && !podList.isEmpty(); e++) {
+            long offset = events == 1 ? 0 : span.toMillis() * e / (events - 1);
+            Pod pod = podList.get(random.nextInt(podList.size()));
+            boolean oomKilled = random.nextInt(10) == 0;
+            // Stamped as if happening while replayed, so they count as recent
+            Instant at = now.plusMillis(offset);
+            restart(pod, oomKilled, at);
+            churn.add(event(offset, Recorder.path(Pod.class, namespace), "MODIFIED", pod));
+            churn.add(event(offset, Recorder.path(Event.class, namespace), "ADDED",
+                    coreEvent(pod, e, oomKilled, random, at)));
+        }
+        return new Recording(lists, churn);
+    }
+
+    private static Deployment deployment(String namespace, String app, int replicas, Random random,
+                                         Instant created) {
+        return new DeploymentBuilder()
+                .withNewMetadata()
+                    .withName(app)
+                    .withNamespace(namespace)
+                    .withUid(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .withGeneration(1L)
+                    .withResourceVersion("1")
+                    .withCreationTimestamp(created.toString())
+                    .addToLabels("app", app)
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(replicas)
+                    .withNewSelector().addToMatchLabels("app", app).endSelector()
+                    .withTemplate(template(app))
+                .endSpec()
+                .withNewStatus()
+                    .withObservedGeneration(1L)
+                    .withReplicas(replicas)
+                    .withUpdatedReplicas(replicas)
+                    .withReadyReplicas(replicas)
+                    .withAvailableReplicas(replicas)
+                    .addNewCondition()
+                        .withType("Progressing")
+                        .withStatus("True")
+                        .withReason("NewReplicaSetAvailable")
+                    .endCondition()
+                .endStatus()
+                .build();
+    }
+
+    private static PodTemplateSpec template(String app) {
+        return new PodTemplateSpecBuilder()
+                .withNewMetadata().addToLabels("app", app).endMetadata()
+                .withNewSpec()
+                    .addNewContainer()
+                        .withName("tomcat")
+                        .withImage("registry.example.com/" + app + ":1.0")
+                        .addNewEnv().withName("CATALINA_OPTS").withValue("-Xmx512m").endEnv()
+                        .addNewPort().withName("http").withContainerPort(8080).withProtocol("TCP").endPort()
+                    .endContainer()
+                .endSpec()
+                .build();
+    }
+
+    private static ReplicaSet replicaSet(Deployment deployment, Random random, Instant created) {
+        String app = deployment.getMetadata().getName();
+        return new ReplicaSetBuilder()
+                .withNewMetadata()
+                    .withName(app + "-" + TEMPLATE_HASH)
+                    .withNamespace(deployment.getMetadata().getNamespace())
+                    .withUid(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .withResourceVersion("1")
+                    .withCreationTimestamp(created.toString())
+                    .addToLabels("app", app)
+                    .addToLabels("pod-template-hash", TEMPLATE_HASH)
+                    .withOwnerReferences(owner(deployment))
+                .endMetadata()
+                .withNewSpec()
+                    .withReplicas(deployment.getSpec().getReplicas())
+                    .withNewSelector()
+                        .addToMatchLabels("app", app)
+                        .addToMatchLabels("pod-template-hash", TEMPLATE_HASH)
+                    .endSelector()
+                    .withTemplate(deployment.getSpec().getTemplate())
+                .endSpec()
+                .withNewStatus()
+                    .withReplicas(deployment.getSpec().getReplicas())
+                    .withReadyReplicas(deployment.getSpec().getReplicas())
+                    .withAvailableReplicas(deployment.getSpec().getReplicas())
+                .endStatus()
+                .build();
+    }
+
+    private static Pod pod(ReplicaSet replicaSet, int replica, Random random, Instant created) {
+        String app = replicaSet.getMetadata().getLabels().get("app");
+        String suffix = Integer.toString(36 * 36 * 36 * 36 + random.nextInt(35 * 36 * 36 * 36 * 36), 36);
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(replicaSet.getMetadata().getName() + "-" + suffix)
+                    .withNamespace(replicaSet.getMetadata().getNamespace())
+                    .withUid(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .withResourceVersion("1")
+                    .withCreationTimestamp(created.toString())
+                    .withLabels(replicaSet.getMetadata().getLabels())
+                    .withOwnerReferences(owner(replicaSet))
+                .endMetadata()
+                .withSpec(replicaSet.getSpec().getTemplate().getSpec())
+                .editSpec().withNodeName(String.format("node-%03d", random.nextInt(100))).endSpec()
+                .withNewStatus()
+                    .withPhase("Running")
+                    .withPodIP(String.format("10.%d.%d.%d", replica, random.nextInt(256), random.nextInt(256)))
+                    .withStartTime(created.toString())
+                    .addNewCondition().withType("Ready").withStatus("True").endCondition()
+                    .addToContainerStatuses(new ContainerStatusBuilder()
+                            .withName("tomcat")
+                            .withImage(replicaSet.getSpec().getTemplate().getSpec().getContainers().get(0).getImage())
+                            .withReady(true)
+                            .withStarted(true)
+                            .withRestartCount(0)
+                            .withNewState().withNewRunning(created.toString()).endState()
+                            .build())
+                .endStatus()
+                .build();
+    }
+
+    private static void restart(Pod pod, boolean oomKilled, Instant at) {
+        ContainerStatus status = pod.getStatus().getContainerStatuses().get(0);
+        status.setRestartCount(status.getRestartCount() + 1);
+        status.setLastState(new ContainerStateBuilder()
+                .withNewTerminated()
+                    .withExitCode(oomKilled ? 137 : 1)
+                    .withReason(oomKilled ? "OOMKilled" : "Error")
+                    .withFinishedAt(at.toString())
+                .endTerminated()
+                .build());
+        status.getState().getRunning().setStartedAt(at.toString());
+    }
+
+    private static Event coreEvent(Pod pod, int index, boolean oomKilled, Random random, Instant at) {
+        return new EventBuilder()
+                .withNewMetadata()
+                    .withName(pod.getMetadata().getName() + "." + Integer.toHexString(index))
+                    .withNamespace(pod.getMetadata().getNamespace())
+                    .withUid(new UUID(random.nextLong(), random.nextLong()).toString())
+                .endMetadata()
+                .withNewInvolvedObject()
+                    .withKind("Pod")
+                    .withName(pod.getMetadata().getName())
+                    .withNamespace(pod.getMetadata().getNamespace())
+                    .withUid(pod.getMetadata().getUid())
+                .endInvolvedObject()
+                .withType("Warning")
+                .withReason(oomKilled ? "OOMKilling" : "BackOff")
+                .withMessage(oomKilled ? "Memory cgroup out of memory: Killed process (java)" :
+                        "Back-off restarting failed container tomcat")
+                .withCount(1)
+                .withFirstTimestamp(at.toString())
+                .withLastTimestamp(at.toString())
+                .build();
+    }
+
+    private static OwnerReference owner(HasMetadata owner) {
+        return new OwnerReferenceBuilder()
+                .withApiVersion(owner.getApiVersion())
+                .withKind(owner.getKind())
+                .withName(owner.getMetadata().getName())
+                .withUid(owner.getMetadata().getUid())
+                .withController(true)
+                .build();
+    }
+
+    private static String list(Object list) {
+        return SERIALIZATION.asJson(list);
+    }
+
+    private static Recording.Event event(long offsetMillis, String path, String type, HasMetadata object) {
+        return new Recording.Event(offsetMillis, path, SERIALIZATION.asJson(Map.of("type", type, "object", object)));
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.forrestformations.throttle;
+
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.profile.Profiler;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+
+/**
+ * Keeps every client of this JVM talking to one API server within a shared token bucket, so commands, helpers,
+ * watches and the client's own retries together stay under {@link #limit the configured rate}. A request waits for
+ * its token on the thread sending it when that is the caller's own thread. Retries and watch reconnects are sent from
+ * the client's scheduler, which every pending retry and request timeout of the JVM shares, so they take their token
+ * without waiting for it there.
+ * <p>
+ * The client already retries 429 and 5xx answers with exponential backoff. It reads Retry-After, but schedules the
+ * retry after its own backoff interval all the same, so the failed answer is held back here until the bucket has a
+ * token again, plus a random delay of up to the current backoff interval so instances throttled together do not retry
+ * together. The whole bucket is held back for the Retry-After, so other requests do not pile onto the server either.
+ * The last answer, which the client hands back instead of retrying, is not held back.
+ */
+public final class Throttle implements Interceptor {
+
+    public static final String NAME = "kube-play-throttle";
+    public static final int DEFAULT_PER_SECOND = 20;
+    public static final int DEFAULT_BURST = 40;
+
+    private static final int MAX_BACKOFF_EXPONENT = 5;
+    private static final long MAX_RETRY_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    // Failures of requests that timed out or were cancelled between retries are never cleared by an answer
+    private static final int MAX_TRACKED_FAILURES = 1024;
+    private static final Map<String, TokenBucket> BUCKETS = new ConcurrentHashMap<>();
+    private static volatile Rate rate = new Rate(DEFAULT_PER_SECOND, DEFAULT_BURST);
+
+    private final String server;
+    private final long backoffMillis;
+    private final int retryLimit;
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+    public Throttle(Config config) {
+        this.server = String.valueOf(config.getMasterUrl());
+        this.backoffMillis = Math.max(1, config.getRequestRetryBackoffInterval());
+        this.retryLimit = config.getRequestRetryBackoffLimit();
+    }
+
+    /**
+     * Sets the rate every API server is sent requests at from now on.
+     *
+     * @param perSecond requests per second, 0 for no limit
+     * @param burst requests that may be sent at once after a quiet period
+     */
+    public static synchronized void limit(double perSecond, int burst) {
+        Rate next = new Rate(perSecond, burst);
+        if (!next.equals(rate)) {
+            rate = next;
+            BUCKETS.clear();
+        }
+    }
+
+    @Override
+    public void before(BasicBuilder builder, HttpRequest request, RequestTags tags) {
+        long wait = bucket().reserve();
+        if (wait == 0 || !callerThread(Thread.currentThread())) {
+            return;
+        }
+        try (Profiler.Span span = Profiler.time("throttle")) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException iE) {
+            // Sent without waiting; the interrupt is left for the caller to notice
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        if (HttpResponse.isSuccessful(response.code())) {
+            bucket().recovered();
+            failures.remove(key(request));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> afterFailure(BasicBuilder builder, HttpResponse<?> response, RequestTags tags) {
+        int code = response.code();
+        String key = key(response.request());
+        if (code != 429 && code < 500) {
+            failures.remove(key);
+            return CompletableFuture.completedFuture(false);
+        }
+        TokenBucket bucket = bucket();
+        int pushBacks = bucket.pushBack(retryAfterNanos(response.header("Retry-After")));
+        if (failures.size() >= MAX_TRACKED_FAILURES) {
+            failures.clear();
+        }
+        // The client retries the same way for as many failures in a row as its limit allows, then gives up
+        if (retryLimit >= 0 && failures.merge(key, 1, Integer::sum) > retryLimit) {
+            failures.remove(key);
+            return CompletableFuture.completedFuture(false);
+        }
+        long window = TimeUnit.MILLISECONDS.toNanos(backoffMillis << Math.min(pushBacks - 1, MAX_BACKOFF_EXPONENT));
+        // Completing false leaves the retry itself to the client, after its own backoff
+        long delay = bucket.waitNanos() + ThreadLocalRandom.current().nextLong(window);
+        return CompletableFuture.supplyAsync(() -> false, CompletableFuture.delayedExecutor(
+                delay, TimeUnit.NANOSECONDS, Thread::startVirtualThread));
+    }
+
+    private TokenBucket bucket() {
+        Rate current = rate;
+        return BUCKETS.computeIfAbsent(server, key -> new TokenBucket(current.perSecond(), current.burst()));
+    }
+
+    // Everything sending requests here runs on the main thread or a virtual thread; the client's scheduler and pools
+    // are daemon platform threads
+    private static boolean callerThread(Thread thread) {
+        return thread.isVirtual() || !thread.isDaemon();
+    }
+
+    private static String key(HttpRequest request) {
+        return request.method() + ' ' + request.uri();
+    }
+
+    // Read like the client reads it, as seconds or an HTTP date; garbage counts as no hint
+    static long retryAfterNanos(String header) {
+        if (header == null) {
+            return 0;
+        }
+        long millis;
+        try {
+            millis = TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException nFE) {
+            try {
+                millis = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                        .toEpochMilli() - System.currentTimeMillis();
+            } catch (DateTimeParseException dTPE) {
+                return 0;
+            }
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.min(Math.max(0, millis), MAX_RETRY_AFTER_MILLIS));
+    }
+
+    private record Rate(double perSecond, int burst) {
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.forrestformations.throttle;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limit of the requests to one API server, kept as the time the next token is due rather than a refilled count:
+ * a request takes a token by moving that time on by one interval, and waits for however far it has run ahead of the
+ * burst allowance. Reservations are never refused, so a request cannot starve behind later ones.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicInteger pushBacks = new AtomicInteger();
+    private long due = System.nanoTime();
+
+    /**
+     * @param perSecond tokens added per second, 0 for no limit
+     * @param burst tokens that may be taken at once after a quiet period
+     */
+    TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = perSecond <= 0 ? 0 : (long) (1e9 / perSecond);
+        this.burstNanos = Math.max(0, burst - 1) * intervalNanos;
+    }
+
+    /**
+     * Takes a token.
+     *
+     * @return nanoseconds to wait before the token may be used
+     */
+    synchronized long reserve() {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long start = Math.max(due, now - burstNanos);
+        due = start + intervalNanos;
+        return Math.max(0, start - now);
+    }
+
+    /**
+     * @return nanoseconds a request taking a token now would wait, without taking it
+     */
+    synchronized long waitNanos() {
+        return intervalNanos == 0 ? 0 : Math.max(0, due - System.nanoTime());
+    }
+
+    /**
+     * Records that the server turned a request away, holding back every token until it said to try again.
+     *
+     * @return how many requests in a row it has turned away
+     */
+    int pushBack(long retryAfterNanos) {
+        if (retryAfterNanos > 0 && intervalNanos > 0) {
+            synchronized (this) {
+                due = Math.max(due, System.nanoTime() + retryAfterNanos);
+            }
+        }
+        return pushBacks.incrementAndGet();
+    }
+
+    void recovered() {
+        if (pushBacks.get() != 0) {
+            pushBacks.set(0);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.forrestformations.nativeimage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+
+/**
+ * Registers the fabric8 model classes we read and write for reflection, since Jackson binds them reflectively and
+ * fabric8 ships no native-image metadata. Only the API groups the commands use are included, keeping the image small.
+ * Nested classes are left out apart from the serializers and deserializers the models name in their annotations, such
+ * as {@code Quantity$Deserializer}, which Jackson creates through their no-arg constructors.
+ */
+public final class KubeModelFeature implements Feature {
+
+    private static final Set<String> MODEL_PACKAGES = Set.of(
+            "io.fabric8.kubernetes.api.model",
+            "io.fabric8.kubernetes.api.model.apps",
+            "io.fabric8.kubernetes.api.model.batch.v1",
+            "io.fabric8.kubernetes.api.model.metrics.v1beta1");
+
+    private static final Set<String> CLIENT_CLASSES = Set.of(
+            "io.fabric8.kubernetes.client.Config",
+            "io.fabric8.kubernetes.client.VersionInfo");
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        for (Path path : access.getApplicationClassPath()) {
+            if (Files.isRegularFile(path) && path.toString().endsWith(".jar")) {
+                registerModels(access, path);
+            }
+        }
+        CLIENT_CLASSES.forEach(name -> register(access.findClassByName(name)));
+    }
+
+    private static void registerModels(BeforeAnalysisAccess access, Path jar) {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = file.entries();
+            while (entries.hasMoreElements()) {
+                String className = modelClassName(entries.nextElement().getName());
+                if (className == null) {
+                    continue;
+                }
+                Class<?> type = access.findClassByName(className);
+                if (className.indexOf('$') < 0) {
+                    register(type);
+                } else if (isSerDes(type)) {
+                    registerSerDes(type);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not scan " + jar, e);
+        }
+    }
+
+    /**
+     * @return the class name for a model class entry or a class nested in one, null for anything else, builders and
+     * fluent interfaces included along with their nested classes since those are never bound by Jackson
+     */
+    private static String modelClassName(String entry) {
+        if (!entry.endsWith(".class")) {
+            return null;
+        }
+        String className = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot < 0 || !MODEL_PACKAGES.contains(className.substring(0, lastDot))) {
+            return null;
+        }
+        int nested = className.indexOf('$');
+        String outer = nested < 0 ? className : className.substring(0, nested);
+        if (outer.endsWith("Builder") || outer.endsWith("Fluent")) {
+            return null;
+        }
+        return className;
+    }
+
+    private static boolean isSerDes(Class<?> type) {
+        return type != null && (JsonSerializer.class.isAssignableFrom(type)
+                || JsonDeserializer.class.isAssignableFrom(type));
+    }
+
+    private static void registerSerDes(Class<?> type) {
+        RuntimeReflection.register(type);
+        try {
+            RuntimeReflection.register(type.getDeclaredConstructor());
+        } catch (NoSuchMethodException nSME) {
+            // Jackson could not create it either, nothing to register
+        }
+    }
+
+    private static void register(Class<?> type) {
+        if (type == null) {
+            return;
+        }
+        RuntimeReflection.register(type);
+        RuntimeReflection.register(type.getDeclaredConstructors());
+        RuntimeReflection.register(type.getDeclaredMethods());
+        RuntimeReflection.register(type.getDeclaredFields());
+    }
+
+}
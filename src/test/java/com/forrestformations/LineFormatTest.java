@@ -0,0 +1,75 @@
+package com.forrestformations;
+
+import java.math.BigInteger;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.IllegalFormatConversionException;
+import java.util.MissingFormatArgumentException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineFormatTest {
+
+    static Stream<Arguments> formats() {
+        return Stream.of(
+                Arguments.of("plain text", new Object[0]),
+                Arguments.of("%s is %d%% done%n", new Object[]{"web", 42}),
+                Arguments.of("%-12s|%6s|%3d|%-4d|", new Object[]{"name", "ns", 7L, (short) 3}),
+                Arguments.of("%-3s|%2s", new Object[]{"longer than", "width"}),
+                Arguments.of("%2$s %1$s %2$s", new Object[]{"a", "b"}),
+                Arguments.of("%s %s", new Object[]{null, 1.5}),
+                Arguments.of("%d %d", new Object[]{BigInteger.TEN.pow(30), null}),
+                Arguments.of("%s", new Object[]{"extra", "arguments"}),
+                // Left to String.format
+                Arguments.of("%05d", new Object[]{42}),
+                Arguments.of("%.2f ms", new Object[]{3.14159}),
+                Arguments.of("%x", new Object[]{255}),
+                Arguments.of("%S", new Object[]{"upper"}),
+                Arguments.of("%s", new Object[]{new Shouting("formattable")}));
+    }
+
+    @ParameterizedTest
+    @MethodSource("formats")
+    void appendsWhatStringFormatWould(String format, Object[] arguments) {
+        StringBuilder line = new StringBuilder("> ");
+
+        LineFormat.append(line, format, arguments);
+
+        assertEquals("> " + String.format(format, arguments), line.toString());
+    }
+
+    @Test
+    void failsLikeStringFormat() {
+        assertThrows(MissingFormatArgumentException.class,
+                () -> LineFormat.append(new StringBuilder(), "%s and %s", new Object[]{"one"}));
+        assertThrows(IllegalFormatConversionException.class,
+                () -> LineFormat.append(new StringBuilder(), "%d", new Object[]{"not a number"}));
+    }
+
+    @Test
+    void reusesAParsedFormatWithOtherArguments() {
+        StringBuilder line = new StringBuilder();
+
+        LineFormat.append(line, "[%-5s]", new Object[]{"a"});
+        LineFormat.append(line, "[%-5s]", new Object[]{"bcd"});
+
+        assertEquals("[a    ][bcd  ]", line.toString());
+    }
+
+    private record Shouting(String text) implements Formattable {
+
+        @Override
+        public void formatTo(Formatter formatter, int flags, int width, int precision) {
+            formatter.format("%s!", text.toUpperCase());
+        }
+
+    }
+
+}
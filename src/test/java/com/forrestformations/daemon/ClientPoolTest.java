@@ -0,0 +1,112 @@
+package com.forrestformations.daemon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientPoolTest {
+
+    @TempDir
+    Path dir;
+
+    private Path kubeconfig;
+    private String previousKubeconfig;
+    private final ClientPool pool = new ClientPool();
+    private final AtomicInteger parses = new AtomicInteger();
+
+    @BeforeEach
+    void pointAtKubeconfig() throws IOException {
+        kubeconfig = Files.writeString(dir.resolve("config"), "");
+        previousKubeconfig = System.setProperty(Config.KUBERNETES_KUBECONFIG_FILE, kubeconfig.toString());
+    }
+
+    @AfterEach
+    void restore() {
+        pool.close();
+        if (previousKubeconfig == null) {
+            System.clearProperty(Config.KUBERNETES_KUBECONFIG_FILE);
+        } else {
+            System.setProperty(Config.KUBERNETES_KUBECONFIG_FILE, previousKubeconfig);
+        }
+    }
+
+    @Test
+    void parsesTheKubeconfigAgainOnlyOnceItChanged() throws IOException {
+        pool.release(pool.acquire("dev", config("https://dev:6443", "team", "token")));
+        pool.release(pool.acquire("dev", config("https://dev:6443", "team", "token")));
+        assertEquals(1, parses.get());
+
+        touch();
+        pool.release(pool.acquire("dev", config("https://dev:6443", "team", "token")));
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    void appliesAChangedNamespaceToTheOpenClient() throws IOException {
+        KubernetesClient first = pool.acquire("dev", config("https://dev:6443", "team", "token"));
+        pool.release(first);
+
+        touch();
+        KubernetesClient second = pool.acquire("dev", config("https://dev:6443", "other", "token"));
+        pool.release(second);
+
+        assertEquals("other", second.getNamespace());
+        assertSame(first.getHttpClient(), second.getHttpClient());
+    }
+
+    @Test
+    void replacesTheClientOnceItsCredentialsChanged() throws IOException {
+        KubernetesClient first = pool.acquire("dev", config("https://dev:6443", "team", "token"));
+
+        touch();
+        KubernetesClient second = pool.acquire("dev", config("https://dev:6443", "team", "rotated"));
+        assertNotSame(first.getHttpClient(), second.getHttpClient());
+        assertFalse(first.getHttpClient().isClosed(), "closed under the command still using it");
+
+        pool.release(first);
+        assertTrue(first.getHttpClient().isClosed());
+        pool.release(second);
+        assertFalse(second.getHttpClient().isClosed());
+    }
+
+    @Test
+    void closesTheLeastRecentlyUsedClients() {
+        KubernetesClient oldest = pool.acquire("ctx-0", config("https://ctx-0:6443", "team", "token"));
+        pool.release(oldest);
+        for (int i = 1; i <= ClientPool.MAX_CLIENTS; i++) {
+            pool.release(pool.acquire("ctx-" + i, config("https://ctx-" + i + ":6443", "team", "token")));
+        }
+
+        assertTrue(oldest.getHttpClient().isClosed());
+    }
+
+    private Supplier<Config> config(String server, String namespace, String token) {
+        return () -> {
+            parses.incrementAndGet();
+            return new ConfigBuilder().withMasterUrl(server).withNamespace(namespace).withOauthToken(token).build();
+        };
+    }
+
+    private void touch() throws IOException {
+        Files.setLastModifiedTime(kubeconfig, FileTime.from(Instant.now().plusSeconds(parses.get() + 1)));
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.forrestformations.daemon;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DaemonProtocolTest {
+
+    @Test
+    void forwardsOnlyQuickSubcommands() {
+        assertTrue(DaemonProtocol.isForwardable("namespace", "-w"));
+        assertTrue(DaemonProtocol.isForwardable("remote-debug", "web", "--port", "5005"));
+        assertFalse(DaemonProtocol.isForwardable("logs", "web"));
+        assertFalse(DaemonProtocol.isForwardable());
+    }
+
+    @Test
+    void runsWaitingRemoteDebugLocally() {
+        assertFalse(DaemonProtocol.isForwardable("remote-debug", "web", "-w"));
+        assertFalse(DaemonProtocol.isForwardable("remote-debug", "--wait", "web"));
+        assertFalse(DaemonProtocol.isForwardable("remote-debug", "--wait=5m", "web"));
+        assertFalse(DaemonProtocol.isForwardable("remote-debug", "-rw", "web"));
+        assertTrue(DaemonProtocol.isForwardable("remote-debug", "--waiting", "web"));
+        assertTrue(DaemonProtocol.isForwardable("remote-debug", "--", "-w"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.forrestformations.help;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NamePatternTest {
+
+    private static final List<String> NAMES = List.of("", "a", "api", "api-7d9f-x2", "web-api", "web-api-0", "pods",
+            "pod", "a.b", "axb", "x.*y", "a$", "web.1", ".*");
+
+    @ParameterizedTest
+    @ValueSource(strings = {".*", "^.*$", "api", "^api$", "api.*", "^api-.*", ".*api", ".*-api$", ".*api.*", "a.*",
+            ".*.*", "a\\.b", "web\\.1.*", "pods?", "foo*", "api-[0-9a-f]+-.*", "(web|api)-.*", "a\\$", "x\\.\\*y",
+            "\\.\\*", "^$", "a\\d"})
+    void matchesLikeTheRegex(String regex) {
+        NamePattern pattern = NamePattern.regex(regex);
+        Pattern reference = Pattern.compile(regex);
+
+        for (String name : NAMES) {
+            assertEquals(reference.matcher(name).matches(), pattern.test(name), () -> regex + " on \"" + name + "\"");
+        }
+    }
+
+    @Test
+    void readsRegexesUnlessMarkedAsGlobs() {
+        assertTrue(NamePattern.parse("pods?").test("pod"));
+        assertFalse(NamePattern.parse("api-*").test("api-7d9f"));
+        assertTrue(NamePattern.parse("glob:api-*").test("api-7d9f"));
+        assertTrue(NamePattern.parse("re:glob:x").test("glob:x"));
+        assertEquals("glob:api-*", NamePattern.parse("glob:api-*").toString());
+    }
+
+    @Test
+    void matchesGlobs() {
+        assertTrue(NamePattern.glob("*").matchesAny());
+        assertTrue(NamePattern.glob("web-*").test("web-api-0"));
+        assertTrue(NamePattern.glob("*-0").test("web-api-0"));
+        assertTrue(NamePattern.glob("*api*").test("web-api-0"));
+        assertTrue(NamePattern.glob("web-?pi-*").test("web-api-0"));
+        assertFalse(NamePattern.glob("web-?pi-*").test("web-pi-0"));
+        assertTrue(NamePattern.glob("a.b").test("a.b"));
+        assertFalse(NamePattern.glob("a.b").test("axb"));
+        assertTrue(NamePattern.glob("a.*(b)").test("a.xyz(b)"));
+    }
+
+    @Test
+    void knowsAnExactName() {
+        assertEquals(Optional.of("api"), NamePattern.parse("^api$").exactName());
+        assertEquals(Optional.of("a.b"), NamePattern.parse("a\\.b").exactName());
+        assertEquals(Optional.of("web"), NamePattern.parse("glob:web").exactName());
+        assertEquals(Optional.empty(), NamePattern.parse("api.*").exactName());
+        assertTrue(NamePattern.parse(".*").matchesAny());
+        assertFalse(NamePattern.parse(".*api").matchesAny());
+    }
+
+    @Test
+    void rejectsAnInvalidRegex() {
+        IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class,
+                () -> NamePattern.parse("api-(["));
+        assertTrue(invalid.getMessage().startsWith("Invalid regex \"api-([\""), invalid.getMessage());
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.EventBuilder;
+import io.fabric8.kubernetes.api.model.EventList;
+import io.fabric8.kubernetes.api.model.EventListBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import org.junit.jupiter.api.Test;
+
+import static com.forrestformations.help.PodMetricsSamplerImplTest.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EnableKubernetesMockClient
+class PodEventLogImplTest {
+
+    private static final String EVENTS = "/api/v1/namespaces/test/events?";
+    private static final String POD_EVENTS = "fieldSelector=involvedObject.kind%3DPod";
+    private static final String RESTARTING = "Back-off restarting failed container app in pod web";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+
+    @Test
+    void raisesAlertsFromListedEvents() throws InterruptedException {
+        Instant now = Instant.now();
+        expectList("7", event("e1", "web", "BackOff", RESTARTING, 3, now),
+                event("e2", "web", "Unhealthy", "Readiness probe failed", 1, now),
+                event("e3", "puller", "BackOff", "Back-off pulling image \"app:1.0\"", 5, now),
+                event("e4", "old", "Unhealthy", "Liveness probe failed", 1, now.minus(Duration.ofMinutes(20))),
+                event("e5", "ignored", "BackOff", RESTARTING, 3, now));
+        expectWatch("7");
+
+        try (PodEventLogImpl events = start(PodQuery.named("web|puller|old"))) {
+            await(() -> events.version() > 0 && server.getRequestCount() >= 2);
+
+            assertEquals(EnumSet.of(PodAlert.RESTART_STORM, PodAlert.PROBE_FAILING), events.alerts("uid-web", 0));
+            assertEquals(Set.of(), events.alerts("uid-puller", 0));
+            assertEquals(Set.of(), events.alerts("uid-old", 0));
+            assertEquals(Set.of(), events.alerts("uid-ignored", 0));
+            assertTrue(events.problem().isEmpty());
+        }
+    }
+
+    @Test
+    void recordsWatchedEvents() throws InterruptedException {
+        expectList("7");
+        server.expect().get().withPath(watchPath("7"))
+                .andUpgradeToWebSocket()
+                .open()
+                .waitFor(50).andEmit(new WatchEvent(event("e1", "web", "BackOff", RESTARTING, 3, Instant.now()),
+                        "ADDED"))
+                .done()
+                .always();
+
+        try (PodEventLogImpl events = start(PodQuery.all())) {
+            await(() -> events.alerts("uid-web", 0).contains(PodAlert.RESTART_STORM));
+        }
+    }
+
+    @Test
+    void keepsAlertsWhenTheWatchExpires() throws InterruptedException {
+        server.expect().get().withPath(EVENTS + POD_EVENTS + "&limit=500")
+                .andReturn(200, list("7", event("e1", "web", "BackOff", RESTARTING, 3, Instant.now())))
+                .once();
+        server.expect().get().withPath(watchPath("7"))
+                .andUpgradeToWebSocket()
+                .open()
+                .waitFor(50).andEmit(new WatchEvent(new StatusBuilder().withCode(410).withReason("Expired").build(),
+                        "ERROR"))
+                .done()
+                .once();
+        expectList("9");
+        expectWatch("9");
+
+        try (PodEventLogImpl events = start(PodQuery.all())) {
+            await(() -> server.getRequestCount() >= 4);
+
+            assertEquals(EnumSet.of(PodAlert.RESTART_STORM), events.alerts("uid-web", 0));
+            assertTrue(events.problem().isEmpty());
+        }
+    }
+
+    @Test
+    void raisesOomKillsFromContainerStatus() {
+        try (PodEventLogImpl events = new PodEventLogImpl(client, PodQuery.all())) {
+            long now = Instant.now().getEpochSecond();
+
+            assertEquals(EnumSet.of(PodAlert.OOM_KILLED), events.alerts("uid-web", now - 60));
+            assertEquals(Set.of(), events.alerts("uid-web", now - Duration.ofMinutes(11).toSeconds()));
+        }
+    }
+
+    private PodEventLogImpl start(PodQuery query) {
+        PodEventLogImpl events = new PodEventLogImpl(client, query);
+        events.start();
+        return events;
+    }
+
+    private void expectList(String resourceVersion, Event... items) {
+        server.expect().get().withPath(EVENTS + POD_EVENTS + "&limit=500")
+                .andReturn(200, list(resourceVersion, items))
+                .always();
+    }
+
+    private void expectWatch(String resourceVersion) {
+        server.expect().get().withPath(watchPath(resourceVersion))
+                .andUpgradeToWebSocket()
+                .open()
+                .done()
+                .always();
+    }
+
+    private static String watchPath(String resourceVersion) {
+        return EVENTS + "allowWatchBookmarks=true&" + POD_EVENTS + "&resourceVersion=" + resourceVersion
+                + "&watch=true";
+    }
+
+    private static EventList list(String resourceVersion, Event... items) {
+        return new EventListBuilder()
+                .withNewMetadata().withResourceVersion(resourceVersion).endMetadata()
+                .addToItems(items)
+                .build();
+    }
+
+    private static Event event(String name, String pod, String reason, String message, int count, Instant seen) {
+        return new EventBuilder()
+                .withNewMetadata().withNamespace("test").withName(name).withUid("uid-" + name).endMetadata()
+                .withNewInvolvedObject().withKind("Pod").withNamespace("test").withName(pod).withUid("uid-" + pod)
+                .endInvolvedObject()
+                .withReason(reason)
+                .withMessage(message)
+                .withCount(count)
+                .withLastTimestamp(seen.toString())
+                .build();
+    }
+
+}
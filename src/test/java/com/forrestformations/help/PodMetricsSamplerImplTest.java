@@ -0,0 +1,118 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsBuilder;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EnableKubernetesMockClient
+class PodMetricsSamplerImplTest {
+
+    private static final String METRICS = "/apis/metrics.k8s.io/v1beta1/namespaces/test/pods";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+
+    @Test
+    void sumsContainersAndKeepsAWindowPerPod() throws InterruptedException {
+        server.expect().get().withPath(METRICS)
+                .andReturn(200, new PodMetricsListBuilder()
+                        .addToItems(metrics("web", "200m", "48Mi", "50m", "16Mi"))
+                        .build())
+                .once();
+        server.expect().get().withPath(METRICS)
+                .andReturn(200, new PodMetricsListBuilder()
+                        .addToItems(metrics("web", "900m", "1Gi", "100m", "1Gi"))
+                        .build())
+                .always();
+
+        try (PodMetricsSamplerImpl sampler = start(3)) {
+            await(() -> sampler.usage("test", "web").map(PodUsage::samples).orElse(0) == 3);
+
+            PodUsage usage = sampler.usage("test", "web").orElseThrow();
+            assertEquals(250, usage.cpuMillisAt(0));
+            assertEquals(1000, usage.cpuMillisAt(1));
+            assertEquals(1000, usage.cpuMillis());
+            assertEquals(2 * 1024L * 1024 * 1024, usage.memoryBytes());
+            assertTrue(sampler.problem().isEmpty());
+            assertTrue(sampler.usage("test", "other").isEmpty());
+        }
+    }
+
+    @Test
+    void stopsWhenTheClusterServesNoMetrics() throws InterruptedException {
+        server.expect().get().withPath(METRICS).andReturn(404, "").always();
+
+        try (PodMetricsSamplerImpl sampler = start(3)) {
+            await(() -> sampler.problem().isPresent());
+            long version = sampler.version();
+            Thread.sleep(50);
+
+            assertEquals("Metrics API not available", sampler.problem().orElseThrow());
+            assertEquals(version, sampler.version());
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void reportsAFailedSampleAndRecovers() throws InterruptedException {
+        server.expect().get().withPath(METRICS).andReturn(403, "").once();
+        server.expect().get().withPath(METRICS)
+                .andReturn(200, new PodMetricsListBuilder().addToItems(metrics("web", "10m", "1Mi", "0", "0")).build())
+                .always();
+
+        try (PodMetricsSamplerImpl sampler = start(Duration.ofMillis(300), 3)) {
+            await(() -> sampler.problem().isPresent());
+            assertTrue(sampler.problem().orElseThrow().startsWith("Metrics sample failed: "));
+            assertTrue(sampler.usage("test", "web").isEmpty());
+
+            await(() -> sampler.usage("test", "web").isPresent());
+            assertFalse(sampler.problem().isPresent());
+        }
+    }
+
+    private PodMetricsSamplerImpl start(int window) {
+        return start(Duration.ofMillis(10), window);
+    }
+
+    private PodMetricsSamplerImpl start(Duration interval, int window) {
+        PodMetricsSamplerImpl sampler = new PodMetricsSamplerImpl(client, false, interval, window);
+        sampler.start();
+        return sampler;
+    }
+
+    private static PodMetrics metrics(String name, String appCpu, String appMemory, String sidecarCpu,
+                                      String sidecarMemory) {
+        return new PodMetricsBuilder()
+                .withNewMetadata().withNamespace("test").withName(name).endMetadata()
+                .addNewContainer().withName("app")
+                .addToUsage("cpu", new Quantity(appCpu)).addToUsage("memory", new Quantity(appMemory))
+                .endContainer()
+                .addNewContainer().withName("sidecar")
+                .addToUsage("cpu", new Quantity(sidecarCpu)).addToUsage("memory", new Quantity(sidecarMemory))
+                .endContainer()
+                .build();
+    }
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Timed out waiting for the condition");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.forrestformations.help;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@EnableKubernetesMockClient
+class PodPagerTest {
+
+    private static final String PODS = "/api/v1/namespaces/test/pods?";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+
+    @Test
+    void handsOutMatchingPodsPageByPage() {
+        expectPage("limit=2", page("10", "c1", "web-1", "db-1"));
+        expectPage("continue=c1&limit=2", page("10", null, "web-2"));
+        List<String> names = new ArrayList<>();
+
+        String resourceVersion = new PodPager(client).forEachPage(PodQuery.named("web-.*").withPageSize(2),
+                pods -> pods.forEach(pod -> names.add(pod.getMetadata().getName())));
+
+        assertEquals("10", resourceVersion);
+        assertEquals(List.of("web-1", "web-2"), names);
+    }
+
+    @Test
+    void startsOverWhenTheContinueTokenExpires() {
+        expectPage("limit=2", page("10", "c1", "web-1", "web-2"));
+        expectGone("continue=c1&limit=2");
+        expectPage("limit=2", page("20", "c2", "web-1", "web-3"));
+        expectPage("continue=c2&limit=2", page("20", null, "web-4"));
+        List<String> names = new ArrayList<>();
+        AtomicInteger restarts = new AtomicInteger();
+
+        String resourceVersion = new PodPager(client).forEachPage(PodQuery.all().withPageSize(2), () -> {
+            restarts.incrementAndGet();
+            names.clear();
+        }, pods -> pods.forEach(pod -> names.add(pod.getMetadata().getName())));
+
+        assertEquals("20", resourceVersion);
+        assertEquals(1, restarts.get());
+        assertEquals(List.of("web-1", "web-3", "web-4"), names);
+    }
+
+    @Test
+    void givesUpAfterRepeatedExpiries() {
+        for (int i = 0; i < 4; i++) {
+            expectPage("limit=2", page(Integer.toString(10 + i), "c" + i, "web-1", "web-2"));
+            expectGone("continue=c" + i + "&limit=2");
+        }
+
+        KubernetesClientException gone = assertThrows(KubernetesClientException.class,
+                () -> new PodPager(client).forEachPage(PodQuery.all().withPageSize(2), pods -> { }));
+        assertEquals(410, gone.getCode());
+    }
+
+    private void expectPage(String query, PodList page) {
+        server.expect().get().withPath(PODS + query).andReturn(200, page).once();
+    }
+
+    private void expectGone(String query) {
+        server.expect().get().withPath(PODS + query)
+                .andReturn(410, new StatusBuilder().withCode(410).withReason("Expired")
+                        .withMessage("The provided continue parameter is too old").build())
+                .once();
+    }
+
+    private static PodList page(String resourceVersion, String continueToken, String... names) {
+        List<Pod> pods = new ArrayList<>();
+        for (String name : names) {
+            pods.add(new PodBuilder().withNewMetadata().withNamespace("test").withName(name).endMetadata().build());
+        }
+        return new PodListBuilder()
+                .withNewMetadata().withResourceVersion(resourceVersion).withContinue(continueToken).endMetadata()
+                .withItems(pods)
+                .build();
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.forrestformations.help;
+
+import java.time.Instant;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PodTableTest {
+
+    private static final Instant CREATED = Instant.parse("2026-10-01T12:00:00Z");
+
+    @Test
+    void reducesPodsToRowsInNamespaceAndNameOrder() {
+        PodTable table = new PodTable();
+        table.put(pod("u1", "b", "web-2", "Running"));
+        table.put(pod("u2", "a", "web-9", "Pending"));
+        table.put(pod("u3", "b", "web-1", null));
+
+        PodTable.Snapshot rows = table.snapshot();
+
+        assertEquals(3, rows.size());
+        assertEquals("a/web-9 b/web-1 b/web-2", names(rows));
+        assertEquals("Pending", rows.status(0));
+        assertEquals("Unknown", rows.status(1));
+        assertEquals(CREATED.getEpochSecond(), rows.createdSeconds(2));
+        assertEquals(1, rows.ready(2));
+        assertEquals(2, rows.containers(2));
+        assertEquals(5, rows.restarts(2));
+        assertEquals(PodTable.NEVER, rows.oomKilledSeconds(2));
+    }
+
+    @Test
+    void updatesARowByUid() {
+        PodTable table = new PodTable();
+        table.put(pod("u1", "a", "web", "Pending"));
+        PodTable.Snapshot before = table.snapshot();
+
+        Pod deleting = new PodBuilder(pod("u1", "a", "web", "Running"))
+                .editMetadata().withDeletionTimestamp(Instant.now().toString()).endMetadata()
+                .build();
+        table.put(deleting);
+
+        assertEquals(1, table.size());
+        assertEquals("Terminating", table.snapshot().status(0));
+        assertEquals("Pending", before.status(0));
+    }
+
+    @Test
+    void keepsTheSnapshotUntilTheTableChanges() {
+        PodTable table = new PodTable();
+        table.put(pod("u1", "a", "web", "Running"));
+        PodTable.Snapshot first = table.snapshot();
+
+        assertSame(first, table.snapshot());
+        assertFalse(table.remove("unknown"));
+        assertSame(first, table.snapshot());
+
+        table.put(pod("u2", "a", "api", "Running"));
+        assertEquals(2, table.snapshot().size());
+    }
+
+    @Test
+    void reusesTheSlotsOfRemovedPods() {
+        PodTable table = new PodTable();
+        for (int i = 0; i < 200; i++) {
+            table.put(pod("u" + i, "a", String.format("web-%03d", i), "Running"));
+        }
+        assertTrue(table.remove("u7"));
+        table.retainAll(Set.of("u1", "u2", "u3"));
+        table.put(pod("u200", "a", "api", "Running"));
+
+        assertEquals(4, table.size());
+        assertEquals("a/api a/web-001 a/web-002 a/web-003", names(table.snapshot()));
+    }
+
+    @Test
+    void recordsTheLatestOomKill() {
+        Pod pod = new PodBuilder(pod("u1", "a", "web", "Running"))
+                .editStatus()
+                .editContainerStatus(0)
+                .withNewLastState().withNewTerminated().withReason("OOMKilled")
+                .withFinishedAt("2026-10-02T00:00:00Z").endTerminated().endLastState()
+                .endContainerStatus()
+                .editContainerStatus(1)
+                .withNewLastState().withNewTerminated().withReason("OOMKilled")
+                .withFinishedAt("2026-10-03T00:00:00Z").endTerminated().endLastState()
+                .endContainerStatus()
+                .endStatus()
+                .build();
+        PodTable table = new PodTable();
+        table.put(pod);
+
+        assertEquals(Instant.parse("2026-10-03T00:00:00Z").getEpochSecond(), table.snapshot().oomKilledSeconds(0));
+    }
+
+    private static String names(PodTable.Snapshot rows) {
+        StringBuilder names = new StringBuilder();
+        for (int row = 0; row < rows.size(); row++) {
+            names.append(row == 0 ? "" : " ").append(rows.namespace(row)).append('/').append(rows.name(row));
+        }
+        return names.toString();
+    }
+
+    private static Pod pod(String uid, String namespace, String name, String phase) {
+        return new PodBuilder()
+                .withNewMetadata()
+                .withUid(uid).withNamespace(namespace).withName(name).withCreationTimestamp(CREATED.toString())
+                .endMetadata()
+                .withNewStatus()
+                .withPhase(phase)
+                .addNewContainerStatus().withName("app").withReady(true).withRestartCount(3).endContainerStatus()
+                .addNewContainerStatus().withName("sidecar").withReady(false).withRestartCount(2).endContainerStatus()
+                .endStatus()
+                .build();
+    }
+
+}
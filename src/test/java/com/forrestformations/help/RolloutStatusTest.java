@@ -0,0 +1,102 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatusBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RolloutStatusTest {
+
+    private static final Duration ELAPSED = Duration.ofSeconds(42);
+
+    @Test
+    void waitsForTheFirstStatus() {
+        RolloutStatus status = RolloutStatus.of(deployment(3, 1, null), ELAPSED);
+
+        assertEquals(RolloutStatus.State.PENDING, status.state());
+        assertEquals(3, status.replicas());
+        assertEquals("waiting for the status", status.message());
+    }
+
+    @Test
+    void ignoresAStatusOfThePreviousGeneration() {
+        RolloutStatus status = RolloutStatus.of(deployment(2, 2, status(1, 2, 2, 2)), ELAPSED);
+
+        assertEquals(RolloutStatus.State.PENDING, status.state());
+        assertEquals("waiting for the controller to observe the change", status.message());
+    }
+
+    @Test
+    void followsTheStepsOfARollout() {
+        assertEquals("1 of 3 replicas updated",
+                RolloutStatus.of(deployment(3, 1, status(1, 4, 1, 3)), ELAPSED).message());
+        assertEquals("1 old replicas terminating",
+                RolloutStatus.of(deployment(3, 1, status(1, 4, 3, 3)), ELAPSED).message());
+        assertEquals("2 of 3 updated replicas available",
+                RolloutStatus.of(deployment(3, 1, status(1, 3, 3, 2)), ELAPSED).message());
+
+        RolloutStatus complete = RolloutStatus.of(deployment(3, 1, status(1, 3, 3, 3)), ELAPSED);
+        assertEquals(RolloutStatus.State.COMPLETE, complete.state());
+        assertEquals(ELAPSED, complete.timeToReady());
+        assertTrue(complete.isDone());
+    }
+
+    @Test
+    void failsOnceTheProgressDeadlineIsExceeded() {
+        DeploymentStatus stuck = new DeploymentStatusBuilder(status(1, 2, 1, 1))
+                .addNewCondition()
+                .withType("Progressing").withStatus("False").withReason("ProgressDeadlineExceeded")
+                .endCondition()
+                .build();
+
+        RolloutStatus status = RolloutStatus.of(deployment(2, 1, stuck), ELAPSED);
+
+        assertEquals(RolloutStatus.State.FAILED, status.state());
+        assertNull(status.timeToReady());
+        assertTrue(status.isDone());
+    }
+
+    @Test
+    void defaultsToOneReplica() {
+        RolloutStatus pending = RolloutStatus.of(deployment(null, 1, status(1, 0, 0, 0)), ELAPSED);
+
+        assertEquals(1, pending.replicas());
+        assertEquals(RolloutStatus.State.PENDING, pending.state());
+        assertNull(pending.timeToReady());
+        assertFalse(pending.isDone());
+    }
+
+    @Test
+    void countsAMissingDeploymentAsDone() {
+        RolloutStatus missing = RolloutStatus.missing("web");
+
+        assertEquals(RolloutStatus.State.MISSING, missing.state());
+        assertTrue(missing.isDone());
+    }
+
+    private static Deployment deployment(Integer replicas, long generation, DeploymentStatus status) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName("web").withGeneration(generation).endMetadata()
+                .withNewSpec().withReplicas(replicas).endSpec()
+                .withStatus(status)
+                .build();
+    }
+
+    private static DeploymentStatus status(long observedGeneration, int current, int updated, int available) {
+        return new DeploymentStatusBuilder()
+                .withObservedGeneration(observedGeneration)
+                .withReplicas(current)
+                .withUpdatedReplicas(updated)
+                .withAvailableReplicas(available)
+                .build();
+    }
+
+}
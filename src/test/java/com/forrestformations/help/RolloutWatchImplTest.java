@@ -0,0 +1,119 @@
+package com.forrestformations.help;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EnableKubernetesMockClient(crud = true)
+class RolloutWatchImplTest {
+
+    private static final Duration CHANGE_TIMEOUT = Duration.ofSeconds(10);
+
+    KubernetesClient client;
+
+    @Test
+    void followsSeveralDeploymentsToCompletion() throws InterruptedException {
+        create("web", 2);
+        rollout("web", 1, 1, 2);
+        create("api", 1);
+        rollout("api", 1, 1, 1);
+        create("other", 1);
+
+        try (RolloutWatchImpl watch = start("web", "api", "gone")) {
+            List<RolloutStatus> rollouts = watch.rollouts();
+            assertEquals(List.of("api", "gone", "web"), rollouts.stream().map(RolloutStatus::name).toList());
+            assertEquals(RolloutStatus.State.COMPLETE, rollouts.get(0).state());
+            assertNotNull(rollouts.get(0).timeToReady());
+            assertEquals(RolloutStatus.State.MISSING, rollouts.get(1).state());
+            assertEquals(RolloutStatus.State.PENDING, rollouts.get(2).state());
+            assertEquals("1 of 2 replicas updated", rollouts.get(2).message());
+            assertNull(rollouts.get(2).timeToReady());
+
+            rollout("web", 2, 2, 2);
+            awaitState(watch, "web", RolloutStatus.State.COMPLETE);
+            assertNotNull(status(watch, "web").timeToReady());
+        }
+    }
+
+    @Test
+    void keepsTheFirstTimeToReady() throws InterruptedException {
+        create("web", 1);
+        rollout("web", 1, 1, 1);
+
+        try (RolloutWatchImpl watch = start("web")) {
+            Duration first = status(watch, "web").timeToReady();
+            assertNotNull(first);
+
+            Thread.sleep(20);
+            rollout("web", 1, 1, 1);
+            assertTrue(watch.awaitChange(CHANGE_TIMEOUT));
+            assertEquals(first, status(watch, "web").timeToReady());
+        }
+    }
+
+    @Test
+    void reportsADeletedDeploymentAsMissing() throws InterruptedException {
+        create("web", 1);
+        rollout("web", 1, 1, 1);
+
+        try (RolloutWatchImpl watch = start("web")) {
+            client.apps().deployments().withName("web").delete();
+
+            awaitState(watch, "web", RolloutStatus.State.MISSING);
+        }
+    }
+
+    private RolloutWatchImpl start(String... names) {
+        RolloutWatchImpl watch = new RolloutWatchImpl(client, Set.of(names));
+        watch.start();
+        return watch;
+    }
+
+    private void create(String name, int replicas) {
+        client.resource(new DeploymentBuilder()
+                        .withNewMetadata().withName(name).endMetadata()
+                        .withNewSpec().withReplicas(replicas).endSpec()
+                        .build())
+                .create();
+    }
+
+    private void rollout(String name, int updated, int available, int current) {
+        Deployment deployment = client.apps().deployments().withName(name).get();
+        deployment.setStatus(new DeploymentStatusBuilder()
+                .withObservedGeneration(deployment.getMetadata().getGeneration())
+                .withReplicas(current)
+                .withUpdatedReplicas(updated)
+                .withAvailableReplicas(available)
+                .build());
+        client.resource(deployment).updateStatus();
+    }
+
+    private static void awaitState(RolloutWatchImpl watch, String name, RolloutStatus.State state)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + CHANGE_TIMEOUT.toNanos();
+        while (status(watch, name).state() != state) {
+            assertTrue(System.nanoTime() - deadline < 0, () -> name + " is still " + status(watch, name));
+            watch.awaitChange(Duration.ofMillis(100));
+        }
+    }
+
+    private static RolloutStatus status(RolloutWatchImpl watch, String name) {
+        return watch.rollouts().stream()
+                .filter(status -> status.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+}
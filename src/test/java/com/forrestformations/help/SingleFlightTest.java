@@ -0,0 +1,105 @@
+package com.forrestformations.help;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void sharesOneCallAmongConcurrentIdenticalReads() throws Exception {
+        SingleFlight reads = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> readers = new ArrayList<>();
+            readers.add(executor.submit(() -> reads.read("pods a", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return result;
+            })));
+            // Let the first read become the leader before the others join it
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            for (int i = 0; i < 8; i++) {
+                readers.add(executor.submit(() -> reads.read("pods a", () -> {
+                    calls.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            // Time for the other reads to join the one in flight
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+
+            for (Future<Object> reader : readers) {
+                assertSame(result, reader.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void keepsNothingOnceTheCallReturns() {
+        SingleFlight reads = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, (int) reads.read("pods a", calls::incrementAndGet));
+        assertEquals(2, (int) reads.read("pods a", calls::incrementAndGet));
+        assertEquals(3, (int) reads.read("pods b", calls::incrementAndGet));
+    }
+
+    @Test
+    void sharesTheFailureWithJoinedReads() throws Exception {
+        SingleFlight reads = new SingleFlight();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> leader = executor.submit(() -> reads.read("pods a", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("list failed");
+            }));
+            await(started);
+            Future<Object> follower = executor.submit(() -> reads.read("pods a", () -> "not called"));
+            // Time for the other reads to join the one in flight
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+
+            assertFailedWith(leader);
+            assertFailedWith(follower);
+        }
+        assertEquals("again", reads.read("pods a", () -> "again"));
+    }
+
+    private static void assertFailedWith(Future<Object> read) {
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> read.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertEquals("list failed", failure.getCause().getMessage());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.forrestformations.logs;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EnableKubernetesMockClient
+class LogFetcherTest {
+
+    private static final String POD = "/api/v1/namespaces/shop/pods?fieldSelector=metadata.name%3Dweb-1";
+    private static final String LOG = "/api/v1/namespaces/shop/pods/web-1/log"
+            + "?pretty=false&container=app&sinceSeconds=3600&timestamps=true";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesLinesLongerThanABlockWholeAndCountsTheCutOnes() throws Exception {
+        String blockSized = "a".repeat(300 * 1024);
+        String overlong = "b".repeat(LogFetcher.MAX_LINE_LENGTH + 1024);
+        // Looked up before the log is read
+        server.expect().get().withPath(POD).andReturn(200, new PodListBuilder()
+                .withNewMetadata().withResourceVersion("1").endMetadata()
+                .withItems(pod())
+                .build()).always();
+        server.expect().get().withPath(LOG).andReturn(200, String.join("\n",
+                "2026-10-18T10:00:00Z short",
+                "2026-10-18T10:00:01Z " + blockSized,
+                "2026-10-18T10:00:02Z " + overlong,
+                "2026-10-18T10:00:03Z after")).once();
+
+        try (LogStore store = LogStore.open(directory)) {
+            LogFetcher.Summary summary = new LogFetcher(client, store, 1).fetch(List.of(pod()), Set.of(),
+                    Duration.ofHours(1), -1);
+
+            assertEquals(new LogFetcher.Summary(1, 0, 4, summary.bytes(), 1), summary);
+            List<String> lines = LogStoreTest.search(store, source -> true, Instant.MIN, Instant.MAX, null).stream()
+                    .map(LogMatch::line)
+                    .toList();
+            assertEquals(List.of("short", blockSized, overlong.substring(0, lines.get(2).length()), "after"), lines);
+            assertEquals(LogFetcher.MAX_LINE_LENGTH - "2026-10-18T10:00:02Z ".length(), lines.get(2).length());
+        }
+    }
+
+    private static Pod pod() {
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("shop").withName("web-1").endMetadata()
+                .withNewStatus()
+                .withPhase("Running")
+                .addNewCondition().withType("Ready").withStatus("True").endCondition()
+                .addNewContainerStatus().withName("app").withContainerID("containerd://app").endContainerStatus()
+                .endStatus()
+                .build();
+    }
+
+}
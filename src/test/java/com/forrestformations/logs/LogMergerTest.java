@@ -0,0 +1,154 @@
+package com.forrestformations.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogMergerTest {
+
+    private static final Instant START = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Test
+    void writesTheLinesOfAllSourcesInTimestampOrder() throws Exception {
+        String merged = merge(false, 0,
+                "a | ", stamped(0, "a1") + stamped(3, "a2") + "continued\n",
+                "b | ", stamped(1, "b1") + stamped(2, "b2") + stamped(4, "b3"));
+
+        assertEquals("""
+                a | a1
+                b | b1
+                b | b2
+                a | a2
+                a | continued
+                b | b3
+                """, merged);
+    }
+
+    @Test
+    void keepsTheTimestampsWhenAsked() throws Exception {
+        String merged = merge(true, 0, "", stamped(1, "one").replace("\n", "\r\n"), "", stamped(0, "zero"));
+
+        assertEquals(START + " zero\n" + START.plusSeconds(1) + " one\n", merged.replace(".000000000", ""));
+    }
+
+    @Test
+    void skipsLinesAnEarlierStreamAlreadyShowed() throws Exception {
+        long skipThrough = TimeUnit.SECONDS.toNanos(START.plusSeconds(1).getEpochSecond());
+
+        String merged = merge(false, skipThrough, "", stamped(0, "old") + stamped(1, "shown") + stamped(2, "new"));
+
+        assertEquals("new\n", merged);
+    }
+
+    @Test
+    void doesNotStallOnAQuietSource() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogMerger merger = new LogMerger(out, false);
+        LogSource chatty = source("a | ", 0, merger, stream(stamped(0, "a1") + stamped(1, "a2")));
+        PipedOutputStream quietWriter = new PipedOutputStream();
+        LogSource quiet = source("b | ", 0, merger, new PipedInputStream(quietWriter));
+        CompletableFuture<Void> running = run(merger);
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!out.toString(StandardCharsets.UTF_8).equals("a | a1\na | a2\n")) {
+                assertTrue(System.nanoTime() - deadline < 0, () -> "merged so far: " + out);
+                Thread.sleep(10);
+            }
+            assertTrue(chatty.isFinished());
+        } finally {
+            quietWriter.close();
+            quiet.close();
+            merger.close();
+            running.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static String merge(boolean timestamps, long skipThrough, String... prefixesAndLogs)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogMerger merger = new LogMerger(out, timestamps);
+        LogSource[] sources = new LogSource[prefixesAndLogs.length / 2];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = source(prefixesAndLogs[2 * i], skipThrough, merger, stream(prefixesAndLogs[2 * i + 1]));
+        }
+        for (LogSource source : sources) {
+            while (!source.isFinished()) {
+                Thread.sleep(1);
+            }
+        }
+        CompletableFuture<Void> running = run(merger);
+        merger.close();
+        running.get(5, TimeUnit.SECONDS);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static LogSource source(String prefix, long skipThrough, LogMerger merger, InputStream log) {
+        LogSource source = new LogSource(prefix.trim(), "id", prefix.getBytes(StandardCharsets.UTF_8), 8,
+                skipThrough, merger::wake);
+        merger.add(source);
+        source.start(() -> new StreamedLog(log));
+        return source;
+    }
+
+    private static CompletableFuture<Void> run(LogMerger merger) {
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                merger.run();
+                running.complete(null);
+            } catch (IOException | RuntimeException e) {
+                running.completeExceptionally(e);
+            }
+        });
+        return running;
+    }
+
+    private static InputStream stream(String log) {
+        return new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String stamped(int seconds, String text) {
+        return START.plusSeconds(seconds).toString().replace("Z", ".000000000Z") + " " + text + "\n";
+    }
+
+    private record StreamedLog(InputStream output) implements LogWatch {
+
+        @Override
+        public InputStream getOutput() {
+            return output;
+        }
+
+        @Override
+        public CompletionStage<Throwable> onClose() {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public void close() {
+            try {
+                output.close();
+            } catch (IOException ignored) {
+                // Nothing more will be read either way
+            }
+        }
+
+    }
+
+}
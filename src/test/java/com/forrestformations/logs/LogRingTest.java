@@ -0,0 +1,101 @@
+package com.forrestformations.logs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogRingTest {
+
+    @Test
+    void needsAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new LogRing(6));
+    }
+
+    @Test
+    void handsOutLinesInOrderAndRecyclesTheirSlots() throws InterruptedException {
+        LogRing ring = new LogRing(2);
+        assertNull(ring.peek());
+
+        LogLine first = publish(ring, "one");
+        publish(ring, "two");
+        assertEquals("one", text(ring.peek()));
+        ring.release();
+        assertEquals("two", text(ring.peek()));
+        ring.release();
+        assertNull(ring.peek());
+
+        LogLine recycled = ring.claim();
+        assertSame(first, recycled);
+        assertEquals(0, recycled.length);
+    }
+
+    @Test
+    void isCrowdedFromThreeQuartersFull() throws InterruptedException {
+        LogRing ring = new LogRing(4);
+        publish(ring, "1");
+        publish(ring, "2");
+        assertFalse(ring.isCrowded());
+        publish(ring, "3");
+        assertTrue(ring.isCrowded());
+    }
+
+    @Test
+    void parksTheReaderUntilASlotIsReleased() throws Exception {
+        LogRing ring = new LogRing(1);
+        publish(ring, "full");
+        CompletableFuture<LogLine> claimed = new CompletableFuture<>();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                claimed.complete(ring.claim());
+            } catch (InterruptedException iE) {
+                claimed.completeExceptionally(iE);
+            }
+        });
+
+        Thread.sleep(50);
+        assertFalse(claimed.isDone());
+        ring.release();
+        assertEquals(0, claimed.get(5, TimeUnit.SECONDS).length);
+        reader.join();
+    }
+
+    @Test
+    void stopsWaitingWhenInterrupted() throws Exception {
+        LogRing ring = new LogRing(1);
+        publish(ring, "full");
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                ring.claim();
+                failure.complete(null);
+            } catch (InterruptedException iE) {
+                failure.complete(iE);
+            }
+        });
+
+        reader.interrupt();
+        assertTrue(failure.get(5, TimeUnit.SECONDS) instanceof InterruptedException);
+    }
+
+    private static LogLine publish(LogRing ring, String text) throws InterruptedException {
+        LogLine line = ring.claim();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        line.append(bytes, 0, bytes.length);
+        ring.publish();
+        return line;
+    }
+
+    private static String text(LogLine line) {
+        return new String(line.bytes, 0, line.length, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.forrestformations.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogStoreTest {
+
+    private static final Instant START = Instant.parse("2026-10-18T10:00:00Z");
+    private static final String WEB = "shop/web-1/app";
+    private static final String API = "shop/api-1/app";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheMatchingLinesOfTheAcceptedSourcesInTimeOrder() throws IOException {
+        try (LogStore store = LogStore.open(directory)) {
+            store(store, WEB, 0, "GET / 200", 2, "GET /cart 500", 4, "GET / 200");
+            store(store, API, 1, "order failed: 500", 3, "Bestellung fehlgeschlagen: 500 – später");
+            store(store, "other/db-0/postgres", 2, "checkpoint 500");
+
+            List<LogMatch> matches = search(store, source -> source.startsWith("shop/"), START.plusSeconds(1),
+                    START.plusSeconds(3), Pattern.compile("\\b500\\b"));
+
+            assertEquals(List.of(
+                    new LogMatch(START.plusSeconds(1), API, "order failed: 500"),
+                    new LogMatch(START.plusSeconds(2), WEB, "GET /cart 500"),
+                    new LogMatch(START.plusSeconds(3), API, "Bestellung fehlgeschlagen: 500 – später")), matches);
+        }
+    }
+
+    @Test
+    void takesEveryLineWithoutAPattern() throws IOException {
+        try (LogStore store = LogStore.open(directory)) {
+            store(store, WEB, 0, "one", 1, "two");
+
+            assertEquals(2, search(store, source -> true, Instant.MIN, Instant.MAX, null).size());
+        }
+    }
+
+    @Test
+    void remembersSourcesAndTheirNewestLineWhenReopened() throws IOException {
+        try (LogStore store = LogStore.open(directory)) {
+            store(store, WEB, 0, "one", 5, "two");
+            store(store, API, 3, "three");
+            store(store, WEB, 4, "late block");
+        }
+
+        try (LogStore store = LogStore.open(directory)) {
+            assertEquals(nanos(5), store.lastTimestamp(WEB));
+            assertEquals(nanos(3), store.lastTimestamp(API));
+            assertEquals(LogTimestamps.NONE, store.lastTimestamp("shop/unknown/app"));
+            assertEquals(0, store.sourceId(WEB));
+            assertEquals(2, store.sourceId("shop/new/app"));
+            assertEquals(List.of("one", "three", "late block", "two"),
+                    search(store, source -> true, Instant.MIN, Instant.MAX, null).stream()
+                            .map(LogMatch::line)
+                            .toList());
+        }
+    }
+
+    @Test
+    void refusesASecondOpen() throws IOException {
+        try (LogStore ignored = LogStore.open(directory)) {
+            assertThrows(IOException.class, () -> LogStore.open(directory));
+        }
+        LogStore.open(directory).close();
+    }
+
+    /**
+     * Collects what the store hands out, checking it counts the same.
+     */
+    static List<LogMatch> search(LogStore store, Predicate<String> sources, Instant from, Instant to, Pattern pattern)
+            throws IOException {
+        List<LogMatch> matches = new ArrayList<>();
+        assertEquals(store.search(sources, from, to, pattern, matches::add), matches.size());
+        return matches;
+    }
+
+    /**
+     * Stores one block of lines as {@code LogFetcher} does, given as pairs of seconds after {@link #START} and text.
+     */
+    private static void store(LogStore store, String source, Object... secondsAndLines) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < secondsAndLines.length; i += 2) {
+            byte[] line = ((String) secondsAndLines[i + 1]).getBytes(StandardCharsets.UTF_8);
+            block.putLong(nanos((Integer) secondsAndLines[i])).putInt(line.length).put(line);
+        }
+        Deflater deflater = new Deflater();
+        deflater.setInput(block.array(), 0, block.position());
+        deflater.finish();
+        byte[] deflated = new byte[block.position() + 64];
+        int length = deflater.deflate(deflated);
+        deflater.end();
+
+        int lines = secondsAndLines.length / 2;
+        store.append(new LogSegment.Block(store.sourceId(source), lines, nanos((Integer) secondsAndLines[0]),
+                nanos((Integer) secondsAndLines[secondsAndLines.length - 2]), length, block.position()),
+                ByteBuffer.wrap(Arrays.copyOf(deflated, length)));
+    }
+
+    private static long nanos(int seconds) {
+        return LogStore.epochNanos(START.plusSeconds(seconds));
+    }
+
+}
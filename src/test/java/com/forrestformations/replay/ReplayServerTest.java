@@ -0,0 +1,150 @@
+package com.forrestformations.replay;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayServerTest {
+
+    private static final KubernetesSerialization SERIALIZATION = new KubernetesSerialization();
+    private static final String PODS = "/api/v1/namespaces/replay/pods";
+
+    // Without the h2c upgrade header, which the replay takes for a websocket it turns away
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void listsPageByPage() throws Exception {
+        try (ReplayServer server = ReplayServer.start(recording(5, 0), 0, 0)) {
+            List<String> names = new ArrayList<>();
+            List<Integer> pageSizes = new ArrayList<>();
+            String continueToken = null;
+            do {
+                String query = "?limit=2" + (continueToken == null ?
+                        "" : "&continue=" + URLEncoder.encode(continueToken, StandardCharsets.UTF_8));
+                PodList page = SERIALIZATION.unmarshal(get(server, PODS + query), PodList.class);
+                page.getItems().forEach(pod -> names.add(pod.getMetadata().getName()));
+                pageSizes.add(page.getItems().size());
+                continueToken = page.getMetadata().getContinue();
+            } while (continueToken != null);
+
+            assertEquals(List.of(2, 2, 1), pageSizes);
+            assertEquals(List.of("web-0", "web-1", "web-2", "web-3", "web-4"), names);
+        }
+    }
+
+    @Test
+    void catchesAWatchUpFromItsResourceVersion() throws Exception {
+        try (ReplayServer server = ReplayServer.start(recording(5, 20), 0, 0)) {
+            // The pods are listed at version 1 and each of the 20 events moves it on by one
+            awaitVersion(server, 21);
+
+            try (Stream<String> events = watch(server, "11")) {
+                List<Long> versions = events.limit(10)
+                        .map(line -> SERIALIZATION.unmarshal(line, WatchEvent.class))
+                        .map(event -> Long.parseLong(((Pod) event.getObject()).getMetadata().getResourceVersion()))
+                        .toList();
+
+                assertEquals(LongStream.rangeClosed(12, 21).boxed().toList(), versions);
+            }
+        }
+    }
+
+    @Test
+    void answersAWatchFromACompactedVersionWithGone() throws Exception {
+        int events = 10_010;
+        try (ReplayServer server = ReplayServer.start(recording(5, events), 0, 0)) {
+            awaitVersion(server, 1 + events);
+
+            try (Stream<String> watched = watch(server, "5")) {
+                List<String> lines = watched.toList();
+
+                assertEquals(1, lines.size());
+                Map<?, ?> error = SERIALIZATION.unmarshal(lines.get(0), Map.class);
+                assertEquals("ERROR", error.get("type"));
+                assertEquals(410, ((Map<?, ?>) error.get("object")).get("code"));
+            }
+        }
+    }
+
+    @Test
+    void refusesAnUnreadableVersion() throws Exception {
+        try (ReplayServer server = ReplayServer.start(recording(1, 0), 0, 0)) {
+            HttpResponse<String> response = http.send(request(server, PODS + "?watch=true&resourceVersion=x"),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode());
+        }
+    }
+
+    private Stream<String> watch(ReplayServer server, String since) throws IOException, InterruptedException {
+        HttpRequest request = request(server, PODS + "?watch=true&resourceVersion=" + since);
+        HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    private void awaitVersion(ReplayServer server, long version) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            PodList list = SERIALIZATION.unmarshal(get(server, PODS + "?limit=1"), PodList.class);
+            long current = Long.parseLong(list.getMetadata().getResourceVersion());
+            if (current == version) {
+                return;
+            }
+            assertTrue(System.nanoTime() < deadline, () -> "still at version " + current);
+            Thread.sleep(5);
+        }
+    }
+
+    private String get(ReplayServer server, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request(server, path), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response::body);
+        return response.body();
+    }
+
+    private static HttpRequest request(ReplayServer server, String path) {
+        return HttpRequest.newBuilder(URI.create(server.url() + path)).build();
+    }
+
+    /**
+     * @param events MODIFIED events for the pods in turn, all at the start of the recording
+     */
+    private static Recording recording(int pods, int events) {
+        List<Pod> listed = IntStream.range(0, pods).mapToObj(ReplayServerTest::pod).toList();
+        String list = SERIALIZATION.asJson(new PodListBuilder().withItems(listed).build());
+        List<Recording.Event> modified = IntStream.range(0, events)
+                .mapToObj(i -> new Recording.Event(0, PODS,
+                        SERIALIZATION.asJson(new WatchEvent(pod(i % pods), "MODIFIED"))))
+                .toList();
+        return new Recording(Map.of(PODS, list), modified);
+    }
+
+    private static Pod pod(int index) {
+        return new PodBuilder()
+                .withNewMetadata().withName("web-" + index).withNamespace("replay").endMetadata()
+                .build();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.forrestformations.replay;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SelectorsTest {
+
+    private static final List<GenericKubernetesResource> PODS = List.of(
+            pod("web-1", "Running", Map.of("app", "web", "env", "prod")),
+            pod("web-2", "Pending", Map.of("app", "web", "env", "staging", "canary", "true")),
+            pod("db-1", "Running", Map.of("app", "db", "env", "prod")),
+            pod("job-1", "Succeeded", Map.of()));
+
+    @Test
+    void matchesLabelsInASet() {
+        assertEquals(List.of("web-1", "web-2"), labelled("env in (prod, staging),app=web"));
+        assertEquals(List.of("web-1", "db-1"), labelled("env in (prod)"));
+    }
+
+    @Test
+    void matchesLabelsNotInASetOrMissing() {
+        assertEquals(List.of("web-2", "job-1"), labelled("env notin (prod)"));
+    }
+
+    @Test
+    void matchesMissingLabels() {
+        assertEquals(List.of("web-1", "db-1", "job-1"), labelled("!canary"));
+        assertEquals(List.of("web-2"), labelled("canary"));
+    }
+
+    @Test
+    void matchesLabelsNotEqualOrMissing() {
+        assertEquals(List.of("db-1", "job-1"), labelled("app!=web"));
+        assertEquals(List.of("db-1"), labelled("app!=web,env==prod"));
+    }
+
+    @Test
+    void matchesEveryPodWithoutASelector() {
+        assertEquals(4, labelled(" ").size());
+        assertEquals(4, fielded(null).size());
+    }
+
+    @Test
+    void matchesFields() {
+        assertEquals(List.of("web-1", "db-1"), fielded("status.phase=Running"));
+        assertEquals(List.of("web-2", "db-1", "job-1"), fielded("metadata.name!=web-1"));
+        assertEquals(List.of("db-1"), fielded("status.phase==Running,metadata.name!=web-1"));
+        assertThrows(IllegalArgumentException.class, () -> Selectors.fields("status.phase"));
+    }
+
+    private static List<String> labelled(String selector) {
+        return names(Selectors.labels(selector));
+    }
+
+    private static List<String> fielded(String selector) {
+        return names(Selectors.fields(selector));
+    }
+
+    private static List<String> names(Predicate<GenericKubernetesResource> filter) {
+        return PODS.stream().filter(filter).map(pod -> pod.getMetadata().getName()).toList();
+    }
+
+    private static GenericKubernetesResource pod(String name, String phase, Map<String, String> labels) {
+        return new GenericKubernetesResourceBuilder()
+                .withApiVersion("v1")
+                .withKind("Pod")
+                .withNewMetadata().withName(name).withNamespace("replay").withLabels(labels).endMetadata()
+                .addToAdditionalProperties("status", Map.of("phase", phase))
+                .build();
+    }
+
+}
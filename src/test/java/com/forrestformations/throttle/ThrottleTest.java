@@ -0,0 +1,78 @@
+package com.forrestformations.throttle;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.forrestformations.ClientProvider;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EnableKubernetesMockClient
+class ThrottleTest {
+
+    private static final String POD = "/api/v1/namespaces/test/pods/web";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+
+    private KubernetesClient throttled;
+
+    @BeforeEach
+    void build() {
+        Throttle.limit(Throttle.DEFAULT_PER_SECOND, Throttle.DEFAULT_BURST);
+        throttled = ClientProvider.build(new ConfigBuilder(client.getConfiguration())
+                .withRequestRetryBackoffInterval(10)
+                .withRequestRetryBackoffLimit(3)
+                .build());
+    }
+
+    @AfterEach
+    void close() {
+        throttled.close();
+    }
+
+    @Test
+    void retriesOnceTheRetryAfterHasPassed() {
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        server.expect().get().withPath(POD).andReply(429, request -> {
+            sent.add(System.nanoTime());
+            return "";
+        }).withHeader("Retry-After", "1").once();
+        server.expect().get().withPath(POD).andReply(200, request -> {
+            sent.add(System.nanoTime());
+            return new PodBuilder().withNewMetadata().withName("web").endMetadata().build();
+        }).once();
+
+        assertNotNull(throttled.pods().inNamespace("test").withName("web").get());
+
+        // The client alone retries after its 10 ms backoff; waiting twice would take two seconds
+        assertEquals(2, sent.size());
+        long spacing = TimeUnit.NANOSECONDS.toMillis(sent.get(1) - sent.get(0));
+        assertTrue(spacing >= 900 && spacing < 1800, () -> "retried after " + spacing + " ms");
+    }
+
+    @Test
+    void readsRetryAfterAsSecondsOrAnHttpDate() {
+        assertEquals(TimeUnit.SECONDS.toNanos(2), Throttle.retryAfterNanos("2"));
+        assertEquals(TimeUnit.SECONDS.toNanos(60), Throttle.retryAfterNanos("3600"));
+        assertEquals(0, Throttle.retryAfterNanos("soon"));
+
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(10));
+        long nanos = Throttle.retryAfterNanos(date);
+        assertTrue(nanos > TimeUnit.SECONDS.toNanos(8) && nanos <= TimeUnit.SECONDS.toNanos(10), () -> date);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.forrestformations.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void neverWaitsWithoutALimit() {
+        TokenBucket bucket = new TokenBucket(0, 1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(1, bucket.pushBack(TimeUnit.SECONDS.toNanos(5)));
+        assertEquals(0, bucket.waitNanos());
+    }
+
+    @Test
+    void spacesRequestsByTheInterval() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+
+        assertEquals(0, bucket.reserve());
+        long second = bucket.reserve();
+        long third = bucket.reserve();
+
+        assertTrue(second > INTERVAL / 2 && second <= INTERVAL, () -> "waited " + second);
+        assertTrue(third > INTERVAL * 3 / 2 && third <= 2 * INTERVAL, () -> "waited " + third);
+        assertTrue(bucket.waitNanos() > 2 * INTERVAL, () -> "would wait " + bucket.waitNanos());
+    }
+
+    @Test
+    void letsABurstThroughAfterAQuietPeriod() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        TimeUnit.NANOSECONDS.sleep(3 * INTERVAL);
+
+        assertEquals(0, bucket.waitNanos());
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        long fourth = bucket.reserve();
+        assertTrue(fourth > INTERVAL / 2, () -> "waited " + fourth);
+    }
+
+    @Test
+    void holdsTokensBackUntilTheServerSaidToRetry() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long retryAfter = TimeUnit.SECONDS.toNanos(1);
+
+        assertEquals(1, bucket.pushBack(retryAfter));
+        assertEquals(2, bucket.pushBack(0));
+        assertTrue(bucket.waitNanos() > retryAfter / 2, () -> "would wait " + bucket.waitNanos());
+        assertTrue(bucket.reserve() > retryAfter / 2);
+
+        bucket.recovered();
+        assertEquals(1, bucket.pushBack(0));
+    }
+
+}